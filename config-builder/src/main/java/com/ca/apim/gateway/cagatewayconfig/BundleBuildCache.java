@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.DependentBundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.Policy;
+import com.ca.apim.gateway.cagatewayconfig.config.loader.ConfigLoadException;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
+import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
+import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
+import com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+/**
+ * Persistent cache of the deployment bundles written by {@link BundleFileBuilder}, so the bundles whose inputs did not
+ * change since the previous build are copied from the cache instead of being built again.
+ * <p>
+ * Each bundle is cached in a directory named after the digest of its inputs: the policies it is made of, and a build
+ * key covering everything else the build reads. The build key is made of the project files other than the policies,
+ * the dependency bundles, the project info, the build system properties and the builder itself. The parallelism and
+ * fast start properties are left out, they do not change the bundles. Changing a policy only rebuilds the bundles it
+ * is part of, changing any other input rebuilds all of them. Bundles restored from the cache keep the ids generated by
+ * the build that created them.
+ * <p>
+ * An instance covers one build and is thread safe, as bundles can be built in parallel.
+ */
+final class BundleBuildCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleBuildCache.class.getName());
+    // changed when the layout of the cache or the content of the digests changes
+    private static final String FORMAT_VERSION = "1";
+    private static final String BUILD_PROPERTY_PREFIX = "com.ca.apim.build.";
+    // build properties that change how fast the bundles are built, but not the bundles
+    private static final Set<String> NON_OUTPUT_BUILD_PROPERTIES = ImmutableSet.of(ParallelExecutor.PARALLELISM_PROPERTY,
+            InjectionRegistry.FAST_START_PROPERTY);
+    private static final String TEMP_DIR_PREFIX = ".tmp-";
+
+    private final File cacheDir;
+    private final String buildKey;
+    private final Map<String, String> pendingDigests = new ConcurrentHashMap<>();
+    private final Set<String> usedDigests = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger restoredCount = new AtomicInteger();
+
+    @VisibleForTesting
+    BundleBuildCache(final File cacheDir, final String buildKey) {
+        this.cacheDir = cacheDir;
+        this.buildKey = buildKey;
+    }
+
+    /**
+     * Creates the cache of a build.
+     *
+     * @param cacheDir     directory of the cache, created if needed
+     * @param rootDir      source directory of the build
+     * @param dependencies dependency bundles of the build
+     * @param projectInfo  Gradle Project info
+     * @param bundle       bundle loaded from the source directory
+     * @return the cache
+     */
+    static BundleBuildCache create(final File cacheDir, final File rootDir, final List<DependentBundle> dependencies,
+                                   final ProjectInfo projectInfo, final Bundle bundle) {
+        return new BundleBuildCache(cacheDir, getBuildKey(rootDir, dependencies, projectInfo, bundle.getPolicies().keySet()));
+    }
+
+    /**
+     * Copies the cached artifacts of a bundle to the output directory, if the bundle was built before from the same
+     * inputs. Otherwise the digest of the inputs is kept to {@link #store} the bundle once it is written.
+     *
+     * @param bundleName name of the bundle
+     * @param bundle     bundle holding the policies the bundle is built from
+     * @param outputDir  directory the artifacts are written to
+     * @return true if the artifacts were restored, so the bundle does not need to be built
+     */
+    boolean restore(final String bundleName, final Bundle bundle, final File outputDir) {
+        final String digest = getDigest(bundleName, bundle.getPolicies().values());
+        usedDigests.add(digest);
+        final File[] files = new File(cacheDir, digest).listFiles();
+        if (files != null && files.length > 0) {
+            try {
+                Files.createDirectories(outputDir.toPath());
+                for (File file : files) {
+                    Files.copy(file.toPath(), new File(outputDir, file.getName()).toPath(), REPLACE_EXISTING);
+                }
+                LOGGER.log(Level.FINE, "Reusing cached bundle {0}", bundleName);
+                restoredCount.incrementAndGet();
+                return true;
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not reuse cached bundle " + bundleName + ", building it", e);
+            }
+        }
+        pendingDigests.put(bundleName, digest);
+        return false;
+    }
+
+    /**
+     * Copies the artifacts of a bundle that was just built to the cache.
+     *
+     * @param bundleName name of the bundle
+     * @param outputDir  directory the artifacts were written to
+     * @param fileNames  names of the artifact files
+     */
+    void store(final String bundleName, final File outputDir, final Collection<String> fileNames) {
+        final String digest = pendingDigests.remove(bundleName);
+        if (digest == null) {
+            return;
+        }
+        final File entryDir = new File(cacheDir, digest);
+        final File tempDir = new File(cacheDir, TEMP_DIR_PREFIX + digest);
+        try {
+            FileUtils.deleteDirectory(tempDir);
+            Files.createDirectories(tempDir.toPath());
+            for (String fileName : fileNames) {
+                final File file = new File(outputDir, fileName);
+                if (file.isFile()) {
+                    Files.copy(file.toPath(), new File(tempDir, fileName).toPath());
+                }
+            }
+            // the entry only appears once complete, so an interrupted build never leaves a partial one
+            FileUtils.deleteDirectory(entryDir);
+            Files.move(tempDir.toPath(), entryDir.toPath(), ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not cache bundle " + bundleName, e);
+            FileUtils.deleteQuietly(tempDir);
+        }
+    }
+
+    /**
+     * Deletes the cached bundles that were not used by this build.
+     */
+    void prune() {
+        final File[] entries = cacheDir.listFiles();
+        if (entries != null) {
+            Stream.of(entries).filter(entry -> !usedDigests.contains(entry.getName())).forEach(FileUtils::deleteQuietly);
+        }
+        LOGGER.log(Level.INFO, "Reused {0} of {1} bundles from the build cache",
+                new Object[]{restoredCount.get(), usedDigests.size()});
+    }
+
+    @VisibleForTesting
+    int getRestoredCount() {
+        return restoredCount.get();
+    }
+
+    private String getDigest(final String bundleName, final Collection<Policy> policies) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, buildKey);
+        putString(hasher, bundleName);
+        policies.stream().sorted(Comparator.comparing(Policy::getPath, Comparator.nullsFirst(Comparator.naturalOrder()))).forEach(policy -> {
+            putString(hasher, policy.getPath());
+            putString(hasher, policy.getPolicyXML());
+        });
+        return hasher.hash().toString();
+    }
+
+    /**
+     * The digest of the inputs of the build other than the policies. The policy files only contribute their path, as
+     * their content is part of the digest of the bundles using them.
+     */
+    @VisibleForTesting
+    static String getBuildKey(final File rootDir, final List<DependentBundle> dependencies,
+                              final ProjectInfo projectInfo, final Set<String> policyPaths) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, FORMAT_VERSION);
+        putString(hasher, projectInfo.getName());
+        putString(hasher, projectInfo.getGroupName());
+        putString(hasher, projectInfo.getVersion());
+        putString(hasher, projectInfo.getConfigName());
+        putString(hasher, projectInfo.getTargetFolderPath());
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(BUILD_PROPERTY_PREFIX) && !NON_OUTPUT_BUILD_PROPERTIES.contains(name))
+                .sorted()
+                .forEach(name -> {
+                    putString(hasher, name);
+                    putString(hasher, System.getProperty(name));
+                });
+        putBuilderVersion(hasher);
+
+        for (DependentBundle dependency : dependencies) {
+            putString(hasher, dependency.getGroupName());
+            putString(hasher, dependency.getName());
+            putString(hasher, dependency.getVersion());
+            putString(hasher, dependency.getType());
+            final File dependencyFile = dependency.getDependencyFile();
+            if (dependencyFile.isFile()) {
+                putFile(hasher, dependencyFile.getPath(), dependencyFile);
+            } else if (dependencyFile.getParentFile() != null && dependencyFile.getParentFile().isDirectory()) {
+                // the metadata files of the directory are read instead, like when loading the dependencies
+                final File[] files = dependencyFile.getParentFile().listFiles();
+                Stream.of(files != null ? files : new File[0])
+                        .filter(file -> file.getName().endsWith(JsonFileUtils.METADATA_FILE_NAME_SUFFIX))
+                        .sorted()
+                        .forEach(file -> putFile(hasher, file.getPath(), file));
+            }
+        }
+
+        final Path rootPath = rootDir.toPath();
+        final Path policyRootPath = rootPath.resolve("policy");
+        try (Stream<Path> paths = Files.walk(rootPath)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                final String relativePath = PathUtils.unixPath(rootPath.relativize(path));
+                if (path.startsWith(policyRootPath)
+                        && isPolicyFile(PathUtils.unixPath(policyRootPath.relativize(path)), policyPaths)) {
+                    putString(hasher, relativePath);
+                } else {
+                    putFile(hasher, relativePath, path.toFile());
+                }
+            }
+        } catch (IOException e) {
+            throw new ConfigLoadException("Could not read the build sources in " + rootDir, e);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * A policy file has the path of a policy followed by an extension.
+     */
+    private static boolean isPolicyFile(final String path, final Set<String> policyPaths) {
+        for (int i = path.indexOf('.', path.lastIndexOf('/') + 1); i > 0; i = path.indexOf('.', i + 1)) {
+            if (policyPaths.contains(path.substring(0, i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void putBuilderVersion(final Hasher hasher) {
+        putString(hasher, BundleBuildCache.class.getPackage().getImplementationVersion());
+        final CodeSource codeSource = BundleBuildCache.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            putString(hasher, codeSource.getLocation().toString());
+            if ("file".equals(codeSource.getLocation().getProtocol())) {
+                final File location = FileUtils.toFile(codeSource.getLocation());
+                hasher.putLong(location.length()).putLong(location.lastModified());
+            }
+        }
+    }
+
+    private static void putFile(final Hasher hasher, final String name, final File file) {
+        putString(hasher, name);
+        try {
+            final byte[] content = Files.readAllBytes(file.toPath());
+            hasher.putInt(content.length).putBytes(content);
+        } catch (IOException e) {
+            throw new ConfigLoadException("Could not read " + file, e);
+        }
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, UTF_8);
+        }
+    }
+}
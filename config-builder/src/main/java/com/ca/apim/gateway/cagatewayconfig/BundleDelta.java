@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig;
+
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.DefaultMetadata;
+import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleItemReader;
+import com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtilsException;
+import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
+import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.XmlEventWriter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.ca.apim.gateway.cagatewayconfig.beans.EntityTypeRegistry.NON_ENV_ENTITY_TYPES;
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.GATEWAY_MANAGEMENT;
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.L7;
+import static com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes.FOLDER_TYPE;
+import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.DELTA_BUNDLE_EXTENSION;
+import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.INSTALL_BUNDLE_EXTENSION;
+import static com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils.METADATA_FILE_NAME_SUFFIX;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BuilderUtils.buildAndAppendPropertiesElement;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties.FAIL_ON_NEW;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties.MAP_BY;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties.MAP_TO;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the delta of the deployment bundles built by {@link BundleFileBuilder} against the bundles of a previous
+ * release, so that a gateway running the previous release only imports the entities that changed.
+ * <p>
+ * Bundles are paired with the previous ones by the type and name in their metadata, which do not include the version.
+ * The delta bundle holds the items and mappings of the entities added or changed since the previous bundle, in the
+ * order of the bundle, followed by delete mappings for the entities of the previous bundle that are gone, in reverse
+ * order. As in the delete bundles, folders and environment entities are never deleted. The unchanged entities the
+ * changed items refer to, such as their folder, the policies and encasses they use and their stored passwords, only
+ * get a mapping. It maps them to the entity already on the gateway by the name or path of their mapping, and fails
+ * instead of creating it. A bundle without a previous version gets a delta holding all its entities.
+ * <p>
+ * Entities are identified by their type and the MapBy and MapTo properties of their mapping, the name or path the
+ * gateway maps them by, since their ids and guids are generated again by each build. They are compared by a digest of
+ * their item and of their mapping in which the ids and guids of the entities of the bundle are replaced by the entity
+ * they identify, so only a change of content or of the entity referenced changes the digest. Both bundles are streamed
+ * twice, first to identify the entities and then to digest them, only the identities, the digests and the mappings of
+ * the removed entities are kept in memory. An instance covers one build and is thread safe.
+ */
+final class BundleDelta {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleDelta.class.getName());
+    // the ids and guids generated for the entities
+    private static final Pattern GENERATED_ID_PATTERN = Pattern.compile(
+            "\\b(?:\\p{XDigit}{32}|\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12})\\b");
+
+    private final File deltaDir;
+    private final Map<String, File> previousBundles;
+    private final DocumentTools documentTools;
+    private final JsonFileUtils jsonFileUtils;
+    private final BundleItemReader itemReader;
+
+    @VisibleForTesting
+    BundleDelta(final File deltaDir, final Map<String, File> previousBundles, final DocumentTools documentTools,
+                final JsonFileUtils jsonFileUtils) {
+        this.deltaDir = deltaDir;
+        this.previousBundles = previousBundles;
+        this.documentTools = documentTools;
+        this.jsonFileUtils = jsonFileUtils;
+        this.itemReader = new BundleItemReader(documentTools);
+    }
+
+    /**
+     * Creates the delta writer of a build.
+     *
+     * @param previousReleaseDir directory holding the install bundles of the previous release and their metadata
+     * @param deltaDir           directory the delta bundles are written to, created if needed
+     * @param documentTools      tools used to read and write the bundles
+     * @param jsonFileUtils      utils used to read the metadata
+     * @return the delta writer
+     */
+    static BundleDelta create(final File previousReleaseDir, final File deltaDir, final DocumentTools documentTools,
+                              final JsonFileUtils jsonFileUtils) {
+        final Map<String, File> previousBundles = new HashMap<>();
+        final File[] metadataFiles = previousReleaseDir.listFiles((dir, name) -> name.endsWith(METADATA_FILE_NAME_SUFFIX));
+        for (File metadataFile : metadataFiles != null ? metadataFiles : new File[0]) {
+            final String bundleName = metadataFile.getName().substring(0,
+                    metadataFile.getName().length() - METADATA_FILE_NAME_SUFFIX.length());
+            final File installBundle = new File(previousReleaseDir, bundleName + INSTALL_BUNDLE_EXTENSION);
+            if (installBundle.isFile()) {
+                previousBundles.put(getBundleKey(jsonFileUtils.readBundleMetadataFile(metadataFile, DefaultMetadata.class)),
+                        installBundle);
+            }
+        }
+        LOGGER.log(Level.FINE, "Found {0} bundles of the previous release in {1}",
+                new Object[]{previousBundles.size(), previousReleaseDir});
+        return new BundleDelta(deltaDir, previousBundles, documentTools, jsonFileUtils);
+    }
+
+    /**
+     * Writes the delta bundle of a bundle of the build, named after the bundle.
+     *
+     * @param bundleName name of the bundle
+     * @param outputDir  directory the install bundle and the metadata of the bundle were written to
+     */
+    void write(final String bundleName, final File outputDir) {
+        final File metadataFile = new File(outputDir, bundleName + METADATA_FILE_NAME_SUFFIX);
+        final File previousBundle = metadataFile.isFile() ?
+                previousBundles.get(getBundleKey(jsonFileUtils.readBundleMetadataFile(metadataFile, DefaultMetadata.class))) :
+                null;
+        if (previousBundle == null) {
+            LOGGER.log(Level.INFO, "Bundle {0} is not part of the previous release, its delta holds all its entities", bundleName);
+        }
+        write(new File(outputDir, bundleName + INSTALL_BUNDLE_EXTENSION), previousBundle,
+                new File(deltaDir, bundleName + DELTA_BUNDLE_EXTENSION));
+    }
+
+    /**
+     * Writes the delta of the bundle against the previous bundle.
+     *
+     * @param bundle         the install bundle
+     * @param previousBundle the install bundle of the previous release, null if there is none
+     * @param deltaBundle    the file the delta bundle is written to
+     */
+    @VisibleForTesting
+    void write(final File bundle, final File previousBundle, final File deltaBundle) {
+        final EntityDigests digests = readDigests(bundle, (key, mapping) -> {});
+        final List<Element> removedMappings = new ArrayList<>();
+        final EntityDigests previousDigests = previousBundle == null ? new EntityDigests(new EntityKeys()) :
+                readDigests(previousBundle, (key, mapping) -> {
+                    if (!digests.contains(key) && isDeletable(mapping)) {
+                        removedMappings.add(mapping);
+                    }
+                });
+
+        final Set<String> changedEntities = new HashSet<>();
+        digests.getKeys().stream().filter(key -> !digests.isSame(key, previousDigests)).forEach(changedEntities::add);
+        Collections.reverse(removedMappings);
+
+        try {
+            Files.createDirectories(deltaBundle.getParentFile().toPath());
+            try (OutputStream outputStream = Files.newOutputStream(deltaBundle.toPath())) {
+                writeDelta(bundle, digests.entityKeys, changedEntities, removedMappings, outputStream);
+            }
+        } catch (IOException e) {
+            throw new DocumentFileUtilsException("Error writing to file '" + deltaBundle + "': " + e.getMessage(), e);
+        }
+        LOGGER.log(Level.INFO, "Delta bundle {0}: {1} added or changed and {2} removed of {3} entities",
+                new Object[]{deltaBundle.getName(), changedEntities.size(), removedMappings.size(), digests.getKeys().size()});
+    }
+
+    private void writeDelta(final File bundle, final EntityKeys entityKeys, final Set<String> changedEntities,
+                            final List<Element> removedMappings, final OutputStream outputStream) {
+        final XmlEventWriter writer = documentTools.createXmlEventWriter(outputStream);
+        writer.writeStartElement(BUNDLE, ImmutableMap.of(L7, GATEWAY_MANAGEMENT));
+        writer.writeStartElement(REFERENCES);
+        // mappings come after all the items, only those of the changed and referenced entities are kept until then
+        final Set<String> referencedEntities = new HashSet<>();
+        final List<Element> deltaMappings = new ArrayList<>();
+        read(bundle, item -> {
+            if (changedEntities.contains(entityKeys.getItemKey(item))) {
+                writer.writeNode(item);
+                entityKeys.addReferencedKeys(item, referencedEntities);
+            }
+        }, mapping -> {
+            final String key = getMappingKey(mapping);
+            if (changedEntities.contains(key)) {
+                deltaMappings.add(mapping);
+            } else if (referencedEntities.contains(key)) {
+                deltaMappings.add(getExistingEntityMapping(mapping));
+            }
+        });
+        writer.writeEndElement(REFERENCES);
+
+        writer.writeStartElement(MAPPINGS);
+        deltaMappings.forEach(writer::writeNode);
+        removedMappings.forEach(mapping -> {
+            mapping.setAttribute(ATTRIBUTE_ACTION, MappingActions.DELETE);
+            writer.writeNode(mapping);
+        });
+        writer.writeEndElement(MAPPINGS);
+        writer.writeEndElement(BUNDLE);
+        writer.close();
+    }
+
+    private EntityDigests readDigests(final File bundle, final BiConsumer<String, Element> mappingConsumer) {
+        final EntityDigests digests = new EntityDigests(readEntityKeys(bundle));
+        final EntityKeys entityKeys = digests.entityKeys;
+        read(bundle, item -> digests.items.put(entityKeys.getItemKey(item), entityKeys.digest(item)), mapping -> {
+            final String key = getMappingKey(mapping);
+            digests.mappings.put(key, entityKeys.digest(mapping));
+            mappingConsumer.accept(key, mapping);
+        });
+        return digests;
+    }
+
+    /**
+     * Reads the identity of the entities of the bundle, by the ids and guids they are referenced with.
+     */
+    private EntityKeys readEntityKeys(final File bundle) {
+        final EntityKeys entityKeys = new EntityKeys();
+        final Map<String, List<String>> guidsById = new HashMap<>();
+        read(bundle, item -> {
+            final String id = getSingleChildElementTextContent(item, ID);
+            // items come before the mappings, they are identified by id until the mappings are read
+            entityKeys.keysByReference.put(id, getSingleChildElementTextContent(item, TYPE) + ":" + id);
+            guidsById.put(id, getGuids(item));
+        }, mapping -> entityKeys.keysByReference.put(mapping.getAttribute(ATTRIBUTE_SRCID), getMappingKey(mapping)));
+        guidsById.forEach((id, guids) -> guids.forEach(guid -> entityKeys.keysByReference.putIfAbsent(guid, entityKeys.keysByReference.get(id))));
+        return entityKeys;
+    }
+
+    private void read(final File bundle, final Consumer<Element> itemConsumer, final Consumer<Element> mappingConsumer) {
+        try {
+            itemReader.read(bundle, type -> true, itemConsumer, mappingConsumer);
+        } catch (DocumentParseException e) {
+            throw new DocumentFileUtilsException("Error reading bundle '" + bundle + "': " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isDeletable(final Element mapping) {
+        final String type = mapping.getAttribute(ATTRIBUTE_TYPE);
+        final String action = mapping.getAttribute(ATTRIBUTE_ACTION);
+        return NON_ENV_ENTITY_TYPES.contains(type) && !FOLDER_TYPE.equals(type)
+                && !MappingActions.DELETE.equals(action) && !MappingActions.IGNORE.equals(action);
+    }
+
+    private static String getBundleKey(final DefaultMetadata metadata) {
+        return metadata.getType() + ":" + metadata.getName();
+    }
+
+    /**
+     * Key of the entity of the mapping, its type and the MapBy and MapTo properties of the mapping, or its type and id
+     * for the entities mapped by id.
+     */
+    private static String getMappingKey(final Element mapping) {
+        final Map<String, Object> mapProperties = getMapProperties(mapping);
+        final Object mapBy = mapProperties.get(MAP_BY);
+        final Object mapTo = mapProperties.get(MAP_TO);
+        final String type = mapping.getAttribute(ATTRIBUTE_TYPE);
+        return mapBy != null && mapTo != null ? type + ":" + mapBy + ":" + mapTo : type + ":" + mapping.getAttribute(ATTRIBUTE_SRCID);
+    }
+
+    /**
+     * Mapping of an entity that is not part of the delta to the entity already on the gateway, found by the MapBy and
+     * MapTo properties of its mapping, or by its id for the entities mapped by id.
+     */
+    private static Element getExistingEntityMapping(final Element mapping) {
+        final Document document = mapping.getOwnerDocument();
+        final Element existingMapping = createElementWithAttributes(document, MAPPING, ImmutableMap.of(
+                ATTRIBUTE_ACTION, MappingActions.NEW_OR_EXISTING,
+                ATTRIBUTE_SRCID, mapping.getAttribute(ATTRIBUTE_SRCID),
+                ATTRIBUTE_TYPE, mapping.getAttribute(ATTRIBUTE_TYPE)));
+        final Map<String, Object> properties = getMapProperties(mapping);
+        properties.put(FAIL_ON_NEW, true);
+        buildAndAppendPropertiesElement(properties, document, existingMapping);
+        return existingMapping;
+    }
+
+    /**
+     * The MapBy and MapTo properties of the mapping, the name or path the gateway maps the entity by.
+     */
+    private static Map<String, Object> getMapProperties(final Element mapping) {
+        final Map<String, Object> mapProperties = new LinkedHashMap<>();
+        final Element properties = getSingleChildElement(mapping, PROPERTIES, true);
+        if (properties != null) {
+            for (Element property : getChildElements(properties, PROPERTY)) {
+                final String key = property.getAttribute(ATTRIBUTE_KEY);
+                if (MAP_BY.equals(key) || MAP_TO.equals(key)) {
+                    mapProperties.put(key, getSingleChildElementTextContent(property, STRING_VALUE));
+                }
+            }
+        }
+        return mapProperties;
+    }
+
+    /**
+     * The guids of the entity of the item, in the guid attributes and elements of its resource.
+     */
+    private static List<String> getGuids(final Element item) {
+        final List<String> guids = new ArrayList<>();
+        final NodeList elements = item.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            final Element element = (Element) elements.item(i);
+            if (element.hasAttribute(ATTRIBUTE_GUID)) {
+                guids.add(element.getAttribute(ATTRIBUTE_GUID));
+            } else if (GUID.equals(element.getTagName())) {
+                guids.add(element.getTextContent().trim());
+            }
+        }
+        return guids;
+    }
+
+    /**
+     * Digest of the element, its attributes and its content. The whitespace between elements and the namespace
+     * declarations are left out, so the digest does not depend on how the bundle is indented.
+     */
+    @VisibleForTesting
+    static HashCode digest(final Element element) {
+        return digest(element, UnaryOperator.identity());
+    }
+
+    private static HashCode digest(final Element element, final UnaryOperator<String> valueNormalizer) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putNode(hasher, element, valueNormalizer);
+        return hasher.hash();
+    }
+
+    private static void putNode(final Hasher hasher, final Node node, final UnaryOperator<String> valueNormalizer) {
+        switch (node.getNodeType()) {
+            case Node.ELEMENT_NODE:
+                hasher.putChar('<');
+                putString(hasher, node.getNodeName());
+                final NamedNodeMap attributeMap = node.getAttributes();
+                final SortedMap<String, String> attributes = new TreeMap<>();
+                for (int i = 0; i < attributeMap.getLength(); i++) {
+                    final Node attribute = attributeMap.item(i);
+                    if (!attribute.getNodeName().startsWith("xmlns")) {
+                        attributes.put(attribute.getNodeName(), attribute.getNodeValue());
+                    }
+                }
+                attributes.forEach((name, value) -> {
+                    putString(hasher, name);
+                    putString(hasher, valueNormalizer.apply(value));
+                });
+                for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                    putNode(hasher, child, valueNormalizer);
+                }
+                hasher.putChar('>');
+                break;
+            case Node.TEXT_NODE:
+            case Node.CDATA_SECTION_NODE:
+                if (!node.getNodeValue().trim().isEmpty()) {
+                    hasher.putChar('"');
+                    putString(hasher, valueNormalizer.apply(node.getNodeValue()));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void putString(final Hasher hasher, final String value) {
+        hasher.putInt(value.length()).putString(value, UTF_8);
+    }
+
+    /**
+     * Identity of the entities of a bundle by the ids and guids generated for them.
+     */
+    private static final class EntityKeys {
+        private final Map<String, String> keysByReference = new HashMap<>();
+
+        private String getItemKey(final Element item) {
+            final String id = getSingleChildElementTextContent(item, ID);
+            return keysByReference.getOrDefault(id, getSingleChildElementTextContent(item, TYPE) + ":" + id);
+        }
+
+        /**
+         * Digest of the element in which the ids and guids of the entities are replaced by their key. Ids and guids
+         * that do not identify an entity of the bundle are kept.
+         */
+        private HashCode digest(final Element element) {
+            return BundleDelta.digest(element, this::replaceReferences);
+        }
+
+        /**
+         * Adds the keys of the entities of the bundle the ids and guids in the node refer to.
+         */
+        private void addReferencedKeys(final Node node, final Set<String> keys) {
+            switch (node.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    final NamedNodeMap attributes = node.getAttributes();
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        addReferencedKeys(attributes.item(i).getNodeValue(), keys);
+                    }
+                    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                        addReferencedKeys(child, keys);
+                    }
+                    break;
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    addReferencedKeys(node.getNodeValue(), keys);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void addReferencedKeys(final String value, final Set<String> keys) {
+            final Matcher matcher = GENERATED_ID_PATTERN.matcher(value);
+            while (matcher.find()) {
+                final String key = keysByReference.get(matcher.group());
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+        }
+
+        private String replaceReferences(final String value) {
+            final Matcher matcher = GENERATED_ID_PATTERN.matcher(value);
+            if (!matcher.find()) {
+                return value;
+            }
+            final StringBuffer replaced = new StringBuffer(value.length());
+            do {
+                final String key = keysByReference.get(matcher.group());
+                matcher.appendReplacement(replaced, Matcher.quoteReplacement(key != null ? "{" + key + "}" : matcher.group()));
+            } while (matcher.find());
+            return matcher.appendTail(replaced).toString();
+        }
+    }
+
+    /**
+     * Digests of the items and mappings of a bundle, by entity key.
+     */
+    private static final class EntityDigests {
+        private final EntityKeys entityKeys;
+        private final Map<String, HashCode> items = new HashMap<>();
+        private final Map<String, HashCode> mappings = new LinkedHashMap<>();
+
+        private EntityDigests(final EntityKeys entityKeys) {
+            this.entityKeys = entityKeys;
+        }
+
+        private boolean contains(final String key) {
+            return mappings.containsKey(key) || items.containsKey(key);
+        }
+
+        private Set<String> getKeys() {
+            final Set<String> keys = new LinkedHashSet<>(mappings.keySet());
+            keys.addAll(items.keySet());
+            return keys;
+        }
+
+        private boolean isSame(final String key, final EntityDigests other) {
+            return other.contains(key) && Objects.equals(items.get(key), other.items.get(key))
+                    && Objects.equals(mappings.get(key), other.mappings.get(key));
+        }
+    }
+}
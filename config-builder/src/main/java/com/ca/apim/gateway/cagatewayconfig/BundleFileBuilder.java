@@ -18,6 +18,7 @@ import com.ca.apim.gateway.cagatewayconfig.config.loader.EntityLoader;
 import com.ca.apim.gateway.cagatewayconfig.config.loader.EntityLoaderRegistry;
 import com.ca.apim.gateway.cagatewayconfig.config.loader.FolderLoaderUtils;
 import com.ca.apim.gateway.cagatewayconfig.environment.BundleCache;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
@@ -63,6 +64,40 @@ public class BundleFileBuilder {
     }
 
     public void buildBundle(File rootDir, File outputDir, List<DependentBundle> dependencies, ProjectInfo projectInfo) {
+        buildBundle(rootDir, outputDir, dependencies, projectInfo, null);
+    }
+
+    /**
+     * Builds the deployment bundles of the source directory into the output directory.
+     *
+     * @param rootDir      source directory, null to build an empty bundle
+     * @param outputDir    directory the bundles are written to
+     * @param dependencies dependency bundles
+     * @param projectInfo  Gradle Project info
+     * @param cacheDir     directory of the build cache reusing the bundles built before from the same inputs, null to
+     *                     build all the bundles
+     */
+    public void buildBundle(File rootDir, File outputDir, List<DependentBundle> dependencies, ProjectInfo projectInfo,
+                            File cacheDir) {
+        buildBundle(rootDir, outputDir, dependencies, projectInfo, cacheDir, null, null);
+    }
+
+    /**
+     * Builds the deployment bundles of the source directory into the output directory, and the delta of each bundle
+     * against the bundles of a previous release, see {@link BundleDelta}.
+     *
+     * @param rootDir            source directory, null to build an empty bundle
+     * @param outputDir          directory the bundles are written to
+     * @param dependencies       dependency bundles
+     * @param projectInfo        Gradle Project info
+     * @param cacheDir           directory of the build cache reusing the bundles built before from the same inputs,
+     *                           null to build all the bundles
+     * @param previousReleaseDir directory holding the install bundles of the previous release and their metadata, null
+     *                           to only build the full bundles
+     * @param deltaDir           directory the delta bundles are written to, used with the previous release directory
+     */
+    public void buildBundle(File rootDir, File outputDir, List<DependentBundle> dependencies, ProjectInfo projectInfo,
+                            File cacheDir, File previousReleaseDir, File deltaDir) {
         final DocumentBuilder documentBuilder = documentTools.getDocumentBuilder();
         final Document document = documentBuilder.newDocument();
 
@@ -120,18 +155,42 @@ public class BundleFileBuilder {
             }
         }
 
+        final BundleBuildCache buildCache = cacheDir != null && rootDir != null ?
+                BundleBuildCache.create(cacheDir, rootDir, dependencies, projectInfo, bundle) : null;
+
         //Zip
-        final Map<String, BundleArtifacts> bundleElementMap = bundleEntityBuilder.build(bundle,
-                EntityBuilder.BundleType.DEPLOYMENT, document, projectInfo);
-        bundleElementMap.forEach((k, v) -> writeBundleArtifacts(k, v, outputDir));
+        // artifacts are written as soon as each bundle is built
+        final List<String> bundleNames = bundleEntityBuilder.build(bundle, EntityBuilder.BundleType.DEPLOYMENT, document,
+                projectInfo, false,
+                (k, v) -> writeBundleArtifacts(k, v, outputDir, buildCache),
+                (k, b) -> buildCache != null && buildCache.restore(k, b, outputDir));
+        if (buildCache != null) {
+            buildCache.prune();
+        }
+        if (previousReleaseDir != null) {
+            // the delta is read from the written bundles, so bundles restored from the cache get one too
+            final BundleDelta bundleDelta = BundleDelta.create(previousReleaseDir, deltaDir, documentTools, jsonFileUtils);
+            try (ParallelExecutor executor = new ParallelExecutor(ParallelExecutor.getParallelism())) {
+                executor.map(bundleNames, bundleName -> {
+                    bundleDelta.write(bundleName, outputDir);
+                    return bundleName;
+                });
+            }
+        }
+        LOGGER.log(Level.FINE, "XML parser pool usage: {0}", documentTools.getParserPoolStatistics());
     }
 
-    private void writeBundleArtifacts(final String bundleName, final BundleArtifacts bundleArtifacts, File outputDir) {
-        documentFileUtils.createFile(bundleArtifacts.getInstallBundle().getElement(), new File(outputDir,
+    private void writeBundleArtifacts(final String bundleName, final BundleArtifacts bundleArtifacts, File outputDir,
+                                      final BundleBuildCache buildCache) {
+        documentFileUtils.createFile(bundleArtifacts.getInstallBundle(), new File(outputDir,
                 bundleArtifacts.getInstallBundle().getFilename()).toPath());
-        documentFileUtils.createFile(bundleArtifacts.getDeleteBundle().getElement(), new File(outputDir,
+        documentFileUtils.createFile(bundleArtifacts.getDeleteBundle(), new File(outputDir,
                 bundleArtifacts.getDeleteBundle().getFilename()).toPath());
         jsonFileUtils.createBundleMetadataFile(bundleArtifacts.getBundleMetadata(), bundleName, outputDir);
+        if (buildCache != null) {
+            buildCache.store(bundleName, outputDir, Arrays.asList(bundleArtifacts.getInstallBundle().getFilename(),
+                    bundleArtifacts.getDeleteBundle().getFilename(), bundleName + JsonFileUtils.METADATA_FILE_NAME_SUFFIX));
+        }
     }
 
     protected <E extends GatewayEntity> void logOverriddenEntities(Bundle bundle, Set<Bundle> dependencyBundles, Class<E> entityClass) {
@@ -72,7 +72,57 @@ public class Bundle {
 
     @SuppressWarnings("unchecked")
     public <E extends GatewayEntity> Map<String, E> getEntities(Class<E> entityType) {
-        return (Map<String, E>) entities.computeIfAbsent(entityType, (Function<Class, Map<String, E>>) aClass -> new HashMap<>());
+        return (Map<String, E>) entities.computeIfAbsent(entityType, (Function<Class, Map<String, E>>) aClass -> new IndexedEntityMap<>(new HashMap<>()));
+    }
+
+    /**
+     * Finds an entity by name, without scanning all entities of the type. Entities without a name are found by the
+     * last segment of their key.
+     *
+     * @param entityType the type of entity
+     * @param name       the entity name
+     * @return the first entity with that name, null if there is none
+     */
+    public <E extends GatewayEntity> E getEntityByName(Class<E> entityType, String name) {
+        return valueOf(findEntity(entityType, IndexedEntityMap.Attribute.NAME, name));
+    }
+
+    /**
+     * Same as {@link #getEntityByName(Class, String)}, also returning the key the entity is stored with.
+     */
+    public <E extends GatewayEntity> Map.Entry<String, E> getEntryByName(Class<E> entityType, String name) {
+        return findEntity(entityType, IndexedEntityMap.Attribute.NAME, name);
+    }
+
+    /**
+     * Finds an entity by path. Entities that are not in a folder are found by their key.
+     */
+    public <E extends GatewayEntity> E getEntityByPath(Class<E> entityType, String path) {
+        return valueOf(findEntity(entityType, IndexedEntityMap.Attribute.PATH, path));
+    }
+
+    /**
+     * Finds an entity by id.
+     */
+    public <E extends GatewayEntity> E getEntityById(Class<E> entityType, String id) {
+        return valueOf(findEntity(entityType, IndexedEntityMap.Attribute.ID, id));
+    }
+
+    /**
+     * Finds an entity by guid, for the entities that have one.
+     */
+    public <E extends GatewayEntity> E getEntityByGuid(Class<E> entityType, String guid) {
+        return valueOf(findEntity(entityType, IndexedEntityMap.Attribute.GUID, guid));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <E extends GatewayEntity> Map.Entry<String, E> findEntity(Class<E> entityType, IndexedEntityMap.Attribute attribute, String value) {
+        final Map<String, E> entitiesOfType = entityType == Folder.class ? (Map<String, E>) getFolders() : getEntities(entityType);
+        return ((IndexedEntityMap<E>) entitiesOfType).find(attribute, value);
+    }
+
+    private static <E> E valueOf(Map.Entry<String, E> entry) {
+        return entry != null ? entry.getValue() : null;
     }
 
     @SuppressWarnings("unchecked")
@@ -127,7 +177,7 @@ public class Bundle {
 
     @SuppressWarnings("unchecked")
     public Map<String, Folder> getFolders() {
-        return (Map<String, Folder>) entities.computeIfAbsent(Folder.class, (Function<Class, Map<String, Folder>>) aClass -> new ConcurrentHashMap<>());
+        return (Map<String, Folder>) entities.computeIfAbsent(Folder.class, (Function<Class, Map<String, Folder>>) aClass -> new IndexedEntityMap<>(new ConcurrentHashMap<>()));
     }
 
     public void putAllEncasses(@NotNull Map<String, Encass> encasses) {
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.beans;
+
+import com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils;
+
+import java.util.*;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Map of the entities of one type in a {@link Bundle}, keeping secondary indexes by name, path, id and guid so these
+ * lookups don't scan all entities.
+ * Every change made through the map invalidates the indexes, which are rebuilt on the next lookup. Entities changed in
+ * place are detected when they are looked up: a hit is only returned if the entity still has the looked up value and is
+ * still in the map, and a miss is only returned from an index built by that lookup, otherwise the index is rebuilt. A
+ * miss therefore costs as much as scanning the map. When several entities share a value, the first one in iteration
+ * order is found, same as scanning the map.
+ * Thread safety is the one of the backing map, lookups themselves can run concurrently.
+ */
+class IndexedEntityMap<E extends GatewayEntity> implements Map<String, E> {
+
+    enum Attribute {
+        /**
+         * The entity name, or the last segment of its key for entities without a name.
+         */
+        NAME {
+            @Override
+            String of(String key, GatewayEntity entity) {
+                return entity.getName() != null ? entity.getName() : PathUtils.extractName(key);
+            }
+        },
+        /**
+         * The path of folderable entities, or the key of the other ones.
+         */
+        PATH {
+            @Override
+            String of(String key, GatewayEntity entity) {
+                return entity instanceof Folderable && ((Folderable) entity).getPath() != null ? ((Folderable) entity).getPath() : key;
+            }
+        },
+        ID {
+            @Override
+            String of(String key, GatewayEntity entity) {
+                return entity.getId();
+            }
+        },
+        GUID {
+            @Override
+            String of(String key, GatewayEntity entity) {
+                if (entity instanceof Policy) {
+                    return ((Policy) entity).getGuid();
+                } else if (entity instanceof Encass) {
+                    return ((Encass) entity).getGuid();
+                } else if (entity instanceof Service) {
+                    return ((Service) entity).getGuid();
+                } else if (entity instanceof MissingGatewayEntity) {
+                    return ((MissingGatewayEntity) entity).getGuid();
+                }
+                return null;
+            }
+        };
+
+        abstract String of(String key, GatewayEntity entity);
+    }
+
+    private final Map<String, E> entities;
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Attribute, Index<E>> indexes = new EnumMap<>(Attribute.class);
+
+    IndexedEntityMap(final Map<String, E> entities) {
+        this.entities = entities;
+    }
+
+    /**
+     * Finds the entity having the given value for the attribute.
+     *
+     * @param attribute the attribute to look up
+     * @param value     the value of the attribute
+     * @return the key and entity found, null if there is none
+     */
+    Map.Entry<String, E> find(final Attribute attribute, final String value) {
+        if (value == null) {
+            return null;
+        }
+        synchronized (indexes) {
+            Index<E> index = indexes.get(attribute);
+            boolean rebuilt = false;
+            if (index == null || index.version != version.get()) {
+                index = buildIndex(attribute);
+                rebuilt = true;
+            }
+            Map.Entry<String, E> found = index.entries.get(value);
+            if (!rebuilt && (found == null || !isCurrent(attribute, value, found))) {
+                // the entity may have been changed in place since the index was built
+                found = buildIndex(attribute).entries.get(value);
+            }
+            return found;
+        }
+    }
+
+    private Index<E> buildIndex(final Attribute attribute) {
+        // read the version first so changes made while iterating invalidate the new index
+        final Index<E> index = new Index<>(version.get());
+        entities.forEach((key, entity) -> {
+            final String value = attribute.of(key, entity);
+            if (value != null) {
+                index.entries.putIfAbsent(value, new SimpleImmutableEntry<>(key, entity));
+            }
+        });
+        indexes.put(attribute, index);
+        return index;
+    }
+
+    private boolean isCurrent(final Attribute attribute, final String value, final Map.Entry<String, E> found) {
+        return entities.get(found.getKey()) == found.getValue() && value.equals(attribute.of(found.getKey(), found.getValue()));
+    }
+
+    private <T> T changed(final T result) {
+        version.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entities.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entities.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return entities.containsValue(value);
+    }
+
+    @Override
+    public E get(Object key) {
+        return entities.get(key);
+    }
+
+    @Override
+    public E getOrDefault(Object key, E defaultValue) {
+        return entities.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public E put(String key, E value) {
+        return changed(entities.put(key, value));
+    }
+
+    @Override
+    public E remove(Object key) {
+        return changed(entities.remove(key));
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends E> m) {
+        entities.putAll(m);
+        changed(null);
+    }
+
+    @Override
+    public void clear() {
+        entities.clear();
+        changed(null);
+    }
+
+    @Override
+    public E putIfAbsent(String key, E value) {
+        return changed(entities.putIfAbsent(key, value));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        return changed(entities.remove(key, value));
+    }
+
+    @Override
+    public boolean replace(String key, E oldValue, E newValue) {
+        return changed(entities.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public E replace(String key, E value) {
+        return changed(entities.replace(key, value));
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super E, ? extends E> function) {
+        entities.replaceAll(function);
+        changed(null);
+    }
+
+    @Override
+    public E computeIfAbsent(String key, Function<? super String, ? extends E> mappingFunction) {
+        return changed(entities.computeIfAbsent(key, mappingFunction));
+    }
+
+    @Override
+    public E computeIfPresent(String key, BiFunction<? super String, ? super E, ? extends E> remappingFunction) {
+        return changed(entities.computeIfPresent(key, remappingFunction));
+    }
+
+    @Override
+    public E compute(String key, BiFunction<? super String, ? super E, ? extends E> remappingFunction) {
+        return changed(entities.compute(key, remappingFunction));
+    }
+
+    @Override
+    public E merge(String key, E value, BiFunction<? super E, ? super E, ? extends E> remappingFunction) {
+        return changed(entities.merge(key, value, remappingFunction));
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super E> action) {
+        entities.forEach(action);
+    }
+
+    /**
+     * Removing through the views is seen by lookups, as hits are checked against the map.
+     */
+    @Override
+    public Set<String> keySet() {
+        return entities.keySet();
+    }
+
+    @Override
+    public Collection<E> values() {
+        return entities.values();
+    }
+
+    @Override
+    public Set<Entry<String, E>> entrySet() {
+        return entities.entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || entities.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return entities.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return entities.toString();
+    }
+
+    private static class Index<E> {
+        private final long version;
+        private final Map<String, Map.Entry<String, E>> entries = new HashMap<>();
+
+        private Index(final long version) {
+            this.version = version;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import org.apache.commons.io.FilenameUtils;
 
 import javax.inject.Named;
+import java.util.function.Supplier;
 
 import static com.ca.apim.gateway.cagatewayconfig.beans.SoapResourceType.WSDL;
 import static com.ca.apim.gateway.cagatewayconfig.beans.SoapResourceType.XMLSCHEMA;
@@ -21,6 +22,8 @@ public class SoapResource extends Folderable {
     private String type;
     @JsonIgnore
     private String content;
+    @JsonIgnore
+    private Supplier<String> contentSource;
 
     public String getRootUrl() {
         return rootUrl;
@@ -30,12 +33,45 @@ public class SoapResource extends Folderable {
         this.rootUrl = rootUrl;
     }
 
+    /**
+     * Returns the content of the resource. Content set through {@link #setContentSource(Supplier)} is read again on
+     * each call and is not kept by the resource.
+     *
+     * @return the content of the resource
+     */
     public String getContent() {
+        if (content == null && contentSource != null) {
+            return contentSource.get();
+        }
         return content;
     }
 
     public void setContent(String content) {
         this.content = content;
+        this.contentSource = null;
+    }
+
+    /**
+     * Sets where the content is read from when it is needed, for resources whose content is only used if they are
+     * part of the bundle built.
+     *
+     * @param contentSource reads the content of the resource
+     */
+    @JsonIgnore
+    public void setContentSource(Supplier<String> contentSource) {
+        this.content = null;
+        this.contentSource = contentSource;
+    }
+
+    /**
+     * Takes the content of another resource, without reading it if it has not been read yet.
+     *
+     * @param other the resource to take the content from
+     */
+    @JsonIgnore
+    public void setContentFrom(SoapResource other) {
+        this.content = other.content;
+        this.contentSource = other.contentSource;
     }
 
     public String getType() {
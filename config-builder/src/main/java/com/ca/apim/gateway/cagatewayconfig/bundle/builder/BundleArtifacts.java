@@ -6,9 +6,12 @@
 
 package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import java.io.OutputStream;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
@@ -28,6 +31,12 @@ public class BundleArtifacts {
         this.bundleMetadata = bundleMetadata;
     }
 
+    BundleArtifacts(Artifact installBundle, Artifact deleteBundle, BundleMetadata bundleMetadata) {
+        this.installBundle = installBundle;
+        this.deleteBundle = deleteBundle;
+        this.bundleMetadata = bundleMetadata;
+    }
+
     public Artifact getInstallBundle() {
         return installBundle;
     }
@@ -48,19 +57,58 @@ public class BundleArtifacts {
         return privateKeyContexts;
     }
 
+    /**
+     * A bundle file to write. Bundles made of entities are streamed to the file when written and their element is
+     * only built if it is asked for.
+     */
     public static class Artifact {
-        private final Element element;
+        private Element element;
         private final String filename;
+        private final List<Entity> entities;
+        private final BundleDocumentBuilder bundleDocumentBuilder;
+        private final Document document;
 
         public Artifact(Element element, String filename) {
             this.element = element;
             this.filename = filename;
+            this.entities = null;
+            this.bundleDocumentBuilder = null;
+            this.document = null;
+        }
+
+        Artifact(List<Entity> entities, BundleDocumentBuilder bundleDocumentBuilder, Document document, String filename) {
+            this.filename = filename;
+            this.entities = entities;
+            this.bundleDocumentBuilder = bundleDocumentBuilder;
+            this.document = document;
         }
 
-        public Element getElement() {
+        public synchronized Element getElement() {
+            if (element == null && entities != null) {
+                element = bundleDocumentBuilder.build(document, entities);
+            }
             return element;
         }
 
+        /**
+         * @return true if the bundle can be written with {@link #write(OutputStream)} without building its element
+         */
+        public boolean isStreamable() {
+            return entities != null;
+        }
+
+        /**
+         * Streams the bundle to the output, only available for streamable artifacts.
+         *
+         * @param outStream the stream to write to, left open
+         */
+        public void write(OutputStream outStream) {
+            if (entities == null) {
+                throw new IllegalStateException("Artifact " + filename + " is not streamable");
+            }
+            bundleDocumentBuilder.write(entities, outStream);
+        }
+
         public String getFilename() {
             return filename;
         }
@@ -6,11 +6,14 @@
 
 package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
 import com.google.common.collect.ImmutableMap;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.io.OutputStream;
 import java.util.List;
 
 import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BuilderUtils.buildAndAppendPropertiesElement;
@@ -20,8 +23,19 @@ import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
 @Singleton
 public class BundleDocumentBuilder {
 
-    static final String L7 = "xmlns:l7";
-    static final String GATEWAY_MANAGEMENT = "http://ns.l7tech.com/2010/04/gateway-management";
+    public static final String L7 = "xmlns:l7";
+    public static final String GATEWAY_MANAGEMENT = "http://ns.l7tech.com/2010/04/gateway-management";
+
+    private final DocumentTools documentTools;
+
+    public BundleDocumentBuilder() {
+        this(DocumentTools.INSTANCE);
+    }
+
+    @Inject
+    public BundleDocumentBuilder(final DocumentTools documentTools) {
+        this.documentTools = documentTools;
+    }
 
     public Element build(Document document, List<Entity> entities) {
         final Element references = document.createElement(REFERENCES);
@@ -34,8 +48,31 @@ public class BundleDocumentBuilder {
         return bundle;
     }
 
+    /**
+     * Streams the bundle of the entities to the output, with the same content {@link #build(Document, List)} would
+     * produce, without building the bundle element.
+     *
+     * @param entities  entities in the bundle
+     * @param outStream the stream to write to, left open
+     */
+    public void write(List<Entity> entities, OutputStream outStream) {
+        try (BundleWriter writer = createWriter(outStream)) {
+            writer.writeAll(entities);
+        }
+    }
+
+    /**
+     * Creates a writer to stream a bundle entity by entity. The bundle is complete when the writer is closed.
+     *
+     * @param outStream the stream to write to, left open
+     * @return a writer for a new bundle
+     */
+    public BundleWriter createWriter(OutputStream outStream) {
+        return new BundleWriter(documentTools.createXmlEventWriter(outStream), documentTools.getDocumentBuilder().newDocument());
+    }
+
     private void addEntity(final Element references, final Element mappings, final Entity entity, final Document document) {
-        if (entity.getXml() != null) {
+        if (entity.hasXml()) {
             final Element entityItem = buildEntityItem(entity, document);
             references.appendChild(entityItem);
         }
@@ -43,7 +80,7 @@ public class BundleDocumentBuilder {
         mappings.appendChild(entityMapping);
     }
 
-    private Element buildEntityMapping(final Entity entity, final Document document) {
+    static Element buildEntityMapping(final Entity entity, final Document document) {
         final Element mapping = createElementWithAttributes(document, MAPPING, ImmutableMap.of(
                 ATTRIBUTE_ACTION,
                 entity.getMappingAction() == null ? EntityBuilderHelper.getDefaultEntityMappingAction() : entity.getMappingAction(),
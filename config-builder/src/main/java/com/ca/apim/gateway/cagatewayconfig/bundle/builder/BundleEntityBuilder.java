@@ -9,6 +9,7 @@ package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
 import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.BundleType;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions;
 import com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils;
@@ -20,6 +21,9 @@ import org.w3c.dom.Element;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -58,22 +62,96 @@ public class BundleEntityBuilder {
         return build(bundle, bundleType, document, projectInfo, false);
     }
 
+    /**
+     * Builds the bundles and returns their artifacts. No bundle is reused from a build cache, so every bundle is built
+     * and has its artifacts in the map.
+     *
+     * @param bundle           Bundle containing all the Gateway entities
+     * @param bundleType       type of the bundles to build
+     * @param document         document used to build the bundles
+     * @param projectInfo      Gradle Project info
+     * @param generateMetadata generate metadata for the environment bundle
+     * @return the artifacts of each bundle by bundle name, in a deterministic order
+     */
     public Map<String, BundleArtifacts> build(Bundle bundle, BundleType bundleType,
                                               Document document, ProjectInfo projectInfo, boolean generateMetadata) {
+        final Map<String, BundleArtifacts> builtArtifacts = new ConcurrentHashMap<>();
+        final List<String> bundleNames = build(bundle, bundleType, document, projectInfo, generateMetadata, builtArtifacts::put);
+
+        // keep the order the bundles would have been built in sequentially, a bundle that was not built has no
+        // artifacts and is left out rather than mapped to null
+        final Map<String, BundleArtifacts> artifacts = new LinkedHashMap<>();
+        bundleNames.stream()
+                .filter(builtArtifacts::containsKey)
+                .forEach(bundleName -> artifacts.put(bundleName, builtArtifacts.get(bundleName)));
+        return artifacts;
+    }
+
+    /**
+     * Builds the bundles and hands the artifacts of each one to the consumer as soon as they are built, so they can be
+     * written without waiting for the other bundles. Annotated bundles are built in parallel, each in its own document,
+     * when the com.ca.apim.build.parallelism system property is greater than 1. The consumer is then called
+     * concurrently. The entity builders of each bundle run stage by stage, see {@link EntityBuilderStages}, with the
+     * builders of a concurrent stage also running at the same time.
+     *
+     * @param bundle            Bundle containing all the Gateway entities
+     * @param bundleType        type of the bundles to build
+     * @param document          document used to build the bundles when they are built sequentially
+     * @param projectInfo       Gradle Project info
+     * @param generateMetadata  generate metadata for the environment bundle
+     * @param artifactsConsumer receives the name and artifacts of each bundle
+     * @return the names of the bundles built, in a deterministic order
+     */
+    public List<String> build(Bundle bundle, BundleType bundleType, Document document, ProjectInfo projectInfo,
+                              boolean generateMetadata, BiConsumer<String, BundleArtifacts> artifactsConsumer) {
+        return build(bundle, bundleType, document, projectInfo, generateMetadata, artifactsConsumer, (k, b) -> false);
+    }
+
+    /**
+     * Builds the bundles like {@link #build(Bundle, BundleType, Document, ProjectInfo, boolean, BiConsumer)}, skipping
+     * the bundles whose artifacts are already available. Before building a bundle, the cached artifacts predicate is
+     * called with its name and the bundle holding the policies it is made of. When it returns true the bundle is not
+     * built and the consumer is not called for it.
+     *
+     * @param bundle            Bundle containing all the Gateway entities
+     * @param bundleType        type of the bundles to build
+     * @param document          document used to build the bundles when they are built sequentially
+     * @param projectInfo       Gradle Project info
+     * @param generateMetadata  generate metadata for the environment bundle
+     * @param artifactsConsumer receives the name and artifacts of each bundle built
+     * @param cachedArtifacts   tells if the artifacts of a bundle are available without building it
+     * @return the names of all the bundles, built or not, in a deterministic order
+     */
+    public List<String> build(Bundle bundle, BundleType bundleType, Document document, ProjectInfo projectInfo,
+                              boolean generateMetadata, BiConsumer<String, BundleArtifacts> artifactsConsumer,
+                              BiPredicate<String, Bundle> cachedArtifacts) {
         if (Bundle.isEnvironmentEntityUniqueNamingDisabled()) {
             LOGGER.log(Level.WARNING, "Environment entity unique-naming is disabled");
         }
 
-        Map<String, BundleArtifacts> artifacts = buildAnnotatedEntities(bundleType, bundle, document, projectInfo);
-        if (artifacts.isEmpty()) {
-            List<Entity> entities = new ArrayList<>();
-            entityBuilders.forEach(builder -> entities.addAll(builder.build(bundle, bundleType, document)));
-            final Element fullBundle = bundleDocumentBuilder.build(document, entities);
-            BundleMetadata bundleMetadata = null;
-            Element deleteBundleElement = null;
+        try (EntityBuilderStages builderStages = new EntityBuilderStages(entityBuilders,
+                ParallelExecutor.getParallelism())) {
+            return build(bundle, bundleType, document, projectInfo, generateMetadata, artifactsConsumer,
+                    cachedArtifacts, builderStages);
+        }
+    }
 
+    private List<String> build(Bundle bundle, BundleType bundleType, Document document, ProjectInfo projectInfo,
+                               boolean generateMetadata, BiConsumer<String, BundleArtifacts> artifactsConsumer,
+                               BiPredicate<String, Bundle> cachedArtifacts, EntityBuilderStages builderStages) {
+        List<String> bundleNames = buildAnnotatedEntities(bundleType, bundle, document, projectInfo, artifactsConsumer,
+                cachedArtifacts, builderStages);
+        if (bundleNames.isEmpty()) {
             final String bundleNamePrefix = StringUtils.isBlank(projectInfo.getVersion()) ? projectInfo.getName() :
                     projectInfo.getName() + "-" + projectInfo.getVersion();
+            if (cachedArtifacts.test(bundleNamePrefix, bundle)) {
+                return Collections.singletonList(bundleNamePrefix);
+            }
+
+            List<Entity> entities = builderStages.build(bundle, bundleType, document);
+            BundleMetadata bundleMetadata = null;
+            List<Entity> deleteBundleEntities = null;
+
             String bundleFileName = "";
             String deleteBundleFileName = "";
             if (bundleType == DEPLOYMENT) {
@@ -81,7 +159,7 @@ public class BundleEntityBuilder {
                 bundleMetadata = bundleMetadataBuilder.build(null, bundle, entities, projectInfo);
 
                 // Create DELETE bundle - ALWAYS skip environment entities
-                deleteBundleElement = createDeleteBundle(document, entities, bundle, null, projectInfo);
+                deleteBundleEntities = createDeleteBundle(entities, bundle, null, projectInfo, null);
 
                 // Generate bundle filenames
 
@@ -94,88 +172,143 @@ public class BundleEntityBuilder {
                 }
 
                 // Create DELETE Environment bundle
-                deleteBundleElement = createDeleteEnvBundle(document, entities);
+                deleteBundleEntities = createDeleteEnvBundle(entities);
             }
-            BundleArtifacts bundleArtifacts = new BundleArtifacts(fullBundle, deleteBundleElement, bundleMetadata,
-                    bundleFileName, deleteBundleFileName);
+            BundleArtifacts bundleArtifacts = new BundleArtifacts(
+                    new BundleArtifacts.Artifact(entities, bundleDocumentBuilder, document, bundleFileName),
+                    new BundleArtifacts.Artifact(deleteBundleEntities, bundleDocumentBuilder, document, deleteBundleFileName),
+                    bundleMetadata);
             addPrivateKeyContexts(bundle, projectInfo, bundleArtifacts, document);
-            artifacts.put(bundleNamePrefix, bundleArtifacts);
+            artifactsConsumer.accept(bundleNamePrefix, bundleArtifacts);
+            bundleNames = Collections.singletonList(bundleNamePrefix);
         }
-        return artifacts;
+        return bundleNames;
     }
 
-    private Map<String, BundleArtifacts> buildAnnotatedEntities(BundleType bundleType, Bundle bundle,
-                                                                Document document, ProjectInfo projectInfo) {
-        final Map<String, BundleArtifacts> annotatedElements = new LinkedHashMap<>();
+    private List<String> buildAnnotatedEntities(BundleType bundleType, Bundle bundle, Document document,
+                                                ProjectInfo projectInfo, BiConsumer<String, BundleArtifacts> artifactsConsumer,
+                                                BiPredicate<String, Bundle> cachedArtifacts,
+                                                EntityBuilderStages builderStages) {
         if (EntityBuilderHelper.ignoreAnnotations()) {
-            return annotatedElements;
+            return Collections.emptyList();
         }
         Map<String, EntityUtils.GatewayEntityInfo> entityTypeMap = entityTypeRegistry.getEntityTypeMap();
         // Filter the bundle to export only annotated entities
+        final List<GatewayEntity> annotatedGatewayEntities = new ArrayList<>();
         entityTypeMap.values().stream().filter(EntityUtils.GatewayEntityInfo::isBundleGenerationSupported).forEach(entityInfo ->
                 bundle.getEntities(entityInfo.getEntityClass()).values().stream()
                         .filter(entity -> entity instanceof AnnotableEntity && ((AnnotableEntity) entity).isBundle())
-                        .forEach(gatewayEntity -> {
-                            AnnotatedEntity<GatewayEntity> annotatedEntity;
-                            if (gatewayEntity instanceof Encass) { // encass bundle - make copy and get AnnotatedEntity
-                                annotatedEntity = new Encass((Encass) gatewayEntity).getAnnotatedEntity();
-                            } else { // Service bundle - no need for copy
-                                annotatedEntity = ((AnnotableEntity) gatewayEntity).getAnnotatedEntity();
-                            }
-                            List<Entity> entities = new ArrayList<>();
-                            AnnotatedBundle annotatedBundle = new AnnotatedBundle(bundle, annotatedEntity, projectInfo);
-                            Map bundleEntities = annotatedBundle.getEntities(annotatedEntity.getEntity().getClass());
-                            bundleEntities.put(annotatedEntity.getEntityName(), annotatedEntity.getEntity());
-                            loadPolicyDependenciesByPolicyName(annotatedEntity.getPolicyName(), annotatedBundle,
-                                    bundle, false, false);
-                            entityBuilders.forEach(builder -> entities.addAll(builder.build(annotatedBundle, bundleType, document)));
-
-                            // Create deployment bundle
-                            final Element bundleElement = bundleDocumentBuilder.build(document, entities);
-
-                            String bundleFilename = "";
-                            String deleteBundleFilename = "";
-
-                            Element deleteBundleElement = null;
-                            if (EntityBuilder.BundleType.DEPLOYMENT.equals(bundleType)) {
-                                // Create DELETE bundle - ALWAYS skip environment entities for DEPLOYMENT bundle
-                                deleteBundleElement = createDeleteBundle(document, entities, bundle,
-                                        annotatedEntity, projectInfo);
-
-                                // Generate bundle filenames
-                                bundleFilename = generateBundleFileName(false, annotatedBundle.getBundleName());
-                                deleteBundleFilename = generateBundleFileName(true, annotatedBundle.getBundleName());
-                            }
-
-                            // Create bundle metadata
-                            BundleMetadata bundleMetadata = null;
-                            if (bundleType == DEPLOYMENT) {
-                                bundleMetadata = bundleMetadataBuilder.build(annotatedBundle, bundle, entities,
-                                        projectInfo);
-                            }
-
-                            BundleArtifacts artifacts = new BundleArtifacts(bundleElement, deleteBundleElement,
-                                    bundleMetadata, bundleFilename, deleteBundleFilename);
-                            addPrivateKeyContexts(annotatedBundle, projectInfo, artifacts, document);
-                            annotatedElements.put(annotatedBundle.getBundleName(), artifacts);
-
-                        })
+                        .forEach(annotatedGatewayEntities::add)
         );
 
-        return annotatedElements;
+        if (annotatedGatewayEntities.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final DependencyClosure dependencyClosure = new DependencyClosure(bundle);
+        final int parallelism = Math.min(ParallelExecutor.getParallelism(), annotatedGatewayEntities.size());
+        if (parallelism > 1 && StringUtils.isNotBlank(bundle.getTargetFolderPath())) {
+            // the root folder of the bundle is turned into the target folder of each annotated bundle in turn
+            LOGGER.log(Level.INFO, "Building annotated bundles sequentially since a target folder path is set");
+        } else if (parallelism > 1) {
+            return buildAnnotatedEntitiesInParallel(annotatedGatewayEntities, parallelism, bundleType, bundle, document,
+                    projectInfo, dependencyClosure, artifactsConsumer, cachedArtifacts, builderStages);
+        }
+
+        final List<String> bundleNames = new ArrayList<>();
+        annotatedGatewayEntities.forEach(gatewayEntity -> {
+            final String bundleName = buildAnnotatedEntity(gatewayEntity, bundleType, bundle, document, projectInfo,
+                    dependencyClosure, artifactsConsumer, cachedArtifacts, builderStages);
+            bundleNames.add(bundleName);
+        });
+        return bundleNames;
+    }
+
+    /**
+     * Builds each annotated bundle in its own document, using the given number of threads.
+     */
+    private List<String> buildAnnotatedEntitiesInParallel(List<GatewayEntity> annotatedGatewayEntities, int parallelism,
+                                                          BundleType bundleType, Bundle bundle, Document document,
+                                                          ProjectInfo projectInfo, DependencyClosure dependencyClosure,
+                                                          BiConsumer<String, BundleArtifacts> artifactsConsumer,
+                                                          BiPredicate<String, Bundle> cachedArtifacts,
+                                                          EntityBuilderStages builderStages) {
+        LOGGER.log(Level.FINE, "Building {0} annotated bundles with {1} threads",
+                new Object[]{annotatedGatewayEntities.size(), parallelism});
+        try (ParallelExecutor executor = new ParallelExecutor(parallelism)) {
+            return executor.map(annotatedGatewayEntities, gatewayEntity ->
+                    buildAnnotatedEntity(gatewayEntity, bundleType, bundle, newDocument(document), projectInfo,
+                            dependencyClosure, artifactsConsumer, cachedArtifacts, builderStages));
+        }
+    }
+
+    private static Document newDocument(Document document) {
+        return document.getImplementation().createDocument(null, null, null);
+    }
+
+    private String buildAnnotatedEntity(GatewayEntity gatewayEntity, BundleType bundleType, Bundle bundle,
+                                        Document document, ProjectInfo projectInfo, DependencyClosure dependencyClosure,
+                                        BiConsumer<String, BundleArtifacts> artifactsConsumer,
+                                        BiPredicate<String, Bundle> cachedArtifacts,
+                                        EntityBuilderStages builderStages) {
+        AnnotatedEntity<GatewayEntity> annotatedEntity;
+        if (gatewayEntity instanceof Encass) { // encass bundle - make copy and get AnnotatedEntity
+            annotatedEntity = new Encass((Encass) gatewayEntity).getAnnotatedEntity();
+        } else { // Service bundle - no need for copy
+            annotatedEntity = ((AnnotableEntity) gatewayEntity).getAnnotatedEntity();
+        }
+        AnnotatedBundle annotatedBundle = new AnnotatedBundle(bundle, annotatedEntity, projectInfo);
+        Map bundleEntities = annotatedBundle.getEntities(annotatedEntity.getEntity().getClass());
+        bundleEntities.put(annotatedEntity.getEntityName(), annotatedEntity.getEntity());
+        loadDependencies(annotatedBundle, getDependencies(dependencyClosure, annotatedEntity, false), true);
+        if (cachedArtifacts.test(annotatedBundle.getBundleName(), annotatedBundle)) {
+            return annotatedBundle.getBundleName();
+        }
+        List<Entity> entities = builderStages.build(annotatedBundle, bundleType, document);
+
+        String bundleFilename = "";
+        String deleteBundleFilename = "";
+
+        List<Entity> deleteBundleEntities = null;
+        if (EntityBuilder.BundleType.DEPLOYMENT.equals(bundleType)) {
+            // Create DELETE bundle - ALWAYS skip environment entities for DEPLOYMENT bundle
+            deleteBundleEntities = createDeleteBundle(entities, bundle,
+                    annotatedEntity, projectInfo, dependencyClosure);
+
+            // Generate bundle filenames
+            bundleFilename = generateBundleFileName(false, annotatedBundle.getBundleName());
+            deleteBundleFilename = generateBundleFileName(true, annotatedBundle.getBundleName());
+        }
+
+        // Create bundle metadata
+        BundleMetadata bundleMetadata = null;
+        if (bundleType == DEPLOYMENT) {
+            bundleMetadata = bundleMetadataBuilder.build(annotatedBundle, bundle, entities,
+                    projectInfo);
+        }
+
+        // Deployment and DELETE bundles are written from their entities when needed
+        BundleArtifacts artifacts = new BundleArtifacts(
+                new BundleArtifacts.Artifact(entities, bundleDocumentBuilder, document, bundleFilename),
+                new BundleArtifacts.Artifact(deleteBundleEntities, bundleDocumentBuilder, document, deleteBundleFilename),
+                bundleMetadata);
+        addPrivateKeyContexts(annotatedBundle, projectInfo, artifacts, document);
+        artifactsConsumer.accept(annotatedBundle.getBundleName(), artifacts);
+        return annotatedBundle.getBundleName();
     }
 
     /**
-     * Creates the DELETE bundle element.
+     * Creates the entities of the DELETE bundle.
      *
-     * @param document        Document
      * @param entities        Entities packaged in the deployment bundle
      * @param bundle          Bundle containing all the Gateway entities
      * @param annotatedEntity Annotated Bundle for which bundle is being created.
-     * @return Delete bundle Element for the Annotated Bundle
+     * @param dependencyClosure Dependencies of the annotated entities, null if the bundle is not annotated
+     * @return Delete bundle entities for the Annotated Bundle
      */
-    private Element createDeleteBundle(final Document document, List<Entity> entities, final Bundle bundle,
-                                       final AnnotatedEntity<GatewayEntity> annotatedEntity, ProjectInfo projectInfo) {
+    private List<Entity> createDeleteBundle(List<Entity> entities, final Bundle bundle,
+                                       final AnnotatedEntity<GatewayEntity> annotatedEntity, ProjectInfo projectInfo,
+                                       final DependencyClosure dependencyClosure) {
         List<Entity> deleteBundleEntities = copyFilteredEntitiesForDeleteBundle(entities, FILTER_NON_ENV_ENTITIES);
 
         // If @redeployable annotation is added, we can blindly include all the dependencies in the DELETE bundle.
@@ -185,7 +318,8 @@ public class BundleEntityBuilder {
             AnnotatedBundle annotatedBundle = new AnnotatedBundle(bundle, annotatedEntity, projectInfo);
             Map bundleEntities = annotatedBundle.getEntities(annotatedEntity.getEntity().getClass());
             bundleEntities.put(annotatedEntity.getEntityName(), annotatedEntity.getEntity());
-            loadPolicyDependenciesByPolicyName(annotatedEntity.getPolicyName(), annotatedBundle, bundle, true, false);
+            // only the keys of the entities are needed, so they are not copied
+            loadDependencies(annotatedBundle, getDependencies(dependencyClosure, annotatedEntity, true), false);
 
             Iterator<Entity> it = deleteBundleEntities.iterator();
             while (it.hasNext()) {
@@ -199,26 +333,26 @@ public class BundleEntityBuilder {
         }
 
         deleteBundleEntities.forEach(e -> e.setMappingAction(MappingActions.DELETE)); // Set Mapping Action to DELETE
-        return bundleDocumentBuilder.build(document, deleteBundleEntities);
+        return deleteBundleEntities;
     }
 
     /**
-     * Creates the DELETE environment bundle element.
+     * Creates the entities of the DELETE environment bundle.
      *
-     * @param document Document
      * @param entities Entities packaged in the deployment bundle
-     * @return Delete bundle Element for the Annotated Bundle
+     * @return Delete bundle entities for the Annotated Bundle
      */
-    private Element createDeleteEnvBundle(final Document document, List<Entity> entities) {
+    private List<Entity> createDeleteEnvBundle(List<Entity> entities) {
         List<Entity> filteredEntities = copyFilteredEntitiesForDeleteBundle(entities,
                 FILTER_ENV_ENTITIES.and(FILTER_OUT_DEFAULT_LISTEN_PORTS).and(FILTER_OUT_PRIVATE_KEYS));
         filteredEntities.forEach(e -> e.setMappingAction(MappingActions.DELETE));
-        return bundleDocumentBuilder.build(document, filteredEntities);
+        return filteredEntities;
     }
 
     /**
      * Copies all the filtered entities in the reverse order to a new {@link List}. The entries in the DELETE bundle
-     * must be in the reverse order of deployment bundle.
+     * must be in the reverse order of deployment bundle. The entities are copied so that changing their mapping does
+     * not change the deployment bundle.
      * All the Folders are skipped from the DELETE bundle list and added only matching entities.
      *
      * @param entities      Entities in the deployment bundle
@@ -231,91 +365,62 @@ public class BundleEntityBuilder {
             final Entity entity = entities.get(i);
             // Add matching entities and skip Folders from the DELETE bundle
             if (entityFilter.test(entity) && !FOLDER_TYPE.equals(entity.getType())) {
-                deleteBundleEntities.add(entity);
+                deleteBundleEntities.add(new Entity(entity));
             }
         }
         return deleteBundleEntities;
     }
 
     /**
-     * Loads all the gateway entities used in the policy including the environment or global dependencies.
+     * Returns the gateway entities used by the policy of the annotated entity including the environment or global
+     * dependencies.
      *
-     * @param policyNameWithPath Name of the policy for which gateway dependencies needs to be found.
-     * @param annotatedBundle    Annotated Bundle for which bundle is being created.
-     * @param rawBundle          Bundle containing all the entities of the gateway.
-     * @param excludeShared      Exclude loading Shared entities as the dependencies of the policy
-     * @param isParentShared  TRUE if any Parent (Policy or Encass) in the hierarchy was is annotated with @shared
+     * @param dependencyClosure Dependencies of the annotated entities
+     * @param annotatedEntity   Annotated entity for which bundle is being created.
+     * @param excludeShared     Exclude loading Shared entities as the dependencies of the policy
+     * @return the dependencies in the order they are loaded
      */
-    private void loadPolicyDependenciesByPolicyName(String policyNameWithPath, AnnotatedBundle annotatedBundle,
-                                                    Bundle rawBundle, boolean excludeShared, boolean isParentShared) {
-        final Policy policy = findPolicyByNameOrPath(policyNameWithPath, rawBundle);
-        loadPolicyDependencies(policy, annotatedBundle, rawBundle, excludeShared, isParentShared);
+    private static List<DependencyClosure.Step> getDependencies(DependencyClosure dependencyClosure,
+                                                                AnnotatedEntity<GatewayEntity> annotatedEntity,
+                                                                boolean excludeShared) {
+        final String rootEncassName = annotatedEntity.getEntity() instanceof Encass ? annotatedEntity.getEntityName() : null;
+        return dependencyClosure.getDependencies(annotatedEntity.getPolicyName(), rootEncassName, excludeShared);
     }
 
     /**
-     * Loads the Policy and its dependencies
+     * Loads the dependencies of the annotated entity into the annotated bundle. Policies and Encasses are copied, so
+     * they can be changed for the annotated bundle.
      *
-     * @param policy          Policy for which gateway dependencies needs to be loaded.
      * @param annotatedBundle Annotated Bundle for which bundle is being created.
-     * @param rawBundle       Bundle containing all the entities of the gateway.
-     * @param excludeShared   Exclude loading Shared entities as the dependencies of the policy
-     * @param isParentShared  TRUE if any Parent (Policy or Encass) in the hierarchy was is annotated with @shared
+     * @param dependencies    Dependencies of the annotated entity
+     * @param copyEntities    copy Policies and Encasses, FALSE if the annotated bundle is only used to look them up
      */
-    private void loadPolicyDependencies(Policy policy, AnnotatedBundle annotatedBundle, Bundle rawBundle,
-                                        boolean excludeShared, boolean isParentShared) {
-        if (policy == null || excludeGatewayEntity(Policy.class, policy, annotatedBundle, excludeShared)) {
-            return;
-        }
-
-        Policy policyCopy = new Policy(policy);
-        loadFolderDependencies(annotatedBundle, policyCopy);
-
-        isParentShared = isParentShared || policyCopy.isShared();
-        policyCopy.setParentEntityShared(isParentShared);
-
-        Map<String, Policy> annotatedPolicyMap = annotatedBundle.getEntities(Policy.class);
-        annotatedPolicyMap.put(policyCopy.getPath(), policyCopy);
-
-        Set<Dependency> dependencies = policyCopy.getUsedEntities();
-        if (dependencies != null) {
-            for (Dependency dependency : dependencies) {
-                switch (dependency.getType()) {
-                    case EntityTypes.POLICY_TYPE:
-                        Policy dependentPolicy = findPolicyByNameOrPath(dependency.getName(), rawBundle);
-                        loadPolicyDependencies(dependentPolicy, annotatedBundle, rawBundle, excludeShared, isParentShared);
-                        break;
-                    case EntityTypes.ENCAPSULATED_ASSERTION_TYPE:
-                        Encass encass = rawBundle.getEncasses().get(dependency.getName());
-                        loadEncassDependencies(encass, annotatedBundle, rawBundle, excludeShared, isParentShared);
-                        break;
-                    default:
-                        loadGatewayEntity(dependency, annotatedBundle, rawBundle);
+    private void loadDependencies(AnnotatedBundle annotatedBundle, List<DependencyClosure.Step> dependencies,
+                                  boolean copyEntities) {
+        final Bundle rawBundle = annotatedBundle.getFullBundle();
+        for (DependencyClosure.Step dependency : dependencies) {
+            final GatewayEntity entity = dependency.getEntity();
+            if (entity instanceof Policy) {
+                Policy policy = (Policy) entity;
+                if (copyEntities) {
+                    policy = new Policy(policy);
+                    loadFolderDependencies(annotatedBundle, policy);
+                    policy.setParentEntityShared(dependency.isParentShared());
                 }
+                annotatedBundle.getPolicies().put(policy.getPath(), policy);
+            } else if (entity instanceof Encass) {
+                Encass encass = (Encass) entity;
+                if (copyEntities) {
+                    encass = new Encass(encass);
+                    encass.setParentEntityShared(dependency.isParentShared());
+                }
+                annotatedBundle.getEncasses().put(encass.getName(), encass);
+            } else {
+                loadGatewayEntity(dependency.getDependency(), annotatedBundle, rawBundle);
             }
         }
     }
 
-    /**
-     * Loads the Encass and its dependencies
-     *
-     * @param encass          Encass policy for which gateway dependencies needs to be loaded.
-     * @param annotatedBundle Annotated Bundle for which bundle is being created.
-     * @param rawBundle       Bundle containing all the entities of the gateway.
-     * @param excludeShared   Exclude loading Shared entities as the dependencies of the policy
-     * @param isParentShared  TRUE if any Parent (Policy or Encass) in the hierarchy was is annotated with @shared
-     */
-    private void loadEncassDependencies(Encass encass, AnnotatedBundle annotatedBundle, Bundle rawBundle,
-                                        boolean excludeShared, boolean isParentShared) {
-        if (encass != null && !excludeGatewayEntity(Encass.class, encass, annotatedBundle, excludeShared)) {
-            Encass encassCopy = new Encass(encass);
-            isParentShared = isParentShared || encass.isShared();
-            encassCopy.setParentEntityShared(isParentShared);
-
-            annotatedBundle.getEncasses().put(encass.getName(), encassCopy);
-            loadPolicyDependenciesByPolicyName(encassCopy.getPolicy(), annotatedBundle, rawBundle, excludeShared, isParentShared);
-        }
-    }
-
     /**
      * Loads the Folders.
      *
@@ -343,19 +448,11 @@ public class BundleEntityBuilder {
     private void loadGatewayEntity(Dependency dependency, AnnotatedBundle annotatedBundle, Bundle rawBundle) {
         Class<? extends GatewayEntity> entityClass = entityTypeRegistry.getEntityClass(dependency.getType());
         if(entityClass != null){
-            Map<String, ? extends GatewayEntity> allEntitiesOfType = rawBundle.getEntities(entityClass);
-            Optional<? extends Map.Entry<String, ? extends GatewayEntity>> optionalGatewayEntity =
-                    allEntitiesOfType.entrySet().stream()
-                            .filter(e -> {
-                                GatewayEntity gatewayEntity = e.getValue();
-                                if (gatewayEntity.getName() != null) {
-                                    return dependency.getName().equals(gatewayEntity.getName());
-                                } else {
-                                    return dependency.getName().equals(PathUtils.extractName(e.getKey()));
-                                }
-                            }).findFirst();
+            Map.Entry<String, ? extends GatewayEntity> gatewayEntity = rawBundle.getEntryByName(entityClass, dependency.getName());
             Map entityMap = annotatedBundle.getEntities(entityClass);
-            optionalGatewayEntity.ifPresent(e -> entityMap.put(e.getKey(), e.getValue()));
+            if (gatewayEntity != null) {
+                entityMap.put(gatewayEntity.getKey(), gatewayEntity.getValue());
+            }
         } else {
             //if entity type is not present, add corresponding unsupported entity
             Map<String, UnsupportedGatewayEntity> unsupportedEntities = rawBundle.getUnsupportedEntities();
@@ -370,57 +467,6 @@ public class BundleEntityBuilder {
         }
     }
 
-    /**
-     * Return TRUE is the Gateway entity needs to be excluded from being loaded.
-     *
-     * @param entityType      Type of entity class
-     * @param gatewayEntity   Gateway entity to be checked
-     * @param annotatedBundle Annotated Bundle for which bundle is being created.
-     * @param excludeShared   Exclude loading Shared entities as the dependency
-     * @return TRUE if the Gateway entity needs to be excluded
-     */
-    private boolean excludeGatewayEntity(Class<? extends GatewayEntity> entityType, GatewayEntity gatewayEntity,
-                                         AnnotatedBundle annotatedBundle, boolean excludeShared) {
-        return annotatedBundle.getEntities(entityType).containsKey(gatewayEntity.getName())
-                || excludeSharedOrPolicyEntity(gatewayEntity, annotatedBundle, excludeShared);
-    }
-
-    /**
-     * Returns TRUE if the Gateway entity is annotated as @shared and the shared entity needs to excluded or the
-     * gateway entity is a policy entity and the annotated bundle already contains that policy.
-     *
-     * @param gatewayEntity   Gateway entity to be checked
-     * @param annotatedBundle Annotated Bundle for which bundle is being created.
-     * @param excludeShared   Exclude loading Shared entities as the dependency
-     * @return TRUE if the Gateway entity is @shared and needs to be excluded or entity is Policy and annotated
-     * bundle already contains the policy
-     */
-    private boolean excludeSharedOrPolicyEntity(GatewayEntity gatewayEntity, AnnotatedBundle annotatedBundle,
-                                                  boolean excludeShared) {
-        if (gatewayEntity instanceof AnnotableEntity && ((AnnotableEntity) gatewayEntity).isShared() && excludeShared) {
-            return true;
-        }
-        // Special case for policy because policies are stored by Path in the entities map and
-        // GatewayEntity.getName() only gives Policy name.
-        return gatewayEntity instanceof Policy && findPolicyByNameOrPath(gatewayEntity.getName(), annotatedBundle) != null;
-    }
-
-    /**
-     * Finds policy in the Raw bundle by just Policy name or Policy path.
-     *
-     * @param policyNameOrPath Policy name or path
-     * @param rawBundle        Bundle containing all the entities of the gateway.
-     * @return Found Policy is exists, returns NULL if not found
-     */
-    private Policy findPolicyByNameOrPath(String policyNameOrPath, Bundle rawBundle) {
-        for (String policyKey : rawBundle.getPolicies().keySet()) {
-            if (StringUtils.equalsAny(policyNameOrPath, PathUtils.extractName(policyKey), policyKey)) {
-                return rawBundle.getPolicies().get(policyKey);
-            }
-        }
-        return null;
-    }
-
     /**
      * Generates the filename for the install bundle and delete bundle files/
      *
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.util.xml.XmlEventWriter;
+import com.google.common.collect.ImmutableMap;
+import org.w3c.dom.Document;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.GATEWAY_MANAGEMENT;
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.L7;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
+
+/**
+ * Streams a bundle to its output as entities are written to it, producing the same bytes as printing the element
+ * built by {@link BundleDocumentBuilder#build(Document, List)} for the same entities.
+ * The item of each entity is written right away. Mappings have to come after all the references, so only the entities
+ * are kept until the writer is closed, their mappings are written one at a time at that point.
+ * Instances are not thread safe.
+ */
+public class BundleWriter implements Closeable {
+
+    private final XmlEventWriter writer;
+    private final Document document;
+    private final List<Entity> mappedEntities = new ArrayList<>();
+
+    /**
+     * @param writer   writer for the bundle output
+     * @param document document used to build the mapping of one entity at a time
+     */
+    BundleWriter(final XmlEventWriter writer, final Document document) {
+        this.writer = writer;
+        this.document = document;
+        writer.writeStartElement(BUNDLE, ImmutableMap.of(L7, GATEWAY_MANAGEMENT));
+        writer.writeStartElement(REFERENCES);
+    }
+
+    /**
+     * Writes the item of the entity, if it has one, and registers its mapping.
+     *
+     * @param entity the entity to write
+     */
+    public void write(final Entity entity) {
+        if (entity.hasXml()) {
+            writer.writeStartElement(ITEM);
+            writer.writeTextElement(NAME, entity.getName());
+            writer.writeTextElement(ID, entity.getId());
+            writer.writeTextElement(TYPE, entity.getType());
+            writer.writeStartElement(RESOURCE);
+            writer.writeNode(entity.getXmlNoCopy());
+            writer.writeEndElement(RESOURCE);
+            writer.writeEndElement(ITEM);
+        }
+        mappedEntities.add(entity);
+    }
+
+    public void writeAll(final List<Entity> entities) {
+        entities.forEach(this::write);
+    }
+
+    /**
+     * Writes the mappings of all entities and completes the bundle. The underlying stream is left open.
+     */
+    @Override
+    public void close() {
+        writer.writeEndElement(REFERENCES);
+        writer.writeStartElement(MAPPINGS);
+        mappedEntities.forEach(entity -> writer.writeNode(BundleDocumentBuilder.buildEntityMapping(entity, document)));
+        mappedEntities.clear();
+        writer.writeEndElement(MAPPINGS);
+        writer.writeEndElement(BUNDLE);
+        writer.close();
+    }
+}
@@ -114,4 +114,9 @@ public class CassandraConnectionEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.REFERRING;
+    }
 }
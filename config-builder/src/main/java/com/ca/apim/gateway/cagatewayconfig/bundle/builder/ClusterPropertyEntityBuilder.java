@@ -78,6 +78,11 @@ public class ClusterPropertyEntityBuilder implements EntityBuilder {
         return ORDER;
     }
 
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
+
     private Entity buildClusterPropertyEntity(String name, PropertiesEntity value, Document document) {
         String id = idGenerator.generate();
         return EntityBuilderHelper.getEntityWithNameMapping(CLUSTER_PROPERTY_TYPE, name, id, buildClusterPropertyElement(name, id, value.getValue(), document));
@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.*;
+import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
+import com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the policies, encapsulated assertions and other entities an annotated entity depends on, walking the policy
+ * and encass dependency graph of the full bundle.
+ * <p>
+ * The dependencies are listed in the order they are loaded by a depth first walk, an entity being loaded only the first
+ * time it is reached. The closure of a policy or encass used from more than one place, like a common encass used by
+ * many services, is computed once per variant and memoised: walking it again only keeps the entities that were not
+ * loaded yet, which gives the same result as walking its sub-graph. Memoised closures are not used when they reach
+ * back to an entity still being loaded, or when policy names are ambiguous in the bundle.
+ * <p>
+ * An instance covers one bundle and is thread safe, so it can be shared by annotated bundles built in parallel.
+ */
+final class DependencyClosure {
+
+    private final Bundle bundle;
+    private final Set<GatewayEntity> sharedEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<ClosureKey, List<Step>> closures = new ConcurrentHashMap<>();
+    private final ThreadLocal<Set<ClosureKey>> computing = ThreadLocal.withInitial(HashSet::new);
+
+    DependencyClosure(final Bundle bundle) {
+        this.bundle = bundle;
+        if (!hasAmbiguousPolicyNames(bundle)) {
+            findSharedEntities();
+        }
+    }
+
+    /**
+     * Returns the dependencies of an annotated entity.
+     *
+     * @param policyNameOrPath name or path of the policy of the annotated entity
+     * @param rootEncassName   name of the annotated encass, null if the annotated entity is not an encass
+     * @param excludeShared    exclude the entities annotated with @shared, and their dependencies
+     * @return the dependencies in the order they are loaded
+     */
+    List<Step> getDependencies(final String policyNameOrPath, final String rootEncassName, final boolean excludeShared) {
+        final Traversal traversal = new Traversal(excludeShared);
+        if (rootEncassName != null) {
+            // the annotated encass is already part of the bundle, so it is never loaded again
+            traversal.encassNames.add(rootEncassName);
+            traversal.encassesInProgress.add(rootEncassName);
+        }
+        traversal.visitPolicy(findPolicyByNameOrPath(policyNameOrPath), false);
+        return traversal.steps;
+    }
+
+    @VisibleForTesting
+    int getClosureCount() {
+        return closures.size();
+    }
+
+    /**
+     * Finds policy in the bundle by just Policy name or Policy path.
+     *
+     * @param policyNameOrPath Policy name or path
+     * @return Found Policy is exists, returns NULL if not found
+     */
+    private Policy findPolicyByNameOrPath(final String policyNameOrPath) {
+        final Policy policy = bundle.getPolicies().get(policyNameOrPath);
+        return policy != null ? policy : bundle.getEntityByName(Policy.class, policyNameOrPath);
+    }
+
+    /**
+     * Policies are recognized as loaded by name, which only identifies a policy if no other policy has the same name or
+     * a path equal to it.
+     */
+    private static boolean hasAmbiguousPolicyNames(final Bundle bundle) {
+        final Set<String> names = new HashSet<>();
+        for (Policy policy : bundle.getPolicies().values()) {
+            if (policy.getName() == null || !names.add(policy.getName())) {
+                return true;
+            }
+        }
+        return bundle.getPolicies().values().stream()
+                .anyMatch(policy -> names.contains(policy.getPath()) && !policy.getPath().equals(policy.getName()));
+    }
+
+    /**
+     * Only the closures of entities used from more than one place are memoised, the other ones are walked once anyway.
+     */
+    private void findSharedEntities() {
+        final Map<GatewayEntity, Integer> usages = new IdentityHashMap<>();
+        bundle.getPolicies().values().forEach(policy -> {
+            final Set<Dependency> dependencies = policy.getUsedEntities();
+            if (dependencies != null) {
+                dependencies.forEach(dependency -> countUsage(usages, resolve(dependency)));
+            }
+        });
+        bundle.getEncasses().values().forEach(encass -> countUsage(usages, findPolicyByNameOrPath(encass.getPolicy())));
+        usages.forEach((entity, count) -> {
+            if (count > 1) {
+                sharedEntities.add(entity);
+            }
+        });
+    }
+
+    private static void countUsage(final Map<GatewayEntity, Integer> usages, final GatewayEntity entity) {
+        if (entity != null) {
+            usages.merge(entity, 1, Integer::sum);
+        }
+    }
+
+    private GatewayEntity resolve(final Dependency dependency) {
+        switch (dependency.getType()) {
+            case EntityTypes.POLICY_TYPE:
+                return findPolicyByNameOrPath(dependency.getName());
+            case EntityTypes.ENCAPSULATED_ASSERTION_TYPE:
+                return bundle.getEncasses().get(dependency.getName());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the memoised closure of an entity, computing it if needed. Returns null if the closure is not memoised or
+     * is being computed by this thread, which happens when the entity depends on itself.
+     */
+    private List<Step> getClosure(final GatewayEntity entity, final boolean parentShared, final boolean excludeShared) {
+        if (!sharedEntities.contains(entity)) {
+            return null;
+        }
+        final ClosureKey key = new ClosureKey(entity, parentShared, excludeShared);
+        final List<Step> closure = closures.get(key);
+        if (closure != null || !computing.get().add(key)) {
+            return closure;
+        }
+        try {
+            final Traversal traversal = new Traversal(excludeShared);
+            traversal.visit(entity, parentShared);
+            closures.putIfAbsent(key, traversal.steps);
+            return traversal.steps;
+        } finally {
+            computing.get().remove(key);
+        }
+    }
+
+    /**
+     * One dependency loaded: a policy or encass of the full bundle, or another dependency of the last policy loaded
+     * before it.
+     */
+    static final class Step {
+        private final GatewayEntity entity;
+        private final boolean parentShared;
+        private final Dependency dependency;
+        private final Step owner;
+
+        private Step(final GatewayEntity entity, final boolean parentShared) {
+            this(entity, parentShared, null, null);
+        }
+
+        private Step(final Dependency dependency, final Step owner) {
+            this(null, owner.parentShared, dependency, owner);
+        }
+
+        private Step(final GatewayEntity entity, final boolean parentShared, final Dependency dependency, final Step owner) {
+            this.entity = entity;
+            this.parentShared = parentShared;
+            this.dependency = dependency;
+            this.owner = owner;
+        }
+
+        /**
+         * @return the policy or encass of the full bundle, null for other dependencies
+         */
+        GatewayEntity getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return TRUE if the entity or any parent (Policy or Encass) in the hierarchy is annotated with @shared
+         */
+        boolean isParentShared() {
+            return parentShared;
+        }
+
+        /**
+         * @return the dependency on an entity other than a policy or encass, null for policies and encasses
+         */
+        Dependency getDependency() {
+            return dependency;
+        }
+    }
+
+    /**
+     * The depth first walk from one root.
+     */
+    private final class Traversal {
+        private final boolean excludeShared;
+        private final List<Step> steps = new ArrayList<>();
+        private final Set<String> policyKeys = new HashSet<>();
+        private final Set<String> encassNames = new HashSet<>();
+        private final Set<String> policiesInProgress = new HashSet<>();
+        private final Set<String> encassesInProgress = new HashSet<>();
+
+        private Traversal(final boolean excludeShared) {
+            this.excludeShared = excludeShared;
+        }
+
+        private void visit(final GatewayEntity entity, final boolean parentShared) {
+            if (entity instanceof Policy) {
+                visitPolicy((Policy) entity, parentShared);
+            } else if (entity instanceof Encass) {
+                visitEncass((Encass) entity, parentShared);
+            }
+        }
+
+        private void visitPolicy(final Policy policy, final boolean parentShared) {
+            if (policy == null || isLoaded(policy) || excludeShared && policy.isShared()
+                    || appendClosure(policy, parentShared)) {
+                return;
+            }
+
+            final boolean shared = parentShared || policy.isShared();
+            final Step step = new Step(policy, shared);
+            markLoaded(policy);
+            policiesInProgress.add(policy.getName());
+            steps.add(step);
+
+            final Set<Dependency> dependencies = policy.getUsedEntities();
+            if (dependencies != null) {
+                for (Dependency dependency : dependencies) {
+                    switch (dependency.getType()) {
+                        case EntityTypes.POLICY_TYPE:
+                            visitPolicy(findPolicyByNameOrPath(dependency.getName()), shared);
+                            break;
+                        case EntityTypes.ENCAPSULATED_ASSERTION_TYPE:
+                            visitEncass(bundle.getEncasses().get(dependency.getName()), shared);
+                            break;
+                        default:
+                            steps.add(new Step(dependency, step));
+                    }
+                }
+            }
+            policiesInProgress.remove(policy.getName());
+        }
+
+        private void visitEncass(final Encass encass, final boolean parentShared) {
+            if (encass == null || isLoaded(encass) || excludeShared && encass.isShared()
+                    || appendClosure(encass, parentShared)) {
+                return;
+            }
+
+            final boolean shared = parentShared || encass.isShared();
+            markLoaded(encass);
+            encassesInProgress.add(encass.getName());
+            steps.add(new Step(encass, shared));
+            visitPolicy(findPolicyByNameOrPath(encass.getPolicy()), shared);
+            encassesInProgress.remove(encass.getName());
+        }
+
+        /**
+         * Appends the steps of the memoised closure of the entity that are not loaded yet.
+         *
+         * @return FALSE if there is no closure that can be used, the entity then needs to be walked
+         */
+        private boolean appendClosure(final GatewayEntity entity, final boolean parentShared) {
+            final List<Step> closure = getClosure(entity, parentShared, excludeShared);
+            if (closure == null || closure.stream().anyMatch(this::isInProgress)) {
+                return false;
+            }
+
+            final Set<Step> skipped = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Step step : closure) {
+                if (step.entity == null ? skipped.contains(step.owner) : isLoaded(step.entity)) {
+                    skipped.add(step);
+                } else {
+                    if (step.entity != null) {
+                        markLoaded(step.entity);
+                    }
+                    steps.add(step);
+                }
+            }
+            return true;
+        }
+
+        private boolean isLoaded(final GatewayEntity entity) {
+            if (entity instanceof Policy) {
+                // the same check as looking the policy up by name or path in the annotated bundle
+                return entity.getName() != null && policyKeys.contains(entity.getName());
+            }
+            return encassNames.contains(entity.getName());
+        }
+
+        private void markLoaded(final GatewayEntity entity) {
+            if (entity instanceof Policy) {
+                final Policy policy = (Policy) entity;
+                policyKeys.add(policy.getPath());
+                policyKeys.add(policy.getName() != null ? policy.getName() : PathUtils.extractName(policy.getPath()));
+            } else {
+                encassNames.add(entity.getName());
+            }
+        }
+
+        private boolean isInProgress(final Step step) {
+            if (step.entity instanceof Policy) {
+                return policiesInProgress.contains(step.entity.getName());
+            }
+            return step.entity != null && encassesInProgress.contains(step.entity.getName());
+        }
+    }
+
+    private static final class ClosureKey {
+        private final GatewayEntity entity;
+        private final boolean parentShared;
+        private final boolean excludeShared;
+
+        private ClosureKey(final GatewayEntity entity, final boolean parentShared, final boolean excludeShared) {
+            this.entity = entity;
+            this.parentShared = parentShared;
+            this.excludeShared = excludeShared;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ClosureKey that = (ClosureKey) o;
+            return entity == that.entity && parentShared == that.parentShared && excludeShared == that.excludeShared;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(entity), parentShared, excludeShared);
+        }
+    }
+}
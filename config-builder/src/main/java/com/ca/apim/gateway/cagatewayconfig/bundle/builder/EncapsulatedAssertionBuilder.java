@@ -26,12 +26,10 @@ public class EncapsulatedAssertionBuilder implements PolicyAssertionBuilder {
 
     @Override
     public void buildAssertionElement(Element encapsulatedAssertionElement, PolicyBuilderContext policyBuilderContext) throws DocumentParseException {
-        final Bundle bundle = policyBuilderContext.getBundle();
-        final AnnotatedBundle annotatedBundle = policyBuilderContext.getAnnotatedBundle();
         final Policy policy = policyBuilderContext.getPolicy();
         if (encapsulatedAssertionElement.hasAttribute(ENCASS_NAME)) {
             final String encassName = encapsulatedAssertionElement.getAttribute(ENCASS_NAME);
-            Encass encass = getEncass(bundle, encassName, annotatedBundle);
+            Encass encass = getEncass(policyBuilderContext, encassName);
             final String guid = findEncassReferencedGuid(policy, encass, encapsulatedAssertionElement, encassName);
             updateEncapsulatedAssertion(policyBuilderContext, encapsulatedAssertionElement, encass, encassName, guid);
         } else if (!isNoOpIfConfigMissing(encapsulatedAssertionElement)) {
@@ -43,7 +41,9 @@ public class EncapsulatedAssertionBuilder implements PolicyAssertionBuilder {
         }
     }
 
-    private Encass getEncass(Bundle bundle, String name, AnnotatedBundle annotatedBundle) {
+    private Encass getEncass(PolicyBuilderContext policyBuilderContext, String name) {
+        final Bundle bundle = policyBuilderContext.getBundle();
+        final AnnotatedBundle annotatedBundle = policyBuilderContext.getAnnotatedBundle();
         LOGGER.log(Level.FINE, "Looking for referenced encass: {0}", name);
         final AtomicReference<Encass> referenceEncass;
         if (annotatedBundle != null) {
@@ -63,11 +63,7 @@ public class EncapsulatedAssertionBuilder implements PolicyAssertionBuilder {
                     //add dependent bundle if bundle type is not null
                     DependentBundle dependentBundle = b.getDependentBundleFrom();
                     if (dependentBundle != null && dependentBundle.getType() != null) {
-                        if (annotatedBundle != null) {
-                            annotatedBundle.addDependentBundle(dependentBundle);
-                        } else {
-                            bundle.addDependentBundle(dependentBundle);
-                        }
+                        policyBuilderContext.addDependentBundle(dependentBundle);
                     }
                 }
             });
@@ -10,6 +10,7 @@ import com.ca.apim.gateway.cagatewayconfig.beans.GatewayEntity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.ObjectUtils;
+import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import java.util.HashMap;
@@ -38,6 +39,16 @@ public class Entity {
         this.gatewayEntity = gatewayEntity;
     }
 
+    /**
+     * Copies the entity, sharing its xml which is never modified once the entity is built.
+     */
+    Entity(Entity entity) {
+        this(entity.type, entity.originalName, entity.id, entity.xml, entity.gatewayEntity);
+        this.properties.putAll(entity.properties);
+        this.mappingAction = entity.mappingAction;
+        this.mappingProperties.putAll(entity.mappingProperties);
+    }
+
     public String getType() {
         return type;
     }
@@ -53,6 +64,28 @@ public class Entity {
         return xml;
     }
 
+    boolean hasXml() {
+        return xml != null;
+    }
+
+    /**
+     * @return the xml of the entity without copying it, it must not be modified
+     */
+    Element getXmlNoCopy() {
+        return xml;
+    }
+
+    /**
+     * Moves the xml of the entity to the document, when the entity was built in another document.
+     *
+     * @param document the document the bundle is built in
+     */
+    void adoptXml(Document document) {
+        if (xml != null && xml.getOwnerDocument() != document && document.adoptNode(xml) == null) {
+            throw new EntityBuilderException("Could not move the xml of entity " + getName() + " to the bundle document");
+        }
+    }
+
     public Map<String, Object> getProperties() {
         return properties;
     }
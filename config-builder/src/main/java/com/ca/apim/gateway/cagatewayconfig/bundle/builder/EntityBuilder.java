@@ -38,12 +38,42 @@ public interface EntityBuilder extends Comparable<EntityBuilder> {
         DEPLOYMENT
     }
 
+    /**
+     * Stages of the bundle build. The builders of a concurrent stage may run at the same time, each on its own document,
+     * their entities are still added to the bundle in the order of the builders.
+     */
+    enum Stage {
+        /**
+         * the builder runs alone once all the builders before it are done, it may update the entities of the bundle
+         * (ids and guids of folders, policies, encasses or services) read by the next builders
+         */
+        SEQUENTIAL,
+        /**
+         * the builder only reads the bundle and the ids set by sequential builders, it may only set the ids of the
+         * entities it builds
+         */
+        INDEPENDENT,
+        /**
+         * the builder reads the ids of entities built by independent builders, like stored passwords, private keys or
+         * trusted certificates, and runs once they are done
+         */
+        REFERRING
+    }
+
     /**
      * @return the position of the entity produced by this builder in the bundle file, has to be non null and not conflicting
      */
     @NotNull
     Integer getOrder();
 
+    /**
+     * @return the stage the builder runs in, sequential unless the builder is known to be safe to run concurrently
+     */
+    @NotNull
+    default Stage getStage() {
+        return Stage.SEQUENTIAL;
+    }
+
     @Override
     default int compareTo(@NotNull EntityBuilder o) {
         return this.getOrder().compareTo(o.getOrder());
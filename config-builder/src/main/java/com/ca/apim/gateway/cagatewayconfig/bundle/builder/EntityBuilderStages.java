@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.BundleType;
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.Stage;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
+import com.google.common.annotations.VisibleForTesting;
+import org.w3c.dom.Document;
+
+import java.util.*;
+
+/**
+ * Runs the entity builders of the bundles of a build, stage by stage. A sequential builder runs alone, once the builders
+ * before it are done. The independent builders found between two sequential builders run at the same time, followed by
+ * the referring ones. Builders running at the same time build their entities in their own document, moved to the
+ * bundle document once they are done.
+ * <p>
+ * The entities are returned in the order of the builders, so the bundles are the same whether the builders run at the
+ * same time or one after the other. Instances are closed at the end of the build to stop their threads.
+ */
+final class EntityBuilderStages implements AutoCloseable {
+
+    private final List<EntityBuilder> entityBuilders;
+    private final List<List<EntityBuilder>> stages;
+    private final ParallelExecutor executor;
+
+    /**
+     * @param entityBuilders the builders, in their order
+     * @param parallelism    the number of builders run at the same time, 1 to run them one after the other
+     */
+    EntityBuilderStages(final Collection<EntityBuilder> entityBuilders, final int parallelism) {
+        this.entityBuilders = new ArrayList<>(entityBuilders);
+        this.stages = getStages(this.entityBuilders);
+        this.executor = new ParallelExecutor(parallelism);
+    }
+
+    /**
+     * Builds the entities of the bundle with all the builders.
+     *
+     * @param bundle     Bundle containing the entities to build
+     * @param bundleType type of the bundle to build
+     * @param document   document the entities are built in
+     * @return the entities, in the order of the builders
+     */
+    List<Entity> build(final Bundle bundle, final BundleType bundleType, final Document document) {
+        final Map<EntityBuilder, List<Entity>> builtEntities = new IdentityHashMap<>();
+        for (List<EntityBuilder> stage : stages) {
+            if (!executor.isParallel() || stage.size() == 1) {
+                stage.forEach(builder -> builtEntities.put(builder, builder.build(bundle, bundleType, document)));
+            } else {
+                buildConcurrently(stage, bundle, bundleType, document, builtEntities);
+            }
+        }
+
+        final List<Entity> entities = new ArrayList<>();
+        entityBuilders.forEach(builder -> entities.addAll(builtEntities.get(builder)));
+        return entities;
+    }
+
+    private void buildConcurrently(final List<EntityBuilder> stage, final Bundle bundle, final BundleType bundleType,
+                                   final Document document, final Map<EntityBuilder, List<Entity>> builtEntities) {
+        final List<List<Entity>> stageEntities = executor.map(stage, builder ->
+                builder.build(bundle, bundleType, document.getImplementation().createDocument(null, null, null)));
+        for (int i = 0; i < stage.size(); i++) {
+            // the document is not thread safe, the entities are moved to it once built
+            final List<Entity> entities = stageEntities.get(i);
+            entities.forEach(entity -> entity.adoptXml(document));
+            builtEntities.put(stage.get(i), entities);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    @VisibleForTesting
+    List<List<EntityBuilder>> getStages() {
+        return stages;
+    }
+
+    private static List<List<EntityBuilder>> getStages(final List<EntityBuilder> entityBuilders) {
+        final List<List<EntityBuilder>> stages = new ArrayList<>();
+        final List<EntityBuilder> independentBuilders = new ArrayList<>();
+        final List<EntityBuilder> referringBuilders = new ArrayList<>();
+        for (EntityBuilder builder : entityBuilders) {
+            final Stage stage = builder.getStage();
+            if (stage == Stage.INDEPENDENT) {
+                independentBuilders.add(builder);
+            } else if (stage == Stage.REFERRING) {
+                referringBuilders.add(builder);
+            } else {
+                addConcurrentStages(stages, independentBuilders, referringBuilders);
+                stages.add(Collections.singletonList(builder));
+            }
+        }
+        addConcurrentStages(stages, independentBuilders, referringBuilders);
+        return stages;
+    }
+
+    private static void addConcurrentStages(final List<List<EntityBuilder>> stages,
+                                            final List<EntityBuilder> independentBuilders,
+                                            final List<EntityBuilder> referringBuilders) {
+        if (!independentBuilders.isEmpty()) {
+            stages.add(new ArrayList<>(independentBuilders));
+            independentBuilders.clear();
+        }
+        if (!referringBuilders.isEmpty()) {
+            stages.add(new ArrayList<>(referringBuilders));
+            referringBuilders.clear();
+        }
+    }
+}
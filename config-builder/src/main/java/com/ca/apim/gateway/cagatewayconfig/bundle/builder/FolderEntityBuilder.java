@@ -94,15 +94,25 @@ public class FolderEntityBuilder implements EntityBuilder {
         Stream<Folder> folderStream = Stream.of(rootFolder).flatMap(f -> expand(f, folderChildrenMap));
 
         return folderStream.map(f -> {
-            if (f.getId() == null) {
-                f.setId(idGenerator.generate());
-            }
             String parentFolderId = f.getParentFolder() != null ? f.getParentFolder().getId() : null;
-            return buildFolderEntity(f, f.getId(), parentFolderId, document);
+            return buildFolderEntity(f, getOrGenerateId(f), parentFolderId, document);
         })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Folders are shared by all the annotated bundles, which may be built in parallel, so the id of a folder is only
+     * generated once.
+     */
+    private String getOrGenerateId(Folder folder) {
+        synchronized (folder) {
+            if (folder.getId() == null) {
+                folder.setId(idGenerator.generate());
+            }
+            return folder.getId();
+        }
+    }
+
     public List<Entity> build(Bundle bundle, BundleType bundleType, Document document) {
         Map<String, Folder> folderMap = Optional.ofNullable(bundle.getFolders()).orElse(Collections.emptyMap());
         return buildEntities(folderMap, bundleType, document, bundle.getTargetFolderPath());
@@ -82,4 +82,9 @@ public class GenericEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
 }
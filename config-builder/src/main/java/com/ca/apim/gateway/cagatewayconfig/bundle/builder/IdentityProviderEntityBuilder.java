@@ -194,4 +194,9 @@ public class IdentityProviderEntityBuilder implements EntityBuilder {
     public Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.REFERRING;
+    }
 }
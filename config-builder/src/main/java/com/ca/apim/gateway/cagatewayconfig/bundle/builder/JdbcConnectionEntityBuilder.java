@@ -110,4 +110,9 @@ public class JdbcConnectionEntityBuilder implements EntityBuilder {
         return ORDER;
     }
 
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
+
 }
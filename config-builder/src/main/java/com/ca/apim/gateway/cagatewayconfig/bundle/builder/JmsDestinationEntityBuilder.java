@@ -87,6 +87,11 @@ public class JmsDestinationEntityBuilder implements EntityBuilder {
         return ORDER;
     }
 
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.REFERRING;
+    }
+
     private Entity buildEntity(Bundle bundle, String name, JmsDestination jmsDestination, Document document) {
         String id = generateId(jmsDestination);
         boolean isInbound = jmsDestination.getInboundDetail() != null;
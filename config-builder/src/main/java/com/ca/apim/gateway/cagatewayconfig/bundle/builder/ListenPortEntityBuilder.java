@@ -203,4 +203,9 @@ public class ListenPortEntityBuilder implements EntityBuilder {
         return ORDER;
     }
 
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.REFERRING;
+    }
+
 }
@@ -102,4 +102,9 @@ public class PolicyBackedServiceEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
 }
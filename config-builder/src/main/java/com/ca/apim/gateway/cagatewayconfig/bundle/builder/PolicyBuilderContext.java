@@ -1,11 +1,15 @@
 package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 
 import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.DependentBundle;
 import com.ca.apim.gateway.cagatewayconfig.beans.Policy;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class PolicyBuilderContext {
     private String policyName;
     private Document policyDocument;
@@ -13,6 +17,8 @@ public class PolicyBuilderContext {
     private IdGenerator idGenerator;
     private AnnotatedBundle annotatedBundle;
     private Policy policy;
+    private final List<DependentBundle> dependentBundles = new ArrayList<>();
+    private String policyXML;
 
     PolicyBuilderContext(String policyName, Document policyDocument, Bundle bundle, IdGenerator idGenerator) {
         this.policyName = policyName;
@@ -55,4 +61,26 @@ public class PolicyBuilderContext {
     public Policy getPolicy() {
         return policy;
     }
+
+    /**
+     * Records a bundle the policy depends on. The recorded bundles are added to the bundle being built once the policy
+     * is built, in the order of the policies, so that policies can be built concurrently.
+     *
+     * @param dependentBundle the bundle the policy depends on
+     */
+    public void addDependentBundle(DependentBundle dependentBundle) {
+        dependentBundles.add(dependentBundle);
+    }
+
+    List<DependentBundle> getDependentBundles() {
+        return dependentBundles;
+    }
+
+    String getPolicyXML() {
+        return policyXML;
+    }
+
+    void setPolicyXML(String policyXML) {
+        this.policyXML = policyXML;
+    }
 }
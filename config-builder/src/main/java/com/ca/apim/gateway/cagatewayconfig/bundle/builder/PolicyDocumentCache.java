@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.Policy;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import com.google.common.annotations.VisibleForTesting;
+import org.w3c.dom.Document;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.stringToXMLDocument;
+
+/**
+ * Keeps the parsed and cleaned up form of policies, so a policy included in many annotated bundles is parsed only once
+ * per build. Templates are keyed by policy path and content hash and are never handed out, callers always get a deep
+ * copy they are free to modify.
+ * The cache is scoped to the bundle being built: asking for a policy of a different bundle drops all templates.
+ * It is bounded by the total length of the cached policy xml, least recently used templates are evicted first.
+ */
+@Singleton
+public class PolicyDocumentCache {
+    private static final Logger LOGGER = Logger.getLogger(PolicyDocumentCache.class.getName());
+    static final String POLICY_CACHE_SIZE_PROPERTY = "com.ca.apim.build.policyCacheSize";
+    // in characters of policy xml, the parsed form takes a few times more
+    private static final long DEFAULT_POLICY_CACHE_SIZE = 16L * 1024 * 1024;
+
+    private final DocumentTools documentTools;
+    private final long maxSize;
+    private final Map<TemplateKey, Template> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private WeakReference<Bundle> scope = new WeakReference<>(null);
+    private long size;
+
+    @Inject
+    PolicyDocumentCache(final DocumentTools documentTools) {
+        this(documentTools, Long.getLong(POLICY_CACHE_SIZE_PROPERTY, DEFAULT_POLICY_CACHE_SIZE));
+    }
+
+    @VisibleForTesting
+    PolicyDocumentCache(final DocumentTools documentTools, final long maxSize) {
+        this.documentTools = documentTools;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a new document for the policy xml, parsing it only if it is not cached yet.
+     *
+     * @param bundle the bundle being built, which the policy belongs to
+     * @param policy the policy to load
+     * @return a document owned by the caller
+     * @throws DocumentParseException if the policy xml cannot be parsed
+     */
+    public Document getPolicyDocument(final Bundle bundle, final Policy policy) throws DocumentParseException {
+        final String policyXML = policy.getPolicyXML();
+        if (policyXML == null) {
+            return stringToXMLDocument(documentTools, null);
+        }
+        final TemplateKey key = new TemplateKey(policy.getPath(), policyXML);
+
+        Template template;
+        synchronized (this) {
+            if (scope.get() != bundle) {
+                clear();
+                scope = new WeakReference<>(bundle);
+            }
+            template = templates.get(key);
+        }
+        if (template == null || !template.policyXML.equals(policyXML)) {
+            template = new Template(policyXML, stringToXMLDocument(documentTools, policyXML));
+            cache(key, template);
+        }
+        return template.copy();
+    }
+
+    private synchronized void cache(final TemplateKey key, final Template template) {
+        final long weight = template.policyXML.length();
+        if (weight > maxSize) {
+            LOGGER.log(Level.FINE, "Policy {0} is too big to be cached", key.path);
+            return;
+        }
+        final Template previous = templates.put(key, template);
+        if (previous != null) {
+            size -= previous.policyXML.length();
+        }
+        size += weight;
+
+        final Iterator<Template> eldest = templates.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            size -= eldest.next().policyXML.length();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops all cached templates.
+     */
+    public synchronized void clear() {
+        templates.clear();
+        size = 0;
+    }
+
+    @VisibleForTesting
+    synchronized int getTemplateCount() {
+        return templates.size();
+    }
+
+    @VisibleForTesting
+    synchronized long getSize() {
+        return size;
+    }
+
+    private static class TemplateKey {
+        private final String path;
+        private final int contentHash;
+
+        private TemplateKey(final String path, final String policyXML) {
+            this.path = path;
+            this.contentHash = policyXML.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TemplateKey that = (TemplateKey) o;
+            return contentHash == that.contentHash && Objects.equals(path, that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, contentHash);
+        }
+    }
+
+    private static class Template {
+        private final String policyXML;
+        private final Document document;
+
+        private Template(final String policyXML, final Document document) {
+            this.policyXML = policyXML;
+            this.document = document;
+        }
+
+        /**
+         * Reading a parsed document may still expand its nodes, so copies are made one at a time.
+         */
+        private Document copy() {
+            synchronized (document) {
+                return (Document) document.cloneNode(true);
+            }
+        }
+    }
+}
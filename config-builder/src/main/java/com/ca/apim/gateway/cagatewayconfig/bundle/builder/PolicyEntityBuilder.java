@@ -9,6 +9,7 @@ package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
 import com.ca.apim.gateway.cagatewayconfig.util.IdValidator;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions;
@@ -32,7 +33,6 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.BundleType.ENVIRONMENT;
@@ -59,22 +59,28 @@ public class PolicyEntityBuilder implements EntityBuilder {
     private final DocumentTools documentTools;
     private final IdGenerator idGenerator;
     private final PolicyXMLBuilder policyXMLBuilder;
+    private final PolicyDocumentCache policyDocumentCache;
 
-    @Inject
     PolicyEntityBuilder(DocumentTools documentTools, IdGenerator idGenerator, PolicyXMLBuilder policyXMLBuilder) {
+        this(documentTools, idGenerator, policyXMLBuilder, new PolicyDocumentCache(documentTools));
+    }
+
+    @Inject
+    PolicyEntityBuilder(DocumentTools documentTools, IdGenerator idGenerator, PolicyXMLBuilder policyXMLBuilder,
+                        PolicyDocumentCache policyDocumentCache) {
         this.documentTools = documentTools;
         this.idGenerator = idGenerator;
         this.policyXMLBuilder = policyXMLBuilder;
+        this.policyDocumentCache = policyDocumentCache;
     }
 
-    public List<Entity> buildEntities(Map<String, ?> policyMap, AnnotatedBundle annotatedBundle, Bundle bundle, BundleType bundleType, Document document) {
+    public List<Entity> buildEntities(Map<String, Policy> policyMap, AnnotatedBundle annotatedBundle, Bundle bundle, BundleType bundleType, Document document) {
         // no policy has to be added to environment bundle
         if (bundleType == ENVIRONMENT) {
             return emptyList();
         }
         AnnotatedEntity annotatedEntity = annotatedBundle != null ? annotatedBundle.getAnnotatedEntity() : null;
-        policyMap.values().forEach(policy -> {
-            Policy policyEntity = (Policy) policy;
+        policyMap.values().forEach(policyEntity -> {
             if (annotatedEntity != null) {
                 AnnotatedEntity annotatedPolicyEntity = policyEntity.getAnnotatedEntity();
                 if (policyEntity.isParentEntityShared()) {
@@ -100,12 +106,12 @@ public class PolicyEntityBuilder implements EntityBuilder {
                 }
             }
         });
-        policyMap.values().forEach(policy -> preparePolicy((Policy) policy, bundle, annotatedBundle));
+        final Map<Policy, String> policyXMLs = preparePolicies(policyMap.values(), bundle, annotatedBundle);
 
-        List<Policy> orderedPolicies = new LinkedList<>();
-        policyMap.forEach((path, policy) -> maybeAddPolicy(bundle, (Policy) policy, orderedPolicies, new HashSet<Policy>()));
+        List<Policy> orderedPolicies = orderPolicies(bundle, policyMap.values());
 
-        return orderedPolicies.stream().map(policy -> buildPolicyEntity(policy, annotatedBundle, bundle, document)).collect(toList());
+        return orderedPolicies.stream().map(policy ->
+                buildPolicyEntity(policy, annotatedBundle, bundle, document, policyXMLs.get(policy))).collect(toList());
     }
 
     public List<Entity> build(Bundle bundle, BundleType bundleType, Document document) {
@@ -124,23 +130,121 @@ public class PolicyEntityBuilder implements EntityBuilder {
         return ORDER;
     }
 
+    /**
+     * Orders the policies so each one comes after the policies it includes, walking the includes depth first from each
+     * policy in turn. Service policies are left out, they are handled by the service entity builder.
+     *
+     * @param bundle   the bundle the policies belong to
+     * @param policies the policies to order
+     * @return the policies and their dependencies, included policies first
+     * @throws EntityBuilderException if policies include each other
+     */
     @VisibleForTesting
-    static void maybeAddPolicy(Bundle bundle, Policy policy, List<Policy> orderedPolicies, Set<Policy> seenPolicies) {
-        if (orderedPolicies.contains(policy) || bundle.getServices().get(FilenameUtils.removeExtension(policy.getPath())) != null) {
-            //This is a service policy it should have already be handled by the service entity builder OR This policy has already been added to the policy list
-            return;
+    static List<Policy> orderPolicies(Bundle bundle, Collection<Policy> policies) {
+        final List<Policy> orderedPolicies = new ArrayList<>(policies.size());
+        final Map<Policy, PolicyState> states = new HashMap<>();
+        // the include path being walked and the dependencies left to walk for each policy in it
+        final Deque<Policy> path = new ArrayDeque<>();
+        final Deque<Iterator<Policy>> pendingDependencies = new ArrayDeque<>();
+
+        for (Policy policy : policies) {
+            enterPolicy(bundle, policy, states, path, pendingDependencies);
+            while (!path.isEmpty()) {
+                final Iterator<Policy> dependencies = pendingDependencies.peek();
+                if (dependencies.hasNext()) {
+                    enterPolicy(bundle, dependencies.next(), states, path, pendingDependencies);
+                } else {
+                    pendingDependencies.pop();
+                    final Policy orderedPolicy = path.pop();
+                    states.put(orderedPolicy, PolicyState.ORDERED);
+                    orderedPolicies.add(orderedPolicy);
+                }
+            }
+        }
+        return orderedPolicies;
+    }
+
+    private static void enterPolicy(Bundle bundle, Policy policy, Map<Policy, PolicyState> states, Deque<Policy> path,
+                                    Deque<Iterator<Policy>> pendingDependencies) {
+        final PolicyState state = states.computeIfAbsent(policy, p ->
+                bundle.getServices().get(FilenameUtils.removeExtension(p.getPath())) != null ? PolicyState.SERVICE : PolicyState.NEW);
+        if (state == PolicyState.IN_PATH) {
+            throw new EntityBuilderException("Detected Policy Include cycle containing policies: " + getCyclePath(path, policy));
         }
-        if (seenPolicies.contains(policy)) {
-            throw new EntityBuilderException("Detected Policy Include cycle containing policies: " + seenPolicies.stream().map(Policy::getPath).collect(Collectors.joining(",")));
+        if (state == PolicyState.NEW) {
+            states.put(policy, PolicyState.IN_PATH);
+            path.push(policy);
+            pendingDependencies.push(policy.getDependencies().iterator());
         }
-        seenPolicies.add(policy);
-        policy.getDependencies().forEach(dependency -> maybeAddPolicy(bundle, dependency, orderedPolicies, seenPolicies));
-        seenPolicies.remove(policy);
-        orderedPolicies.add(policy);
     }
 
-    private void preparePolicy(Policy policy, Bundle bundle, AnnotatedBundle annotatedBundle) {
-        Document policyDocument = loadPolicyDocument(policy);
+    /**
+     * @return the include path from the policy back to itself
+     */
+    private static String getCyclePath(Deque<Policy> path, Policy policy) {
+        final List<String> cycle = new ArrayList<>();
+        final Iterator<Policy> fromRoot = path.descendingIterator();
+        boolean inCycle = false;
+        while (fromRoot.hasNext()) {
+            final Policy pathPolicy = fromRoot.next();
+            inCycle = inCycle || pathPolicy.equals(policy);
+            if (inCycle) {
+                cycle.add(pathPolicy.getPath());
+            }
+        }
+        cycle.add(policy.getPath());
+        return String.join(" -> ", cycle);
+    }
+
+    private enum PolicyState {
+        // not walked yet
+        NEW,
+        // in the include path being walked
+        IN_PATH,
+        // added to the ordered policies
+        ORDERED,
+        // a service policy, never added
+        SERVICE
+    }
+
+    /**
+     * Prepares the policies and serializes their xml. The policies of a full bundle are prepared at the same time when
+     * the com.ca.apim.build.parallelism system property is greater than 1. The policies of an annotated bundle
+     * are always prepared one after the other, since preparing a policy can update the encasses it uses, which are
+     * shared by the other policies of the bundle.
+     * The dependent bundles found while preparing each policy are added to the bundle in the order of the policies, so
+     * the bundle is the same whichever way the policies are prepared.
+     *
+     * @return the xml of each policy
+     */
+    private Map<Policy, String> preparePolicies(Collection<Policy> policies, Bundle bundle, AnnotatedBundle annotatedBundle) {
+        final Map<Policy, String> policyXMLs = new IdentityHashMap<>();
+        final Bundle bundleBuilt = annotatedBundle != null ? annotatedBundle : bundle;
+        final int parallelism = annotatedBundle != null ? 1 : Math.min(ParallelExecutor.getParallelism(), policies.size());
+        if (parallelism <= 1) {
+            policies.forEach(policy -> addPreparedPolicy(policy, preparePolicy(policy, bundle, annotatedBundle), bundleBuilt, policyXMLs));
+            return policyXMLs;
+        }
+
+        LOGGER.log(Level.FINE, "Preparing {0} policies with {1} threads", new Object[]{policies.size(), parallelism});
+        final List<Policy> orderedPolicies = new ArrayList<>(policies);
+        try (ParallelExecutor executor = new ParallelExecutor(parallelism)) {
+            final List<PolicyBuilderContext> preparedPolicies = executor.map(orderedPolicies, policy -> preparePolicy(policy, bundle, null));
+            for (int i = 0; i < orderedPolicies.size(); i++) {
+                addPreparedPolicy(orderedPolicies.get(i), preparedPolicies.get(i), bundleBuilt, policyXMLs);
+            }
+            return policyXMLs;
+        }
+    }
+
+    private void addPreparedPolicy(Policy policy, PolicyBuilderContext policyBuilderContext, Bundle bundleBuilt,
+                                   Map<Policy, String> policyXMLs) {
+        policyBuilderContext.getDependentBundles().forEach(bundleBuilt::addDependentBundle);
+        policyXMLs.put(policy, policyBuilderContext.getPolicyXML());
+    }
+
+    private PolicyBuilderContext preparePolicy(Policy policy, Bundle bundle, AnnotatedBundle annotatedBundle) {
+        Document policyDocument = loadPolicyDocument(policy, bundle);
         String policyName = policy.getName();
         AnnotatedEntity annotatedEntity = annotatedBundle != null ? annotatedBundle.getAnnotatedEntity() : null;
         if (annotatedEntity != null) {
@@ -151,12 +255,15 @@ public class PolicyEntityBuilder implements EntityBuilder {
         policyBuilderContext.withPolicy(policy).withAnnotatedBundle(annotatedBundle);
         policyXMLBuilder.buildPolicyXML(policyBuilderContext);
         policy.setPolicyDocument(policyDocument.getDocumentElement());
+        // serialized here so that it is done at the same time for all the policies when they are prepared concurrently
+        policyBuilderContext.setPolicyXML(documentTools.elementToString(policy.getPolicyDocument()));
+        return policyBuilderContext;
     }
 
-    private Document loadPolicyDocument(Policy policy) {
+    private Document loadPolicyDocument(Policy policy, Bundle bundle) {
         Document policyDocument;
         try {
-            policyDocument = stringToXMLDocument(documentTools, policy.getPolicyXML());
+            policyDocument = policyDocumentCache.getPolicyDocument(bundle, policy);
         } catch (DocumentParseException e) {
             throw new EntityBuilderException("Could not load policy: " + e.getMessage(), e);
         }
@@ -193,6 +300,15 @@ public class PolicyEntityBuilder implements EntityBuilder {
 
     @VisibleForTesting
     Entity buildPolicyEntity(Policy policy, AnnotatedBundle annotatedBundle, Bundle bundle, Document document) {
+        return buildPolicyEntity(policy, annotatedBundle, bundle, document, null);
+    }
+
+    /**
+     * Builds the entity of the policy, with its prepared xml if it is given. Otherwise the xml is serialized from the
+     * policy document, like for policies of dependency bundles that are included by the policies of this bundle.
+     */
+    private Entity buildPolicyEntity(Policy policy, AnnotatedBundle annotatedBundle, Bundle bundle, Document document,
+                                     String policyXML) {
         String policyName = policy.getName();
         String policyNameWithPath = EntityBuilderHelper.getPath(policy.getParentFolder(), policyName);
         policyNameWithPath = CharacterBlacklistUtil.decodePath(policyNameWithPath);
@@ -236,7 +352,7 @@ public class PolicyEntityBuilder implements EntityBuilder {
         Element resourcesElement = document.createElement(RESOURCES);
         Element resourceSetElement = createElementWithAttribute(document, RESOURCE_SET, PROPERTY_TAG, POLICY);
         Element resourceElement = createElementWithAttribute(document, RESOURCE, TYPE, POLICY);
-        resourceElement.setTextContent(documentTools.elementToString(policy.getPolicyDocument()));
+        resourceElement.setTextContent(policyXML != null ? policyXML : documentTools.elementToString(policy.getPolicyDocument()));
 
         resourceSetElement.appendChild(resourceElement);
         resourcesElement.appendChild(resourceSetElement);
@@ -3,10 +3,7 @@ package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleLoadException;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -14,6 +11,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.visitDescendantElements;
 import static java.util.Collections.unmodifiableMap;
 
 /**
@@ -29,24 +27,23 @@ public class PolicyXMLBuilder {
         buildersByTag = unmodifiableMap(buildersByTag);
     }
 
+    /**
+     * Builds all assertions of the policy in a single depth first traversal, handing each assertion element to the
+     * builder registered for its tag. Builders may change the children of the assertion element they are given,
+     * including removing or replacing it.
+     *
+     * @param policyBuilderContext context holding the policy document
+     */
     public void buildPolicyXML(PolicyBuilderContext policyBuilderContext) {
-        buildersByTag.forEach((tag, builder) -> findAndBuildAssertion(tag, builder, policyBuilderContext));
+        visitDescendantElements(policyBuilderContext.getPolicyDocument().getDocumentElement(), buildersByTag,
+                (assertionElement, builder) -> buildAssertion(assertionElement, builder, policyBuilderContext));
     }
 
-    private static void findAndBuildAssertion(String assertionTag, PolicyAssertionBuilder policyAssertionBuilder, PolicyBuilderContext policyBuilderContext) {
-        final Document policyDocument = policyBuilderContext.getPolicyDocument();
-        Element policyElement = policyDocument.getDocumentElement();
-        NodeList includeReferences = policyElement.getElementsByTagName(assertionTag);
-        for (int i = 0; i < includeReferences.getLength(); i++) {
-            Node includeElement = includeReferences.item(i);
-            if (!(includeElement instanceof Element)) {
-                throw new EntityBuilderException("Unexpected Assertion node type: " + includeElement.getNodeType());
-            }
-            try {
-                policyAssertionBuilder.buildAssertionElement((Element) includeElement, policyBuilderContext);
-            } catch (DocumentParseException e) {
-                throw new EntityBuilderException(e.getMessage(), e);
-            }
+    private static void buildAssertion(Element assertionElement, PolicyAssertionBuilder policyAssertionBuilder, PolicyBuilderContext policyBuilderContext) {
+        try {
+            policyAssertionBuilder.buildAssertionElement(assertionElement, policyBuilderContext);
+        } catch (DocumentParseException e) {
+            throw new EntityBuilderException(e.getMessage(), e);
         }
     }
 
@@ -124,4 +124,9 @@ public class PrivateKeyEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
 }
@@ -93,4 +93,9 @@ public class ScheduledTaskEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.INDEPENDENT;
+    }
 }
@@ -90,13 +90,13 @@ public class ServiceEntityBuilder implements EntityBuilder {
         if (isNotEmpty(soapResourceBeans)) {
             soapResourceBeans.forEach(soapResourceBean -> {
                 String path = PathUtils.unixPath(service.getParentFolder().getPath(), baseName, soapResourceBean.getFileName());
-                String content;
+                final SoapResource soapResource;
                 if (bundle instanceof AnnotatedBundle) {
-                    content = ((AnnotatedBundle) bundle).getFullBundle().getSoapResources().get(path).getContent();
+                    soapResource = ((AnnotatedBundle) bundle).getFullBundle().getSoapResources().get(path);
                 } else {
-                    content = bundle.getSoapResources().get(path).getContent();
+                    soapResource = bundle.getSoapResources().get(path);
                 }
-                soapResourceBean.setContent(content);
+                soapResourceBean.setContentFrom(soapResource);
             });
         }
 
@@ -144,4 +144,9 @@ public class SsgActiveConnectorEntityBuilder implements EntityBuilder {
     public @NotNull Integer getOrder() {
         return ORDER;
     }
+
+    @Override
+    public @NotNull Stage getStage() {
+        return Stage.REFERRING;
+    }
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.loader;
+
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import org.w3c.dom.*;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.ITEM;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.MAPPING;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.TYPE;
+import static javax.xml.stream.XMLStreamConstants.*;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * Streams the items of a bundle file one at a time, so that the memory needed is bounded by the largest item instead
+ * of the whole bundle. Each item is handed over as an element in its own document, built the same way as a non
+ * namespace aware DOM parse would build it.
+ * Items whose type is rejected by the type filter are skipped as soon as their type is read, without building the
+ * rest of them. Items nested in a skipped item (for example the items of an exported bundle wrapped in an item) are
+ * still read.
+ * The mappings of the bundle can be streamed the same way.
+ */
+public class BundleItemReader {
+
+    private final DocumentTools documentTools;
+
+    public BundleItemReader(final DocumentTools documentTools) {
+        this.documentTools = documentTools;
+    }
+
+    /**
+     * Reads all items in the bundle file, in document order.
+     *
+     * @param bundleFile   the bundle file to read
+     * @param typeFilter   test for the item type, items not accepted are skipped
+     * @param itemConsumer receives the element of every accepted item
+     * @throws DocumentParseException if the file cannot be read or is not well formed
+     */
+    public void read(final File bundleFile, final Predicate<String> typeFilter, final Consumer<Element> itemConsumer) throws DocumentParseException {
+        read(bundleFile, typeFilter, itemConsumer, null);
+    }
+
+    /**
+     * Reads all items and mappings in the bundle file, in document order.
+     *
+     * @param bundleFile      the bundle file to read
+     * @param typeFilter      test for the item type, items not accepted are skipped
+     * @param itemConsumer    receives the element of every accepted item
+     * @param mappingConsumer receives the element of every mapping, null to skip the mappings
+     * @throws DocumentParseException if the file cannot be read or is not well formed
+     */
+    public void read(final File bundleFile, final Predicate<String> typeFilter, final Consumer<Element> itemConsumer,
+                     final Consumer<Element> mappingConsumer) throws DocumentParseException {
+        try (InputStream inputStream = Files.newInputStream(bundleFile.toPath())) {
+            final XMLStreamReader reader = documentTools.createXMLStreamReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() != START_ELEMENT) {
+                        continue;
+                    }
+                    final String name = qualifiedName(reader);
+                    if (ITEM.equals(name)) {
+                        readItem(reader, typeFilter, itemConsumer);
+                    } else if (MAPPING.equals(name) && mappingConsumer != null) {
+                        readMapping(reader, mappingConsumer);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new DocumentParseException("Exception reading bundle '" + bundleFile + "': " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new DocumentParseException("Exception reading file: " + bundleFile, e);
+        }
+    }
+
+    /**
+     * Reads an item, the reader must be positioned at the item start element. When this returns the reader is
+     * positioned at the item end element.
+     */
+    private void readItem(final XMLStreamReader reader, final Predicate<String> typeFilter, final Consumer<Element> itemConsumer) throws XMLStreamException {
+        final Document document = documentTools.getDocumentBuilder().newDocument();
+        final Element item = createElement(document, reader);
+        document.appendChild(item);
+
+        Node current = item;
+        int depth = 0;
+        boolean skipping = false;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (skipping) {
+                if (event == START_ELEMENT) {
+                    if (ITEM.equals(qualifiedName(reader))) {
+                        readItem(reader, typeFilter, itemConsumer);
+                    } else {
+                        depth++;
+                    }
+                } else if (event == END_ELEMENT && depth-- == 0) {
+                    return;
+                }
+                continue;
+            }
+
+            switch (event) {
+                case START_ELEMENT:
+                    current = current.appendChild(createElement(document, reader));
+                    depth++;
+                    break;
+                case END_ELEMENT:
+                    if (depth-- == 0) {
+                        itemConsumer.accept(item);
+                        return;
+                    }
+                    if (depth == 0 && TYPE.equals(current.getNodeName()) && !typeFilter.test(current.getTextContent())) {
+                        // the rest of the item is not needed
+                        skipping = true;
+                        break;
+                    }
+                    current = current.getParentNode();
+                    break;
+                default:
+                    appendContent(document, current, reader, event);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Reads a mapping, the reader must be positioned at the mapping start element. When this returns the reader is
+     * positioned at the mapping end element.
+     */
+    private void readMapping(final XMLStreamReader reader, final Consumer<Element> mappingConsumer) throws XMLStreamException {
+        final Document document = documentTools.getDocumentBuilder().newDocument();
+        final Element mapping = createElement(document, reader);
+        document.appendChild(mapping);
+
+        Node current = mapping;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == START_ELEMENT) {
+                current = current.appendChild(createElement(document, reader));
+            } else if (event == END_ELEMENT) {
+                if (current == mapping) {
+                    mappingConsumer.accept(mapping);
+                    return;
+                }
+                current = current.getParentNode();
+            } else {
+                appendContent(document, current, reader, event);
+            }
+        }
+    }
+
+    private static void appendContent(final Document document, final Node parent, final XMLStreamReader reader, final int event) {
+        switch (event) {
+            case CHARACTERS:
+            case SPACE:
+                appendText(document, parent, reader.getText());
+                break;
+            case CDATA:
+                parent.appendChild(document.createCDATASection(reader.getText()));
+                break;
+            case COMMENT:
+                parent.appendChild(document.createComment(reader.getText()));
+                break;
+            case PROCESSING_INSTRUCTION:
+                parent.appendChild(document.createProcessingInstruction(reader.getPITarget(), reader.getPIData()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void appendText(final Document document, final Node parent, final String text) {
+        // a DOM parser merges consecutive character chunks into a single text node
+        final Node last = parent.getLastChild();
+        if (last instanceof Text && !(last instanceof CDATASection)) {
+            ((Text) last).appendData(text);
+        } else {
+            parent.appendChild(document.createTextNode(text));
+        }
+    }
+
+    private static Element createElement(final Document document, final XMLStreamReader reader) {
+        final Element element = document.createElement(qualifiedName(reader));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            final String prefix = reader.getNamespacePrefix(i);
+            element.setAttribute(isEmpty(prefix) ? "xmlns" : "xmlns:" + prefix, reader.getNamespaceURI(i));
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            final String prefix = reader.getAttributePrefix(i);
+            final String localName = reader.getAttributeLocalName(i);
+            element.setAttribute(isEmpty(prefix) ? localName : prefix + ":" + localName, reader.getAttributeValue(i));
+        }
+        return element;
+    }
+
+    private static String qualifiedName(final XMLStreamReader reader) {
+        final String prefix = reader.getPrefix();
+        return isEmpty(prefix) ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+    }
+}
@@ -13,15 +13,14 @@ import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,27 +34,42 @@ import static org.apache.commons.lang3.ArrayUtils.isNotEmpty;
 public class EntityBundleLoader {
     private static final Logger LOGGER = Logger.getLogger(EntityBundleLoader.class.getName());
 
-    private final DocumentTools documentTools;
+    private final BundleItemReader itemReader;
     private final BundleEntityLoaderRegistry entityLoaderRegistry;
     private final JsonFileUtils jsonFileUtils;
 
     @Inject
     EntityBundleLoader(final DocumentTools documentTools, final BundleEntityLoaderRegistry entityLoaderRegistry, final JsonFileUtils jsonFileUtils) {
-        this.documentTools = documentTools;
+        this.itemReader = new BundleItemReader(documentTools);
         this.entityLoaderRegistry = entityLoaderRegistry;
         this.jsonFileUtils = jsonFileUtils;
     }
 
     public Bundle load(List<File> fileSet, BundleLoadingOperation loadingMode, String... entityTypes) {
+        return load(fileSet, loadingMode, item -> true, entityTypes);
+    }
+
+    /**
+     * Loads the bundle files, skipping the items rejected by the item filter. The filter is applied once per item, in
+     * document order, so it can be used to load only the first of the items repeated across the files. Items nested in
+     * another item are filtered the same way, after the item they are nested in.
+     *
+     * @param fileSet     the bundle files to load
+     * @param loadingMode the loading operation
+     * @param itemFilter  test for the items of the accepted types, items not accepted are not loaded
+     * @param entityTypes the types to load, all if empty
+     * @return the bundle with the loaded entities
+     */
+    public Bundle load(List<File> fileSet, BundleLoadingOperation loadingMode, Predicate<Element> itemFilter, String... entityTypes) {
         final Bundle bundle = new Bundle();
-        fileSet.forEach(f -> loadBundleFile(f, bundle, loadingMode, entityTypes));
+        fileSet.forEach(f -> loadBundleFile(f, bundle, loadingMode, itemFilter, entityTypes));
         return bundle;
     }
 
     public Bundle load(File dependencyBundlePath, BundleLoadingOperation loadingMode, String... entityTypes) {
         final Bundle bundle = new Bundle();
 
-        loadBundleFile(dependencyBundlePath, bundle, loadingMode, entityTypes);
+        loadBundleFile(dependencyBundlePath, bundle, loadingMode, item -> true, entityTypes);
 
         return bundle;
     }
@@ -104,29 +118,40 @@ public class EntityBundleLoader {
         return encass;
     }
 
-    private void loadBundleFile(File dependencyBundlePath, Bundle bundle, BundleLoadingOperation loadingMode, String... entityTypes) {
+    private void loadBundleFile(File dependencyBundlePath, Bundle bundle, BundleLoadingOperation loadingMode, Predicate<Element> itemFilter, String... entityTypes) {
         bundle.setLoadingMode(loadingMode);
 
-        final Document bundleDocument;
         try {
-            bundleDocument = documentTools.parse(dependencyBundlePath);
+            itemReader.read(dependencyBundlePath, type -> isLoadable(type, entityTypes), item -> handleItemTree(bundle, item, itemFilter, entityTypes));
         } catch (DocumentParseException e) {
             throw new BundleLoadException("Could not parse dependency bundle '" + dependencyBundlePath + "': " + e.getMessage(), e);
         }
+    }
+
+    private boolean isLoadable(final String type, String[] entityTypes) {
+        if (isNotEmpty(entityTypes) && !contains(entityTypes, type)) {
+            return false;
+        }
+        if (entityLoaderRegistry.getLoader(type) == null) {
+            LOGGER.log(Level.FINE, "No entity loader found for entity type: {0}", type);
+            return false;
+        }
+        return true;
+    }
 
-        final NodeList nodeList = bundleDocument.getElementsByTagName(ITEM);
-        for (int i = 0; i < nodeList.getLength(); i++) {
-            final Node node = nodeList.item(i);
+    private void handleItemTree(Bundle bundle, final Element element, Predicate<Element> itemFilter, String[] entityTypes) {
+        handleItem(bundle, element, itemFilter, entityTypes);
 
-            if (node.getNodeType() == Node.ELEMENT_NODE) {
-                handleItem(bundle, (Element) node, entityTypes);
-            }
+        // items nested in this one are part of the element handed over, filter and load them as well
+        final NodeList nestedItems = element.getElementsByTagName(ITEM);
+        for (int i = 0; i < nestedItems.getLength(); i++) {
+            handleItem(bundle, (Element) nestedItems.item(i), itemFilter, entityTypes);
         }
     }
 
-    private void handleItem(Bundle bundle, final Element element, String[] entityTypes) {
+    private void handleItem(Bundle bundle, final Element element, Predicate<Element> itemFilter, String[] entityTypes) {
         final String type = getSingleChildElement(element, TYPE).getTextContent();
-        if (isNotEmpty(entityTypes) && !contains(entityTypes, type)) {
+        if (isNotEmpty(entityTypes) && !contains(entityTypes, type) || !itemFilter.test(element)) {
             return;
         }
 
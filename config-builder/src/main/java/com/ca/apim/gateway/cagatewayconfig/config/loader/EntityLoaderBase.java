@@ -43,7 +43,7 @@ public abstract class EntityLoaderBase<B extends GatewayEntity> implements Entit
     }
 
     public Object loadSingle(String name, File entitiesFile) {
-        return load(entitiesFile).get(name);
+        return jsonTools.readDocumentFileEntry(entitiesFile, name, this.getBeanClass());
     }
 
     public Map<String, Object> load(File entitiesFile) {
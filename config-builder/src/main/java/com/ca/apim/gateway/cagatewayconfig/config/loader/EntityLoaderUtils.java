@@ -12,7 +12,6 @@ import com.ca.apim.gateway.cagatewayconfig.beans.GatewayEntity;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
 import com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.json.JsonTools;
-import com.fasterxml.jackson.databind.type.MapType;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -97,10 +96,11 @@ public class EntityLoaderUtils {
      * @param <B> Entity type
      * @return map of name-entity
      */
+    @SuppressWarnings("unchecked")
     static <B> Map<String, B> loadEntitiesFromFile(JsonTools jsonTools, Class<? extends GatewayEntity> entityClass, File entitiesFile) {
-        final String fileType = jsonTools.getTypeFromFile(entitiesFile);
-        final MapType type = jsonTools.getObjectMapper(fileType).getTypeFactory().constructMapType(LinkedHashMap.class, String.class, entityClass);
-
-        return jsonTools.readDocumentFile(entitiesFile, type);
+        // entities are read one by one with the cached reader of the entity class, in file order
+        final Map<String, B> entities = new LinkedHashMap<>();
+        final boolean hasContent = jsonTools.readDocumentFileEntries(entitiesFile, entityClass, (name, entity) -> entities.put(name, (B) entity));
+        return hasContent ? entities : null;
     }
 }
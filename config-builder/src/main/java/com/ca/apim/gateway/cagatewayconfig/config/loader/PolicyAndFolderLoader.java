@@ -16,10 +16,15 @@ import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static com.ca.apim.gateway.cagatewayconfig.config.loader.FolderLoaderUtils.createFolder;
-import static com.ca.apim.gateway.cagatewayconfig.config.loader.FolderLoaderUtils.getPath;
+import static com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils.unixPath;
+import static com.ca.apim.gateway.cagatewayconfig.util.paths.PathUtils.unixPathEndingWithSeparator;
 
 @Singleton
 public class PolicyAndFolderLoader implements EntityLoader {
@@ -44,7 +49,7 @@ public class PolicyAndFolderLoader implements EntityLoader {
         if (policyRootDir == null) return;
 
         final Map<String, Policy> policies = new HashMap<>();
-        loadPolicies(policyRootDir, policyRootDir, null, policies, bundle);
+        loadPolicies(policyRootDir, policies, bundle);
         loadPoliciesMetadata(rootDir, policies, bundle);
         bundle.putAllPolicies(policies);
     }
@@ -89,34 +94,73 @@ public class PolicyAndFolderLoader implements EntityLoader {
         throw new ConfigLoadException("Cannot load policies from config file");
     }
 
-    private void loadPolicies(final File currentDir, final File rootDir, Folder parentFolder, final Map<String, Policy> policies, Bundle bundle) {
-        Folder folder = bundle.getFolders().computeIfAbsent(getPath(currentDir, rootDir), key -> createFolder(currentDir.getName(), key, parentFolder));
-        final File[] children = currentDir.listFiles();
-        if (children != null) {
-            for (final File child : children) {
-                if (child.isDirectory()) {
-                    loadPolicies(child, rootDir, folder, policies, bundle);
-                } else if (policyConverterRegistry.isValidPolicyExtension(child.getName())) {
-                    Policy policy = loadPolicy(child, rootDir, folder, bundle);
-                    Policy existingPolicy = policies.put(policy.getPath(), policy);
-                    if (existingPolicy != null) {
-                        throw new ConfigLoadException("Found multiple policies with same path but different types. Policy Path: " + policy.getPath());
+    /**
+     * Loads the folders and the policies under the policy root directory. The tree is walked once, creating the folders
+     * from the attributes read along with the directory entries, then the policy files are read and converted in
+     * parallel. Ids are given to the policies in the order of their paths, so they do not depend on the order the files
+     * are listed or read in.
+     */
+    private void loadPolicies(final File policyRootDir, final Map<String, Policy> policies, final Bundle bundle) {
+        final List<PolicyFile> policyFiles = walkPolicyTree(policyRootDir.toPath(), bundle);
+        policyFiles.sort(Comparator.comparing(policyFile -> policyFile.path));
+
+        final List<Policy> loadedPolicies = policyFiles.parallelStream()
+                .map(policyFile -> readPolicy(policyFile, bundle, policyRootDir))
+                .collect(Collectors.toList());
+        for (final Policy policy : loadedPolicies) {
+            policy.setGuid(idGenerator.generateGuid());
+            policy.setId(idGenerator.generate());
+            Policy existingPolicy = policies.put(policy.getPath(), policy);
+            if (existingPolicy != null) {
+                throw new ConfigLoadException("Found multiple policies with same path but different types. Policy Path: " + policy.getPath());
+            }
+        }
+    }
+
+    private List<PolicyFile> walkPolicyTree(final Path policyRootDir, final Bundle bundle) {
+        final List<PolicyFile> policyFiles = new ArrayList<>();
+        final Deque<Folder> folders = new ArrayDeque<>();
+        try {
+            // links are followed, like listing the directories did
+            Files.walkFileTree(policyRootDir, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    final String path = dir.equals(policyRootDir) ? "" : unixPathEndingWithSeparator(policyRootDir.relativize(dir));
+                    final Folder parentFolder = folders.peek();
+                    folders.push(bundle.getFolders().computeIfAbsent(path,
+                            key -> createFolder(dir.getFileName().toString(), key, parentFolder)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (!attrs.isDirectory() && policyConverterRegistry.isValidPolicyExtension(file.getFileName().toString())) {
+                        policyFiles.add(new PolicyFile(file, unixPath(policyRootDir.relativize(file)), folders.peek()));
                     }
+                    return FileVisitResult.CONTINUE;
                 }
-            }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    folders.pop();
+                    return super.postVisitDirectory(dir, exc);
+                }
+            });
+        } catch (IOException e) {
+            throw new ConfigLoadException("Could not read the policies in " + policyRootDir + ": " + e.getMessage(), e);
         }
+        return policyFiles;
     }
 
-    private Policy loadPolicy(final File policyFile, final File rootDir, Folder parentFolder, Bundle bundle) {
-        PolicyConverter policyConverter = policyConverterRegistry.getConverterFromFileName(policyFile.getName());
+    private Policy readPolicy(final PolicyFile policyFile, final Bundle bundle, final File rootDir) {
+        final String fileName = policyFile.file.getFileName().toString();
+        PolicyConverter policyConverter = policyConverterRegistry.getConverterFromFileName(fileName);
         Policy policy = new Policy();
-        policy.setPath(policyConverter.removeExtension(getPath(policyFile, rootDir)));
-        policy.setName(policyConverter.removeExtension(policyFile.getName()));
-        policy.setParentFolder(parentFolder);
-        policy.setGuid(idGenerator.generateGuid());
-        policy.setId(idGenerator.generate());
+        policy.setPath(policyConverter.removeExtension(policyFile.path));
+        policy.setName(policyConverter.removeExtension(fileName));
+        policy.setParentFolder(policyFile.parentFolder);
 
-        policy.setPolicyXML(policyConverter.getPolicyXML(policy, fileUtils.getFileAsString(policyFile)));
+        policy.setPolicyXML(policyConverter.getPolicyXML(policy, fileUtils.getFileAsString(policyFile.file.toFile())));
         policy.postLoad(policy.getPath(), bundle, rootDir, this.idGenerator);
         return policy;
     }
@@ -125,4 +169,19 @@ public class PolicyAndFolderLoader implements EntityLoader {
     public String getEntityType() {
         return "POLICY";
     }
+
+    /**
+     * A policy file found in the policy tree.
+     */
+    private static final class PolicyFile {
+        private final Path file;
+        private final String path;
+        private final Folder parentFolder;
+
+        private PolicyFile(final Path file, final String path, final Folder parentFolder) {
+            this.file = file;
+            this.path = path;
+            this.parentFolder = parentFolder;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.beans.PropertiesEntity;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
 import com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils;
+import com.ca.apim.gateway.cagatewayconfig.util.file.ParsedFileCache;
 
 import java.io.File;
 import java.io.IOException;
@@ -26,8 +27,10 @@ import java.util.Properties;
  */
 public abstract class PropertiesLoaderBase<P extends PropertiesEntity> implements EntityLoader {
 
+    private static final int PROPERTIES_CACHE_SIZE = 16;
     private FileUtils fileUtils;
     private final IdGenerator idGenerator;
+    private final ParsedFileCache<Map<String, Object>> parsedProperties = new ParsedFileCache<>(PROPERTIES_CACHE_SIZE);
 
     PropertiesLoaderBase(final FileUtils fileUtils, final IdGenerator idGenerator) {
         this.fileUtils = fileUtils;
@@ -51,7 +54,8 @@ public abstract class PropertiesLoaderBase<P extends PropertiesEntity> implement
 
     @Override
     public Object loadSingle(String name, File entitiesFile) {
-        return load(entitiesFile).get(name);
+        // the values are looked up by name one at a time, so the file is only read again if it changes
+        return parsedProperties.get(entitiesFile, this::load).get(name);
     }
 
     @Override
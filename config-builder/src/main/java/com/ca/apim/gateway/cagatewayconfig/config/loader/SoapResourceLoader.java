@@ -112,7 +112,8 @@ public class SoapResourceLoader implements EntityLoader {
 
         soapResource.setPath(soapResourcePath);
         soapResource.setName(FilenameUtils.getBaseName(soapResourceName));
-        soapResource.setContent(fileUtils.getFileAsString(soapResourceFile));
+        // the content is read when the resource is added to a bundle, most resources of large projects never are
+        soapResource.setContentSource(() -> fileUtils.getFileAsString(soapResourceFile));
         soapResource.setTypeByExtension(FilenameUtils.getExtension(soapResourceFile.getName()));
 
         return soapResource;
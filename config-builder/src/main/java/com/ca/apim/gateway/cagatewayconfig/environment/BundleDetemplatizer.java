@@ -9,21 +9,43 @@ package com.ca.apim.gateway.cagatewayconfig.environment;
 import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.util.environment.EnvironmentConfigurationUtils;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.BinaryOperator;
-import java.util.function.UnaryOperator;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static com.ca.apim.gateway.cagatewayconfig.beans.IdentityProvider.INTERNAL_IDP_ID;
-import static com.ca.apim.gateway.cagatewayconfig.beans.IdentityProvider.INTERNAL_IDP_NAME;
-import static com.ca.apim.gateway.cagatewayconfig.util.policy.PolicyXMLElements.*;
 import static java.util.stream.Collectors.toMap;
 
+/**
+ * Replaces the environment references of a templatized bundle with the values of the environment bundle. The bundle is
+ * streamed from its reader to its writer in a single scan, holding only a window of it in memory. The same scan can
+ * hand the mappings of the bundle to a validator.
+ */
 class BundleDetemplatizer {
 
+    private static final String CONTEXT_VARIABLE_GROUP = "contextVariable";
+    private static final String SERVICE_PROPERTY_GROUP = "serviceProperty";
+    private static final String MAPPING_GROUP = "mapping";
+    // Base64 expressions of set context variable assertions, and service property values
+    private static final String ENVIRONMENT_REFERENCE_REGEX =
+            "L7p:Base64Expression ENV_PARAM_NAME=\\\"ENV\\.(?<" + CONTEXT_VARIABLE_GROUP + ">.+?)\\\"" +
+                    "|l7:StringValue>SERVICE_PROPERTY_ENV\\.(?<" + SERVICE_PROPERTY_GROUP + ">.+?)<";
+    private static final Pattern ENVIRONMENT_REFERENCE_PATTERN = Pattern.compile(ENVIRONMENT_REFERENCE_REGEX);
+    // the references, or a mapping element that has content
+    private static final Pattern BUNDLE_SCAN_PATTERN = Pattern.compile(ENVIRONMENT_REFERENCE_REGEX +
+            "|(?<" + MAPPING_GROUP + "><l7:Mapping\\s[^>]*(?<!/)>(?s:.*?)</l7:Mapping>)");
+    private static final int WINDOW_SIZE = 64 * 1024;
+
     private final Bundle bundle;
 
     BundleDetemplatizer(Bundle bundle) {
@@ -31,43 +53,131 @@ class BundleDetemplatizer {
     }
 
     CharSequence detemplatizeBundleString(CharSequence bundleString) {
+        final StringWriter detemplatizedBundle = new StringWriter(bundleString.length());
+        try {
+            detemplatizeBundle(new StringReader(bundleString.toString()), detemplatizedBundle);
+        } catch (IOException e) {
+            // strings are not expected to fail reading or writing
+            throw new UncheckedIOException(e);
+        }
+        return detemplatizedBundle.toString();
+    }
+
+    /**
+     * Writes the bundle read from the reader to the writer with its environment references replaced. Text is kept in
+     * memory only as long as it may be part of a reference, so the memory used does not depend on the bundle size.
+     *
+     * @param bundleReader reads the templatized bundle
+     * @param bundleWriter receives the detemplatized bundle
+     * @throws IOException                if the bundle cannot be read or written
+     * @throws BundleDetemplatizeException if the environment bundle does not have a value that is referenced
+     */
+    void detemplatizeBundle(Reader bundleReader, Writer bundleWriter) throws IOException {
+        final List<String> missingEnvironment = new ArrayList<>();
+        detemplatizeBundle(bundleReader, bundleWriter, mapping -> {}, missingEnvironment);
+        if (!missingEnvironment.isEmpty()) {
+            throw new BundleDetemplatizeException(String.join(System.lineSeparator(), missingEnvironment));
+        }
+    }
+
+    /**
+     * Writes the bundle read from the reader to the writer with its environment references replaced, and hands each
+     * mapping element with content to the mapping validator. A reference without a value does not stop the scan, it
+     * is added to the missing environment and left unchanged, so that all the missing environment of the bundle can be
+     * reported at once.
+     *
+     * @param bundleReader       reads the templatized bundle
+     * @param bundleWriter       receives the detemplatized bundle
+     * @param mappingValidator   receives the xml of each mapping element with content
+     * @param missingEnvironment receives the description of the references without a value
+     * @throws IOException if the bundle cannot be read or written
+     */
+    void detemplatizeBundle(Reader bundleReader, Writer bundleWriter, Consumer<String> mappingValidator, List<String> missingEnvironment) throws IOException {
         //prefer to use string replacement instead of loading and parsing the bundle. This should perform faster and we are only replacing a limited amount of the bundle so it should be OK to do so.
         Map<String, String> contextVariableEnvironmentVariables = bundle.getContextVariableEnvironmentProperties().entrySet().stream().collect(toMap(Entry::getKey, e -> e.getValue().getValue()));
         Map<String, String> serviceEnvironmentVariables = bundle.getServiceEnvironmentProperties().entrySet().stream().collect(toMap(Entry::getKey, e -> e.getValue().getValue()));
 
-        //Replaces variables in set context variable assertions
-        bundleString = replaceVariableInBundle(bundleString, contextVariableEnvironmentVariables,
-                "L7p:Base64Expression ENV_PARAM_NAME=\\\"ENV\\.(.+?)\\\"",
-                v -> "L7p:Base64Expression stringValue=\"" + Base64.getEncoder().encodeToString(v.getBytes()) + "\"");
+        final StringBuilder window = new StringBuilder(WINDOW_SIZE);
+        final char[] chunk = new char[WINDOW_SIZE];
+        final Matcher matcher = BUNDLE_SCAN_PATTERN.matcher(window);
+        boolean endOfBundle = false;
+        while (!endOfBundle) {
+            final int read = bundleReader.read(chunk);
+            endOfBundle = read < 0;
+            if (!endOfBundle) {
+                window.append(chunk, 0, read);
+            }
+
+            matcher.reset(window);
+            int written = 0;
+            while (matcher.find() && (endOfBundle || !matcher.hitEnd())) {
+                bundleWriter.append(window, written, matcher.start());
+                final String mapping = matcher.group(MAPPING_GROUP);
+                if (mapping != null) {
+                    mappingValidator.accept(mapping);
+                    bundleWriter.write(replaceReferences(mapping, contextVariableEnvironmentVariables, serviceEnvironmentVariables, missingEnvironment));
+                } else {
+                    bundleWriter.write(replacement(matcher, contextVariableEnvironmentVariables, serviceEnvironmentVariables, missingEnvironment));
+                }
+                written = matcher.end();
+            }
+
+            // keep the text that more of the bundle may turn into a reference
+            final int kept = endOfBundle ? window.length() : startOfPartialReference(matcher, window, written);
+            bundleWriter.append(window, written, kept);
+            window.delete(0, kept);
+        }
+    }
+
+    private static String replaceReferences(String text, Map<String, String> contextVariableEnvironmentVariables, Map<String, String> serviceEnvironmentVariables, List<String> missingEnvironment) {
+        final Matcher matcher = ENVIRONMENT_REFERENCE_PATTERN.matcher(text);
+        final StringBuilder replaced = new StringBuilder(text.length());
+        int written = 0;
+        while (matcher.find()) {
+            replaced.append(text, written, matcher.start())
+                    .append(replacement(matcher, contextVariableEnvironmentVariables, serviceEnvironmentVariables, missingEnvironment));
+            written = matcher.end();
+        }
+        return replaced.append(text, written, text.length()).toString();
+    }
 
+    private static String replacement(Matcher matcher, Map<String, String> contextVariableEnvironmentVariables, Map<String, String> serviceEnvironmentVariables, List<String> missingEnvironment) {
+        final String contextVariable = matcher.group(CONTEXT_VARIABLE_GROUP);
+        final String value;
+        if (contextVariable != null) {
+            //Replaces variables in set context variable assertions
+            value = getEnvironmentValue(contextVariableEnvironmentVariables, contextVariable, missingEnvironment);
+            return value == null ? matcher.group() : "L7p:Base64Expression stringValue=\"" + Base64.getEncoder().encodeToString(value.getBytes()) + "\"";
+        }
         //Replaces service property variables
-        bundleString = replaceVariableInBundle(bundleString, serviceEnvironmentVariables,
-                "l7:StringValue>SERVICE_PROPERTY_ENV\\.(.+?)<",
-                v -> "l7:StringValue>" + v + "<").toString();
-        return bundleString;
+        value = getEnvironmentValue(serviceEnvironmentVariables, matcher.group(SERVICE_PROPERTY_GROUP), missingEnvironment);
+        return value == null ? matcher.group() : "l7:StringValue>" + value + "<";
     }
 
-    private StringBuffer replaceVariableInBundle(CharSequence bundle, Map<String, String> mapToCheck, String variableFinderRegex, UnaryOperator<String> replacementFunction) {
-        return this.replaceVariableInBundle(bundle, mapToCheck, variableFinderRegex, (varName, value) -> replacementFunction.apply(value));
+    private static String getEnvironmentValue(Map<String, String> mapToCheck, String varName, List<String> missingEnvironment) {
+        String value = mapToCheck.get(EnvironmentConfigurationUtils.extractEntityName(varName));
+        if (value == null) {
+            missingEnvironment.add("Missing environment value for property: " + varName);
+        }
+        return value;
     }
 
-    private StringBuffer replaceVariableInBundle(CharSequence bundle, Map<String, String> mapToCheck, String variableFinderRegex, BinaryOperator<String> replacementFunction) {
-        Pattern setVariablePattern;
-        Matcher setVariableMatcher;
-        setVariablePattern = Pattern.compile(variableFinderRegex);
-        setVariableMatcher = setVariablePattern.matcher(bundle);
-
-        StringBuffer replacedBundle = new StringBuffer();
-        while (setVariableMatcher.find()) {
-            String varName = setVariableMatcher.group(1);
-            String value = mapToCheck.get(EnvironmentConfigurationUtils.extractEntityName(varName));
-            if (value == null) {
-                throw new BundleDetemplatizeException("Missing environment value for property: " + varName);
+    /**
+     * Finds where the earliest reference that may continue past the end of the window starts, or returns the end of
+     * the window if there is none.
+     */
+    private static int startOfPartialReference(Matcher matcher, CharSequence window, int from) {
+        final int end = window.length();
+        for (int start = from; start < end; start++) {
+            final char c = window.charAt(start);
+            // the references start with an 'L' or an 'l', mappings with a '<'
+            if (c == 'L' || c == 'l' || c == '<') {
+                matcher.region(start, end);
+                if (matcher.lookingAt() || matcher.hitEnd()) {
+                    return start;
+                }
             }
-            setVariableMatcher.appendReplacement(replacedBundle, replacementFunction.apply(varName, value));
         }
-        setVariableMatcher.appendTail(replacedBundle);
-        return replacedBundle;
+        return end;
     }
-
 }
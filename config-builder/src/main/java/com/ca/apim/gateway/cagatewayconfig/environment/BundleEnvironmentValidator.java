@@ -16,6 +16,7 @@ import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -51,12 +52,55 @@ class BundleEnvironmentValidator {
 
         Element mappingElement = getSingleChildElement(deploymentBundleDocument.getDocumentElement(), MAPPINGS);
         List<Element> mappingElements = getChildElements(mappingElement, MAPPING);
-        mappingElements.forEach(mapping -> {
-            Element propertiesElement = getSingleChildElement(mapping, PROPERTIES, true);
-            if (propertiesElement != null) {
+        List<String> missingEnvironment = new ArrayList<>();
+        mappingElements.forEach(mapping -> validateMapping(mode, mapping, missingEnvironment));
+        if (!missingEnvironment.isEmpty()) {
+            throw new MissingEnvironmentException(missingEnvironmentReport(bundleName, missingEnvironment));
+        }
+    }
+
+    /**
+     * Validate that the environment required by a single mapping of a deployment bundle is available in the
+     * environment bundle. Missing environment is added to the list rather than reported right away, so that all of it
+     * can be reported at once.
+     *
+     * @param bundleName         The name of the bundle the mapping is in
+     * @param mapping            The xml of the mapping element
+     * @param mode               The generation mode, where its coming from.
+     * @param missingEnvironment Receives the description of the missing environment
+     */
+    void validateMapping(String bundleName, String mapping, EnvironmentBundleCreationMode mode, List<String> missingEnvironment) {
+        Element mappingElement;
+        try {
+            mappingElement = documentTools.parse(mapping).getDocumentElement();
+        } catch (DocumentParseException e) {
+            throw new DeploymentBundleException("Unable to parse mapping of deployment bundle: " + bundleName);
+        }
+        validateMapping(mode, mappingElement, missingEnvironment);
+    }
+
+    private void validateMapping(EnvironmentBundleCreationMode mode, Element mapping, List<String> missingEnvironment) {
+        Element propertiesElement = getSingleChildElement(mapping, PROPERTIES, true);
+        if (propertiesElement != null) {
+            try {
                 validateElement(mode, mapping, propertiesElement);
+            } catch (MissingEnvironmentException e) {
+                missingEnvironment.add(e.getMessage());
             }
-        });
+        }
+    }
+
+    /**
+     * @param bundleName         The name of the bundle
+     * @param missingEnvironment The description of each missing environment value
+     * @return the description of all the environment missing for the bundle
+     */
+    static String missingEnvironmentReport(String bundleName, List<String> missingEnvironment) {
+        if (missingEnvironment.size() == 1) {
+            return missingEnvironment.get(0);
+        }
+        return "Deployment bundle " + bundleName + " is missing " + missingEnvironment.size() + " environment values:"
+                + System.lineSeparator() + String.join(System.lineSeparator(), missingEnvironment);
     }
 
     private void validateElement(EnvironmentBundleCreationMode mode, Element mapping, Element propertiesElement) {
@@ -12,6 +12,7 @@ import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleArtifacts;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleEntityBuilder;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder;
 import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.FileTemplatizedBundle;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
@@ -22,6 +23,7 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.File;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -59,6 +61,24 @@ public class EnvironmentBundleCreator {
                                           String environmentConfigurationFolderPath,
                                           EnvironmentBundleCreationMode mode,
                                           String envInstallBundleFilename, ProjectInfo projectInfo) {
+        return createEnvironmentBundle(environmentProperties, bundleFolderPath, templatizedBundleFolderPath,
+                environmentConfigurationFolderPath, mode, envInstallBundleFilename, projectInfo,
+                ParallelExecutor.getParallelism());
+    }
+
+    /**
+     * Creates the environment bundle and writes the detemplatized deployment bundles next to it.
+     *
+     * @param bundleParallelism the number of deployment bundles detemplatized at the same time
+     * @return the environment bundle
+     */
+    public Bundle createEnvironmentBundle(Map<String, String> environmentProperties,
+                                          String bundleFolderPath,
+                                          String templatizedBundleFolderPath,
+                                          String environmentConfigurationFolderPath,
+                                          EnvironmentBundleCreationMode mode,
+                                          String envInstallBundleFilename, ProjectInfo projectInfo,
+                                          int bundleParallelism) {
         Bundle environmentBundle = new Bundle(projectInfo);
         environmentBundleBuilder.build(environmentBundle, environmentProperties, environmentConfigurationFolderPath, mode);
 
@@ -67,7 +87,8 @@ public class EnvironmentBundleCreator {
                 environmentBundle,
                 collectTemplatizedBundleFiles(templatizedBundleFolderPath, mode, bundleFolderPath),
                 mode,
-                true);
+                true,
+                bundleParallelism);
 
         // write the Environment bundle
         final DocumentBuilder documentBuilder = documentTools.getDocumentBuilder();
@@ -77,9 +98,9 @@ public class EnvironmentBundleCreator {
         Map<String, BundleArtifacts> bundleElements = bundleEntityBuilder.build(environmentBundle,
                 EntityBuilder.BundleType.ENVIRONMENT, document, projectInfo, true);
         for (BundleArtifacts bundleArtifacts : bundleElements.values()) {
-            documentFileUtils.createFile(bundleArtifacts.getInstallBundle().getElement(), new File(bundleFolderPath,
+            documentFileUtils.createFile(bundleArtifacts.getInstallBundle(), new File(bundleFolderPath,
                     envInstallBundleFilename).toPath());
-            documentFileUtils.createFile(bundleArtifacts.getDeleteBundle().getElement(), new File(bundleFolderPath,
+            documentFileUtils.createFile(bundleArtifacts.getDeleteBundle(), new File(bundleFolderPath,
                     envInstallBundleFilename.replace(INSTALL_BUNDLE_EXTENSION, DELETE_BUNDLE_EXTENSION)).toPath());
             jsonFileUtils.createBundleMetadataFile(bundleArtifacts.getBundleMetadata(), envInstallBundleFilename.replace(INSTALL_BUNDLE_EXTENSION, ""), new File(bundleFolderPath));
             if (!bundleArtifacts.getPrivateKeyContexts().isEmpty()) {
@@ -94,8 +115,10 @@ public class EnvironmentBundleCreator {
     private List<TemplatizedBundle> collectTemplatizedBundleFiles(String templatizedBundleFolderPath,
                                                                   EnvironmentBundleCreationMode mode, String bundleFolderPath) {
         final String extension = mode != PLUGIN ? BUNDLE_EXTENSION : "-policy" + INSTALL_BUNDLE_EXTENSION;
+        // sorted so that the bundles are processed and their failures reported in the same order on every run
         return collectFiles(templatizedBundleFolderPath, extension).stream()
                 .filter(file -> !StringUtils.endsWithIgnoreCase(file.getName(), DELETE_BUNDLE_EXTENSION))
+                .sorted(Comparator.comparing(File::getName))
                 .map(f -> new FileTemplatizedBundle(f, new File(bundleFolderPath, f.getName())))
                 .collect(toList());
     }
@@ -10,12 +10,15 @@ import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleLoadException;
 import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleLoadingOperation;
 import com.ca.apim.gateway.cagatewayconfig.bundle.loader.EntityBundleLoader;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import org.w3c.dom.Element;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,6 +26,8 @@ import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.IN
 import static com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils.collectFiles;
 import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
 import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.getSingleChildElementTextContent;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
 /**
  * Utility methods for generating bundles with environment configurations.
@@ -60,13 +65,65 @@ public class EnvironmentBundleUtils {
                                          List<TemplatizedBundle> templatizedBundles,
                                          EnvironmentBundleCreationMode mode,
                                          boolean detemplatize) {
+        processDeploymentBundles(environmentBundle, templatizedBundles, mode, detemplatize, ParallelExecutor.getParallelism());
+    }
+
+    /**
+     * Validates and detemplatizes the deployment bundles, processing up to the given number of bundles at the same
+     * time. Every bundle is processed even if others fail. The failures are reported together once all bundles are
+     * done, in the order of the bundles, so the report does not depend on which bundle finished first.
+     *
+     * @param environmentBundle  the environment the bundles are validated against
+     * @param templatizedBundles the bundles to process, each one writes its own output
+     * @param mode               the generation mode
+     * @param detemplatize       false to leave the bundles untouched
+     * @param parallelism        the number of bundles processed at the same time, 1 to process them one after the other
+     */
+    static void processDeploymentBundles(Bundle environmentBundle,
+                                         List<TemplatizedBundle> templatizedBundles,
+                                         EnvironmentBundleCreationMode mode,
+                                         boolean detemplatize,
+                                         int parallelism) {
         if (!detemplatize) {
             return;
         }
 
         BundleEnvironmentValidator bundleEnvironmentValidator = new BundleEnvironmentValidator(environmentBundle);
         BundleDetemplatizer bundleDetemplatizer = new BundleDetemplatizer(environmentBundle);
-        templatizedBundles.forEach(tb -> processTemplatizedBundle(tb, bundleEnvironmentValidator, bundleDetemplatizer, mode));
+        final int threads = Math.min(parallelism, templatizedBundles.size());
+        if (threads > 1) {
+            logger.log(Level.FINE, "Processing {0} deployment bundles with {1} threads", new Object[]{templatizedBundles.size(), threads});
+        }
+        final List<RuntimeException> failures;
+        try (ParallelExecutor executor = new ParallelExecutor(threads)) {
+            // the failure of each bundle is returned rather than thrown, so the other bundles are still processed
+            failures = executor.map(templatizedBundles, tb -> {
+                try {
+                    processTemplatizedBundle(tb, bundleEnvironmentValidator, bundleDetemplatizer, mode);
+                    return null;
+                } catch (RuntimeException e) {
+                    return e;
+                }
+            });
+        }
+        reportFailures(failures.stream().filter(Objects::nonNull).collect(toList()));
+    }
+
+    /**
+     * Throws the failure of a single bundle as is. Missing environment of several bundles is reported in one
+     * exception, any other failures are attached to the first one.
+     */
+    private static void reportFailures(List<RuntimeException> failures) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        if (failures.size() > 1 && failures.stream().allMatch(MissingEnvironmentException.class::isInstance)) {
+            throw new MissingEnvironmentException(failures.size() + " deployment bundles are missing environment values:"
+                    + System.lineSeparator() + failures.stream().map(Throwable::getMessage).collect(joining(System.lineSeparator())));
+        }
+        final RuntimeException failure = failures.get(0);
+        failures.subList(1, failures.size()).forEach(failure::addSuppressed);
+        throw failure;
     }
 
     private static void processTemplatizedBundle(TemplatizedBundle templatizedBundle,
@@ -74,14 +131,19 @@ public class EnvironmentBundleUtils {
                                                  BundleDetemplatizer bundleDetemplatizer,
                                                  EnvironmentBundleCreationMode mode) {
         logger.log(Level.FINE, () -> "Processing deployment bundle: " + templatizedBundle.getName());
-        String bundleString = templatizedBundle.getContents();
-
-        // check deployment bundles to validated that all required environment is provided.
-        bundleEnvironmentValidator.validateEnvironmentProvided(templatizedBundle.getName(), bundleString, mode);
-
-        // detempatize bundle
-        CharSequence detemplatizedBundle = bundleDetemplatizer.detemplatizeBundleString(bundleString);
-        templatizedBundle.writeContents(detemplatizedBundle.toString());
+        final String bundleName = templatizedBundle.getName();
+
+        // check deployment bundles to validated that all required environment is provided, and detemplatize them in
+        // the same pass. The bundles are streamed to their new contents, which are discarded if any environment is missing
+        templatizedBundle.transformContents((contents, newContents) -> {
+            final List<String> missingEnvironment = new ArrayList<>();
+            bundleDetemplatizer.detemplatizeBundle(contents, newContents,
+                    mapping -> bundleEnvironmentValidator.validateMapping(bundleName, mapping, mode, missingEnvironment),
+                    missingEnvironment);
+            if (!missingEnvironment.isEmpty()) {
+                throw new MissingEnvironmentException(BundleEnvironmentValidator.missingEnvironmentReport(bundleName, missingEnvironment));
+            }
+        });
     }
 
     @VisibleForTesting
@@ -9,7 +9,8 @@ package com.ca.apim.gateway.cagatewayconfig.environment;
 import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
 import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.*;
-import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.StringTemplatizedBundle;
+import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleItemReader;
+import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.FileTemplatizedBundle;
 import com.ca.apim.gateway.cagatewayconfig.util.bundle.DependencyBundlesProcessor;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils;
@@ -19,6 +20,8 @@ import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.XmlEventWriter;
+import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -32,11 +35,15 @@ import javax.inject.Singleton;
 import javax.xml.parsers.DocumentBuilder;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.GATEWAY_MANAGEMENT;
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder.L7;
 import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleCreationMode.PLUGIN;
 import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleUtils.*;
 import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.*;
@@ -44,12 +51,8 @@ import static com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils.collectFil
 import static com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils.METADATA_FILE_NAME_SUFFIX;
 import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
 import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
-import static java.nio.charset.Charset.defaultCharset;
-import static java.util.Collections.singletonList;
-import static java.util.stream.Collectors.toList;
 import static org.apache.commons.collections4.ListUtils.union;
-import static org.apache.commons.io.FileUtils.writeStringToFile;
-import static org.apache.commons.lang3.SystemUtils.JAVA_IO_TMPDIR;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
 
 /**
  * This combines the environment bundle generation with the deployment bundle generation and outputs one single full bundle
@@ -59,6 +62,7 @@ import static org.apache.commons.lang3.SystemUtils.JAVA_IO_TMPDIR;
 public class FullBundleCreator {
 
     private static final Logger LOGGER = Logger.getLogger(FullBundleCreator.class.getName());
+    private static final int ITEMS_PER_BATCH = 64;
 
     private final DocumentTools documentTools;
     private final EnvironmentBundleBuilder environmentBundleBuilder;
@@ -67,6 +71,7 @@ public class FullBundleCreator {
     private final DependencyBundlesProcessor dependencyBundlesProcessor;
     private final DocumentFileUtils documentFileUtils;
     private final JsonFileUtils jsonFileUtils;
+    private final BundleItemReader itemReader;
 
     @Inject
     FullBundleCreator(DocumentTools documentTools,
@@ -81,35 +86,29 @@ public class FullBundleCreator {
         this.dependencyBundlesProcessor = dependencyBundlesProcessor;
         this.documentFileUtils = documentFileUtils;
         this.jsonFileUtils = jsonFileUtils;
+        this.itemReader = new BundleItemReader(documentTools);
     }
 
     public void createFullBundle(final Pair<String, Map<String, String>> bundleEnvironmentValues, final List<File> dependentBundles,
                                  String bundleFolderPath, ProjectInfo projectInfo,
                                  String fullInstallBundleFilename, String environmentConfigurationFolderPath,
                                  boolean detemplatizeDeploymentBundles) {
-        final BundleArtifacts fullBundleArtifacts = createFullAndDeleteBundles(bundleEnvironmentValues,
-                dependentBundles, bundleFolderPath, environmentConfigurationFolderPath, detemplatizeDeploymentBundles
-                , projectInfo, fullInstallBundleFilename);
-        final String bundle = documentTools.elementToString(fullBundleArtifacts.getInstallBundle().getElement());
-        // write the full bundle to a temporary file first
-        final File fullBundleFile = new File(System.getProperty(JAVA_IO_TMPDIR), fullInstallBundleFilename);
+        // the detemplatized bundles are written to a temporary folder, to be streamed into the full bundle
+        final File detemplatizedBundlesFolder = createTemporaryFolder();
+        final BundleArtifacts fullBundleArtifacts;
         try {
-            writeStringToFile(fullBundleFile, bundle, defaultCharset());
-        } catch (IOException e) {
-            throw new DocumentFileUtilsException("Error writing to file '" + fullInstallBundleFilename + "': " + e.getMessage(), e);
+            fullBundleArtifacts = createFullAndDeleteBundles(bundleEnvironmentValues, dependentBundles,
+                    bundleFolderPath, environmentConfigurationFolderPath, detemplatizeDeploymentBundles, projectInfo,
+                    fullInstallBundleFilename, detemplatizedBundlesFolder);
+        } finally {
+            if (!deleteQuietly(detemplatizedBundlesFolder)) {
+                LOGGER.log(Level.WARNING, () -> "Temporary bundle folder was not deleted: " + detemplatizedBundlesFolder);
+            }
         }
 
-        // process for reattaching loose encasses and write to the final path
-        dependencyBundlesProcessor.process(singletonList(fullBundleFile), bundleFolderPath);
-
         final String fullDeleteBundleFilename = fullInstallBundleFilename.replace(INSTALL_BUNDLE_EXTENSION, DELETE_BUNDLE_EXTENSION);
         documentFileUtils.createFile(fullBundleArtifacts.getDeleteBundle().getElement(), new File(bundleFolderPath,
                 fullDeleteBundleFilename).toPath());
-        // delete the temp file
-        boolean deleted = fullBundleFile.delete();
-        if (!deleted) {
-            LOGGER.log(Level.WARNING, () -> "Temporary bundle file was not deleted: " + fullBundleFile.toString());
-        }
 
         // remove environment bundle from metadata's dependencies section
         Map<String, Object> bundleMetadata = jsonFileUtils.readBundleMetadataFile(bundleFolderPath, bundleEnvironmentValues.getLeft());
@@ -167,7 +166,7 @@ public class FullBundleCreator {
                                                        List<File> dependentBundles, String bundleFolderPath,
                                                        String environmentConfigurationFolderPath,
                                                        boolean detemplatizeDeploymentBundles, ProjectInfo projectInfo,
-                                                       String fullInstallBundleFilename) {
+                                                       String fullInstallBundleFilename, File detemplatizedBundlesFolder) {
         final Map<String, String> environmentProperties = bundleEnvironmentValues.getRight();
         final List<File> deploymentBundles = collectFiles(bundleFolderPath,
                 bundleEnvironmentValues.getLeft() + INSTALL_BUNDLE_EXTENSION);
@@ -175,8 +174,20 @@ public class FullBundleCreator {
                 bundleEnvironmentValues.getLeft() + DELETE_BUNDLE_EXTENSION);
         final List<File> bundleFiles = union(deploymentBundles, dependentBundles);
 
-        // load all deployment bundles to strings
-        List<TemplatizedBundle> templatizedBundles = bundleFiles.stream().map(f -> new StringTemplatizedBundle(f.getName(), fileUtils.getFileAsString(f))).collect(toList());
+        // each detemplatized bundle goes to its own folder, the deployment and dependency bundles may have the same name
+        final List<TemplatizedBundle> templatizedBundles = new ArrayList<>();
+        final List<File> mergedBundleFiles = new ArrayList<>();
+        for (int i = 0; i < bundleFiles.size(); i++) {
+            final File bundleFile = bundleFiles.get(i);
+            if (detemplatizeDeploymentBundles) {
+                final File detemplatizedBundleFile = new File(new File(detemplatizedBundlesFolder, String.valueOf(i)), bundleFile.getName());
+                createDirectory(detemplatizedBundleFile.getParentFile());
+                templatizedBundles.add(new FileTemplatizedBundle(bundleFile, detemplatizedBundleFile));
+                mergedBundleFiles.add(detemplatizedBundleFile);
+            } else {
+                mergedBundleFiles.add(bundleFile);
+            }
+        }
 
         // generate the environment one
         Bundle environmentBundle = new Bundle(projectInfo);
@@ -190,43 +201,104 @@ public class FullBundleCreator {
         final Document document = documentBuilder.newDocument();
         Map<String, BundleArtifacts> bundleElements = bundleEntityBuilder.build(environmentBundle,
                 EntityBuilder.BundleType.ENVIRONMENT, document, projectInfo);
-        Element bundleElement = createFullBundleElement(bundleElements, templatizedBundles, document);
+        Element bundleElement = null;
+        for (Map.Entry<String, BundleArtifacts> entry : bundleElements.entrySet()) {
+            bundleElement = entry.getValue().getInstallBundle().getElement();
+        }
+        writeFullBundle(bundleElement, mergedBundleFiles, new File(bundleFolderPath, fullInstallBundleFilename));
         Element deleteBundleElement = createDeleteBundleElement(bundleElements, deploymentDeleteBundle, dependentBundles, document);
 
+        // the full install bundle is already written, only its delete bundle and private keys are left
         String fullDeleteBundleFilename = fullInstallBundleFilename.replace(INSTALL_BUNDLE_EXTENSION, DELETE_BUNDLE_EXTENSION);
-        BundleArtifacts fullBundleArtifacts = new BundleArtifacts(bundleElement, deleteBundleElement, null,
+        BundleArtifacts fullBundleArtifacts = new BundleArtifacts(null, deleteBundleElement, null,
                 fullInstallBundleFilename, fullDeleteBundleFilename);
         bundleEntityBuilder.addPrivateKeyContexts(environmentBundle, projectInfo, fullBundleArtifacts, document);
         return fullBundleArtifacts;
     }
 
-    private Element createFullBundleElement(final Map<String, BundleArtifacts> bundleElements, final List<TemplatizedBundle> templatizedBundles, final Document document) {
-        Element bundleElement = null;
-        for (Map.Entry<String, BundleArtifacts> entry : bundleElements.entrySet()) {
-            // generate the environment bundle
-            bundleElement = entry.getValue().getInstallBundle().getElement();
-            Element referencesElement = getSingleChildElement(bundleElement, REFERENCES);
-            Element mappingsElement = getSingleChildElement(bundleElement, MAPPINGS);
+    /**
+     * Writes the full bundle: the environment bundle with the items and mappings of the deployment and dependency
+     * bundles merged into it. The bundles are streamed item by item into the full bundle file, and the policies are
+     * pointed to the encasses of the dependency bundles on the way, so the full bundle is never held in memory or read
+     * back. Only the mappings are kept until all the items are written.
+     */
+    private void writeFullBundle(final Element environmentBundleElement, final List<File> bundleFiles, final File fullBundleFile) {
+        // the entities the policies may reference are loaded first, skipping the repeated items left out of the full bundle
+        final Set<String> loadedItems = new HashSet<>();
+        final Bundle dependencies = dependencyBundlesProcessor.loadDependencies(bundleFiles, item -> loadedItems.add(buildBundleItemKey(item)));
+
+        try (OutputStream outputStream = Files.newOutputStream(fullBundleFile.toPath())) {
+            final XmlEventWriter writer = documentTools.createXmlEventWriter(outputStream);
+            writer.writeStartElement(BUNDLE, ImmutableMap.of(L7, GATEWAY_MANAGEMENT));
+            writer.writeStartElement(REFERENCES);
+            final List<Element> pendingItems = new ArrayList<>(ITEMS_PER_BATCH);
+            getChildElements(getSingleChildElement(environmentBundleElement, REFERENCES), ITEM).forEach(item ->
+                    addItem(item, pendingItems, dependencies, writer));
 
             // store Set of elements previously added so avoiding repetition in the resulting bundle
-            Set<String> addedItems = new HashSet<>();
-            Set<String> addedMappings = new HashSet<>();
-
-            // merge the deployment bundles into the environment one to get the full bundle
-            templatizedBundles.forEach(tb -> {
+            final Set<String> addedItems = new HashSet<>();
+            final Set<String> addedMappings = new HashSet<>();
+            final List<Element> mappings = new ArrayList<>(getChildElements(getSingleChildElement(environmentBundleElement, MAPPINGS), MAPPING));
+            for (File bundleFile : bundleFiles) {
                 try {
-                    final Element detemplatizedBundleElement = documentTools.parse(tb.getContents()).getDocumentElement();
-                    copyNodes(getSingleChildElement(detemplatizedBundleElement, REFERENCES), ITEM, document, referencesElement, item -> addedItems.add(buildBundleItemKey(item)));
-                    copyNodes(getSingleChildElement(detemplatizedBundleElement, MAPPINGS), MAPPING, document, mappingsElement, mapping -> {
+                    itemReader.read(bundleFile, type -> true, item -> {
+                        if (addedItems.add(buildBundleItemKey(item))) {
+                            addItem(item, pendingItems, dependencies, writer);
+                        }
+                    }, mapping -> {
                         final String key = buildBundleMappingKey(mapping);
-                        return addedItems.contains(key) && addedMappings.add(key);
+                        if (addedItems.contains(key) && addedMappings.add(key)) {
+                            mappings.add(mapping);
+                        }
                     });
                 } catch (DocumentParseException e) {
-                    throw new EntityBuilderException("Unable to read bundle " + tb.getName(), e);
+                    throw new EntityBuilderException("Unable to read bundle " + bundleFile.getName(), e);
                 }
-            });
+            }
+            writeItems(pendingItems, dependencies, writer);
+            writer.writeEndElement(REFERENCES);
+
+            writer.writeStartElement(MAPPINGS);
+            mappings.forEach(writer::writeNode);
+            writer.writeEndElement(MAPPINGS);
+            writer.writeEndElement(BUNDLE);
+            writer.close();
+        } catch (IOException e) {
+            throw new DocumentFileUtilsException("Error writing to file '" + fullBundleFile.getName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    private void addItem(final Element item, final List<Element> pendingItems, final Bundle dependencies, final XmlEventWriter writer) {
+        pendingItems.add(item);
+        if (pendingItems.size() == ITEMS_PER_BATCH) {
+            writeItems(pendingItems, dependencies, writer);
+        }
+    }
+
+    /**
+     * Writes the pending items once their policies are processed. The items are processed in batches so that their
+     * policies can be processed in parallel.
+     */
+    private void writeItems(final List<Element> pendingItems, final Bundle dependencies, final XmlEventWriter writer) {
+        dependencyBundlesProcessor.processItems(dependencies, pendingItems);
+        pendingItems.forEach(writer::writeNode);
+        pendingItems.clear();
+    }
+
+    private static File createTemporaryFolder() {
+        try {
+            return Files.createTempDirectory("full-bundle").toFile();
+        } catch (IOException e) {
+            throw new DocumentFileUtilsException("Error creating temporary folder: " + e.getMessage(), e);
+        }
+    }
+
+    private static void createDirectory(final File directory) {
+        try {
+            Files.createDirectories(directory.toPath());
+        } catch (IOException e) {
+            throw new DocumentFileUtilsException("Error creating folder '" + directory + "': " + e.getMessage(), e);
         }
-        return bundleElement;
     }
 
     private Element createDeleteBundleElement(final Map<String, BundleArtifacts> bundleElements, final List<File> deploymentDeleteBundles, final List<File> dependentBundles, final Document document) {
@@ -6,13 +6,16 @@
 
 package com.ca.apim.gateway.cagatewayconfig.environment;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collections;
 
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+
 /**
  * Represents a Templatized Deployment Bundle and provide read/write to its contents.
  */
@@ -24,11 +27,28 @@ interface TemplatizedBundle {
 
     void writeContents(String content);
 
+    /**
+     * Replaces the contents with the output of the transformer, which reads the current contents as a stream.
+     *
+     * @param transformer writes the new contents from the current ones
+     */
+    void transformContents(ContentsTransformer transformer);
+
+    /**
+     * Transforms the contents of a bundle from a reader to a writer.
+     */
+    @FunctionalInterface
+    interface ContentsTransformer {
+        void transform(Reader contents, Writer newContents) throws IOException;
+    }
+
     /**
      * Templatized bundle stored in the File System.
      */
     class FileTemplatizedBundle implements TemplatizedBundle {
 
+        private static final String TRANSFORMED_FILE_SUFFIX = ".transformed";
+
         private final File newFile;
         private final File originalFile;
 
@@ -55,6 +75,32 @@ interface TemplatizedBundle {
             }
         }
 
+        /**
+         * The new contents are streamed to a file next to the new file, which replaces it only once the
+         * transformation succeeds. The original file may be the new file itself, it is never truncated before it is
+         * read nor deleted when the transformation fails.
+         */
+        @Override
+        public void transformContents(ContentsTransformer transformer) {
+            final Path newPath = newFile.toPath();
+            // created like the new file would be, so the bundle keeps the permissions it would have been written with
+            final Path transformedPath = newPath.resolveSibling(newFile.getName() + TRANSFORMED_FILE_SUFFIX);
+            try {
+                try (Reader reader = Files.newBufferedReader(originalFile.toPath(), StandardCharsets.UTF_8);
+                     Writer writer = Files.newBufferedWriter(transformedPath, StandardCharsets.UTF_8)) {
+                    transformer.transform(reader, writer);
+                    // same ending as writeContents
+                    writer.write(System.lineSeparator());
+                }
+                Files.move(transformedPath, newPath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new BundleDetemplatizeException("Could not write detemplatized bundle to: " + newFile.getName(), e);
+            } finally {
+                // do not leave a partly written bundle
+                deleteQuietly(transformedPath.toFile());
+            }
+        }
+
         @Override
         public String getName() {
             return this.originalFile.getName();
@@ -84,6 +130,17 @@ interface TemplatizedBundle {
             this.bundleContents = content;
         }
 
+        @Override
+        public void transformContents(ContentsTransformer transformer) {
+            final StringWriter writer = new StringWriter(bundleContents.length());
+            try {
+                transformer.transform(new StringReader(bundleContents), writer);
+            } catch (IOException e) {
+                throw new BundleDetemplatizeException("Could not transform bundle: " + name, e);
+            }
+            this.bundleContents = writer.toString();
+        }
+
         @Override
         public String getName() {
             return name;
@@ -23,9 +23,12 @@ import org.w3c.dom.NodeList;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Spliterator;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.PolicyEntityBuilder.POLICY;
 import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.PolicyEntityBuilder.resolvePossibleMissingEncapsulatedAssertionDependencies;
@@ -34,6 +37,7 @@ import static com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes.FOLDER
 import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
 import static com.ca.apim.gateway.cagatewayconfig.util.policy.PolicyXMLElements.ENCAPSULATED;
 import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.StreamSupport.stream;
 import static org.apache.commons.lang3.StringUtils.equalsAny;
 
@@ -55,15 +59,14 @@ public class DependencyBundlesProcessor {
     }
 
     public LinkedList<File> process(final List<File> bundles, String bundleFolderPath) {
-        Bundle bundleObject = entityBundleLoader.load(bundles, BundleLoadingOperation.VALIDATE, ENCAPSULATED_ASSERTION_TYPE, EntityTypes.POLICY_TYPE, FOLDER_TYPE);
+        Bundle bundleObject = loadDependencies(bundles, item -> true);
         LinkedList<File> processedBundles = new LinkedList<>();
 
         for (File bundle : bundles) {
             Document document = parseBundleFile(bundle);
             Element bundleElement = document.getDocumentElement();
 
-            NodeList items = bundleElement.getElementsByTagName(ITEM);
-            processEncasses(bundleObject, items);
+            processEncasses(bundleObject, bundleElement.getElementsByTagName(ITEM));
 
             File processedBundle = writeProcessedBundle(bundle, bundleElement, bundleFolderPath);
             processedBundles.add(processedBundle);
@@ -72,6 +75,30 @@ public class DependencyBundlesProcessor {
         return processedBundles;
     }
 
+    /**
+     * Loads the entities of the bundles that the policies may depend on, to be used with {@link #processItems}.
+     *
+     * @param bundles    the bundle files
+     * @param itemFilter test for the items, items not accepted are not loaded
+     * @return the bundle with the loaded entities
+     */
+    public Bundle loadDependencies(final List<File> bundles, final Predicate<Element> itemFilter) {
+        return entityBundleLoader.load(bundles, BundleLoadingOperation.VALIDATE, itemFilter, ENCAPSULATED_ASSERTION_TYPE, EntityTypes.POLICY_TYPE, FOLDER_TYPE);
+    }
+
+    /**
+     * Applies the changes of {@link #process} to the given items and the items nested in them, so that a bundle can be
+     * processed while it is written.
+     *
+     * @param bundleObject the dependencies loaded by {@link #loadDependencies}
+     * @param items        the items to change
+     */
+    public void processItems(final Bundle bundleObject, final List<Element> items) {
+        final List<Element> allItems = new ArrayList<>(items);
+        items.forEach(item -> nodeList(item.getElementsByTagName(ITEM)).forEach(node -> allItems.add((Element) node)));
+        processEncasses(bundleObject, allItems);
+    }
+
     @NotNull
     private File writeProcessedBundle(File bundle, Element document, String bundleFolderPath) {
         File processedBundle = new File(new File(bundleFolderPath), bundle.getName());
@@ -90,22 +117,35 @@ public class DependencyBundlesProcessor {
     }
 
     private void processEncasses(Bundle bundleObject, NodeList items) {
-        stream(nodeList(items).spliterator(), false)
-                .map(node -> (Element) node)
+        processEncasses(bundleObject, stream(nodeList(items).spliterator(), false).map(node -> (Element) node).collect(toList()));
+    }
+
+    private void processEncasses(Bundle bundleObject, List<Element> items) {
+        // the bundle document is only read and written on this thread, the embedded policies are parsed into their
+        // own documents and serialized with the transformer of their thread, so they can be processed in parallel
+        final List<Element> policyResources = items.stream()
                 .filter(element -> equalsAny(getSingleChildElementTextContent(element, TYPE), EntityTypes.POLICY_TYPE, EntityTypes.SERVICE_TYPE))
-                .forEach(policyItem -> processPolicyItem(bundleObject, policyItem));
+                .flatMap(this::getPolicyResources)
+                .collect(toList());
+        final List<String> policyXMLs = policyResources.stream().map(Element::getTextContent).collect(toList());
+
+        final List<String> processedPolicyXMLs = policyXMLs.parallelStream()
+                .map(policyXML -> processPolicyDocument(policyXML, bundleObject))
+                .collect(toList());
+
+        for (int i = 0; i < policyResources.size(); i++) {
+            policyResources.get(i).setTextContent(processedPolicyXMLs.get(i));
+        }
     }
 
-    private void processPolicyItem(Bundle bundleObject, Element policyItem) {
+    private Stream<Element> getPolicyResources(Element policyItem) {
         Spliterator<Node> resources = nodeList(policyItem.getElementsByTagName(RESOURCE)).spliterator();
-        stream(resources, false)
+        return stream(resources, false)
                 .map(node -> (Element) node)
-                .filter(element -> POLICY.equals(element.getAttribute(ATTRIBUTE_TYPE)))
-                .forEach(policyResource -> processPolicyDocument(policyResource, bundleObject));
+                .filter(element -> POLICY.equals(element.getAttribute(ATTRIBUTE_TYPE)));
     }
 
-    private void processPolicyDocument(Element policyResource, Bundle bundleObject) {
-        String policyXML = policyResource.getTextContent();
+    private String processPolicyDocument(String policyXML, Bundle bundleObject) {
         Document policyDoc;
         try {
             policyDoc = stringToXMLDocument(documentTools, policyXML);
@@ -114,6 +154,6 @@ public class DependencyBundlesProcessor {
         }
 
         nodeList(policyDoc.getDocumentElement().getElementsByTagName(ENCAPSULATED)).forEach(node -> resolvePossibleMissingEncapsulatedAssertionDependencies(bundleObject, (Element) node));
-        policyResource.setTextContent(documentTools.elementToString(policyDoc.getDocumentElement()));
+        return documentTools.elementToString(policyDoc.getDocumentElement());
     }
 }
@@ -0,0 +1,17 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.concurrent;
+
+/**
+ * Error waiting for tasks run by a {@link ParallelExecutor}.
+ */
+public class ParallelExecutionException extends RuntimeException {
+
+    public ParallelExecutionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Runs the tasks of a build step on a fixed number of threads. The results are returned in the order of the tasks, so
+ * the output of the build does not depend on the order the tasks finish in. With a parallelism of 1 the tasks run one
+ * after the other on the calling thread, and no thread is started.
+ * <p>
+ * An instance can run the tasks of several steps, and is closed once they are done to stop its threads. Tasks must not
+ * wait for other tasks of the same instance.
+ */
+public final class ParallelExecutor implements AutoCloseable {
+
+    public static final String PARALLELISM_PROPERTY = "com.ca.apim.build.parallelism";
+    private static final int PARALLELISM_PROPERTY_DEFAULT = 1;
+
+    private final ExecutorService executor;
+
+    /**
+     * @param parallelism the number of tasks run at the same time, 1 to run them one after the other
+     */
+    public ParallelExecutor(final int parallelism) {
+        this.executor = parallelism > 1 ? Executors.newFixedThreadPool(parallelism) : null;
+    }
+
+    /**
+     * Returns system property parallelism value, the number of tasks of a build step run at the same time: annotated
+     * bundles built, entity builders of a concurrent stage, policies prepared, delta bundles written and deployment
+     * bundles detemplatized. Default is 1, running them one after the other.
+     * @return int, at least 1
+     */
+    public static int getParallelism() {
+        return Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY, PARALLELISM_PROPERTY_DEFAULT));
+    }
+
+    /**
+     * @return true if the tasks run at the same time
+     */
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Runs the task for each item and returns the results in the order of the items. If a task fails, the tasks not
+     * done yet are cancelled and the failure of the first failed item is thrown as is.
+     *
+     * @param items the items to run the task for
+     * @param task  the task, run concurrently for different items
+     * @return the result of each item
+     * @throws ParallelExecutionException if interrupted while waiting for the tasks
+     */
+    public <T, R> List<R> map(final Collection<? extends T> items, final Function<? super T, ? extends R> task) {
+        if (executor == null || items.size() <= 1) {
+            return items.stream().map(task).collect(toList());
+        }
+
+        final List<Future<? extends R>> futures = new ArrayList<>(items.size());
+        items.forEach(item -> futures.add(executor.submit(() -> task.apply(item))));
+        try {
+            final List<R> results = new ArrayList<>(futures.size());
+            for (Future<? extends R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new ParallelExecutionException("Task failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ParallelExecutionException("Interrupted while waiting for tasks", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -6,9 +6,11 @@
 
 package com.ca.apim.gateway.cagatewayconfig.util.file;
 
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleArtifacts.Artifact;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
 import org.w3c.dom.Element;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -22,6 +24,7 @@ public class DocumentFileUtils {
     private final DocumentTools documentTools;
     public static final String BUNDLE_EXTENSION = ".bundle";
     public static final String DELETE_BUNDLE_EXTENSION = ".delete.bundle";
+    public static final String DELTA_BUNDLE_EXTENSION = ".delta.bundle";
     public static final String INSTALL_BUNDLE_EXTENSION = ".install.bundle";
     public static final String PREFIX_ENVIRONMENT = "environment";
     public static final String PREFIX_FULL = "-full";
@@ -46,6 +49,24 @@ public class DocumentFileUtils {
         }
     }
 
+    /**
+     * Writes the artifact to the file, streaming it when possible instead of printing its element.
+     *
+     * @param artifact the bundle artifact to write
+     * @param path     the file to create
+     */
+    public void createFile(Artifact artifact, Path path) {
+        if (!artifact.isStreamable()) {
+            createFile(artifact.getElement(), path);
+            return;
+        }
+        try (OutputStream fos = new BufferedOutputStream(Files.newOutputStream(path))) {
+            artifact.write(fos);
+        } catch (IOException e) {
+            throw new DocumentFileUtilsException("Error writing to file '" + path + "': " + e.getMessage(), e);
+        }
+    }
+
     public synchronized void createFolder(Path folderPath) {
         if (!folderPath.toFile().exists()) {
             try {
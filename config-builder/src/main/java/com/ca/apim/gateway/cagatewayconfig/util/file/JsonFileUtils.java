@@ -9,7 +9,6 @@ package com.ca.apim.gateway.cagatewayconfig.util.file;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDefinedEntities;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleMetadata;
 import com.ca.apim.gateway.cagatewayconfig.util.json.JsonTools;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.type.MapType;
 
 import java.io.File;
@@ -80,8 +79,8 @@ public class JsonFileUtils {
 
     public <T> T readBundleMetadataFile(final File metaDataFile, Class<T> tClass) {
         try {
-            return jsonTools.getObjectMapper(YAML_EXTENSION).configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false).
-                    readValue(metaDataFile, tClass);
+            // unknown properties are already ignored by the mappers of JsonTools
+            return jsonTools.getObjectReader(YAML_EXTENSION, tClass).readValue(metaDataFile);
         } catch (IOException e) {
             throw new JsonFileUtilsException("Error reading the bundle metadata file " + metaDataFile.toString(), e);
         }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the parsed content of the files read most recently, so a configuration file looked up once per entity it holds
+ * is only parsed once. An entry is only used while the modification time and the size of its file are unchanged, so
+ * a file edited between two builds run by the same daemon is parsed again. The number of entries is bounded, the
+ * least recently used one is dropped first.
+ * <p>
+ * The parsed content is shared by all the callers and must not be modified. Instances are thread safe.
+ *
+ * @param <T> type of the parsed content
+ */
+public class ParsedFileCache<T> {
+
+    private final Map<Path, CachedContent<T>> entries;
+
+    /**
+     * @param maxEntries the maximum number of files kept
+     */
+    public ParsedFileCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<Path, CachedContent<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, CachedContent<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the parsed content of the file, parsing it if it is not cached or if it changed since it was parsed.
+     * Files whose attributes cannot be read are parsed every time, leaving the parser to report the error.
+     *
+     * @param file   the file to read
+     * @param parser parses the file
+     * @return the parsed content
+     */
+    public T get(final File file, final Function<File, T> parser) {
+        final Path path = file.toPath().toAbsolutePath().normalize();
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return parser.apply(file);
+        }
+
+        synchronized (entries) {
+            final CachedContent<T> cachedContent = entries.get(path);
+            if (cachedContent != null && cachedContent.isValid(attributes)) {
+                return cachedContent.content;
+            }
+        }
+        // parsed outside the lock, a file read by two threads at once may be parsed twice
+        final T content = parser.apply(file);
+        synchronized (entries) {
+            entries.put(path, new CachedContent<>(attributes, content));
+        }
+        return content;
+    }
+
+    private static final class CachedContent<T> {
+        private final FileTime lastModifiedTime;
+        private final long size;
+        private final T content;
+
+        private CachedContent(final BasicFileAttributes attributes, final T content) {
+            this.lastModifiedTime = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.content = content;
+        }
+
+        private boolean isValid(final BasicFileAttributes attributes) {
+            return lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
+}
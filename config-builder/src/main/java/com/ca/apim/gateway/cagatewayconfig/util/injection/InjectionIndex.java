@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.injection;
+
+import com.google.common.collect.Multimap;
+import org.jetbrains.annotations.Nullable;
+import org.reflections.Reflections;
+import org.reflections.Store;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Index of the types found by scanning an injection base package, generated when the plugin jar is built. It holds the
+ * entries of the {@link Reflections} store of the package, so an index read back answers the same type queries as a
+ * scan of the classpath without scanning it.
+ * <p>
+ * The index of a package is the resource {@code META-INF/gateway-developer-plugin/<package>.injection.index}. Each line
+ * maps a scanner index and a type to the types it records for it, for example the subtypes of a type.
+ */
+public class InjectionIndex {
+
+    private static final String INDEX_RESOURCE_FOLDER = "META-INF/gateway-developer-plugin/";
+    private static final String INDEX_RESOURCE_EXTENSION = ".injection.index";
+    private static final String KEY_SEPARATOR = "/";
+    private static final String VALUE_SEPARATOR = ",";
+
+    private InjectionIndex() {
+    }
+
+    /**
+     * Scans an injection base package and writes its index to an output folder. This runs from the build of the plugin
+     * jars.
+     *
+     * @param args the output folder and the base package to index
+     * @throws IOException if the index cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Expected the output folder and the base package to index");
+        }
+        final File indexFile = new File(args[0], getIndexResource(args[1]));
+        Files.createDirectories(indexFile.getParentFile().toPath());
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile), UTF_8)) {
+            write(new Reflections(args[1]), writer);
+        }
+    }
+
+    static String getIndexResource(String basePackage) {
+        return INDEX_RESOURCE_FOLDER + basePackage + INDEX_RESOURCE_EXTENSION;
+    }
+
+    /**
+     * Writes the store of the scan, sorted so that the same classes always give the same index.
+     */
+    static void write(Reflections reflections, Writer writer) throws IOException {
+        final Store store = reflections.getStore();
+        final BufferedWriter bufferedWriter = new BufferedWriter(writer);
+        for (String index : new TreeSet<>(store.keySet())) {
+            final Multimap<String, String> entries = store.get(index);
+            for (String key : new TreeSet<>(entries.keySet())) {
+                bufferedWriter.write(index + KEY_SEPARATOR + key + "=" + String.join(VALUE_SEPARATOR, new TreeSet<>(entries.get(key))));
+                bufferedWriter.newLine();
+            }
+        }
+        bufferedWriter.flush();
+    }
+
+    /**
+     * Reads the index of a base package into a {@link Reflections} instance. The indexes of all the jars that have
+     * one for the package are merged.
+     *
+     * @param basePackage the injection base package
+     * @param classLoader the class loader to find the index resources
+     * @return the reflections of the package, or null if there is no index for it
+     */
+    @Nullable
+    static Reflections load(String basePackage, ClassLoader classLoader) {
+        final Reflections reflections = new IndexedReflections();
+        boolean found = false;
+        try {
+            final Enumeration<URL> resources = classLoader.getResources(getIndexResource(basePackage));
+            while (resources.hasMoreElements()) {
+                final Properties entries = new Properties();
+                try (Reader reader = new InputStreamReader(resources.nextElement().openStream(), UTF_8)) {
+                    entries.load(reader);
+                }
+                entries.stringPropertyNames().forEach(indexKey -> {
+                    final int separator = indexKey.indexOf(KEY_SEPARATOR);
+                    final Collection<String> values = reflections.getStore().getOrCreate(indexKey.substring(0, separator)).get(indexKey.substring(separator + 1));
+                    for (String value : entries.getProperty(indexKey).split(VALUE_SEPARATOR)) {
+                        values.add(value);
+                    }
+                });
+                found = true;
+            }
+        } catch (IOException e) {
+            throw new InjectionConfigurationException("Could not load injection index of package " + basePackage + ": " + e.getMessage(), e);
+        }
+        return found ? reflections : null;
+    }
+
+    /**
+     * Reflections whose store is filled from an index instead of a scan.
+     */
+    private static class IndexedReflections extends Reflections {
+        private IndexedReflections() {
+            super();
+        }
+    }
+}
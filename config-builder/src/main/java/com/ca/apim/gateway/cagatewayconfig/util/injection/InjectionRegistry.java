@@ -18,6 +18,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import static com.ca.apim.gateway.cagatewayconfig.util.properties.PropertyConstants.EXTENSION_CONFIG_FILE;
 import static com.google.inject.Guice.createInjector;
@@ -30,15 +32,26 @@ import static java.util.Optional.ofNullable;
 
 /**
  * Dependency injection module for the gateway developer plugins.
+ * <p>
+ * In fast-start mode, enabled with the system property {@code com.ca.apim.build.fastStart}, the types of each base
+ * package are read from the {@link InjectionIndex} built into the plugin jar instead of scanning the classpath. A
+ * package without an index is still scanned.
  */
 public class InjectionRegistry extends AbstractModule {
 
-    private static final InjectionRegistry INSTANCE = new InjectionRegistry();
+    private static final Logger LOGGER = Logger.getLogger(InjectionRegistry.class.getName());
+    public static final String FAST_START_PROPERTY = "com.ca.apim.build.fastStart";
+    private static final InjectionRegistry INSTANCE = new InjectionRegistry(Boolean.getBoolean(FAST_START_PROPERTY), InjectionRegistry.class.getClassLoader());
     private static final String INJECTION_BASE_PACKAGE_KEY = "injection.base.package";
     private static Injector injector;
 
-    private InjectionRegistry() {
-        //
+    private final boolean fastStart;
+    private final ClassLoader indexClassLoader;
+
+    @VisibleForTesting
+    InjectionRegistry(boolean fastStart, ClassLoader indexClassLoader) {
+        this.fastStart = fastStart;
+        this.indexClassLoader = indexClassLoader;
     }
 
     @SuppressWarnings("unchecked")
@@ -51,7 +64,7 @@ public class InjectionRegistry extends AbstractModule {
         findPackagesToScan().forEach(p -> {
             // for each package, create a reflections object to find the providers
             // and allow the scanning
-            Reflections refl = new Reflections(p);
+            Reflections refl = createReflections(p);
             InjectionProviderContext context = new InjectionProviderContext(refl);
 
             refl.getSubTypesOf(InjectionProvider.class).forEach(c -> {
@@ -97,6 +110,17 @@ public class InjectionRegistry extends AbstractModule {
         });
     }
 
+    private Reflections createReflections(String basePackage) {
+        if (fastStart) {
+            Reflections indexedReflections = InjectionIndex.load(basePackage, indexClassLoader);
+            if (indexedReflections != null) {
+                return indexedReflections;
+            }
+            LOGGER.log(Level.WARNING, "No injection index found for package {0}, scanning the classpath", basePackage);
+        }
+        return new Reflections(basePackage);
+    }
+
     private static Set<String> findPackagesToScan() {
         Set<String> packagesToScan = new HashSet<>();
         try {
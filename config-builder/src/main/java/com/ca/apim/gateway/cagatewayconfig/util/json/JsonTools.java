@@ -9,9 +9,11 @@ package com.ca.apim.gateway.cagatewayconfig.util.json;
 import com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtilsException;
+import com.ca.apim.gateway.cagatewayconfig.util.file.ParsedFileCache;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
@@ -26,6 +28,9 @@ import java.io.OutputStreamWriter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -43,7 +48,12 @@ public class JsonTools {
     public static final String JSON_EXTENSION = "json";
     public static final String YML_EXTENSION = "yml";
     public static final String YAML_EXTENSION = "yaml";
+    private static final int DOCUMENT_TREE_CACHE_SIZE = 64;
     private final Map<String, ObjectMapper> objectMapperMap = new HashMap<>();
+    // readers and writers are immutable, so they are created once and shared
+    private final Map<String, ObjectWriter> objectWriterMap = new HashMap<>();
+    private final Map<String, ConcurrentMap<JavaType, ObjectReader>> objectReaderMap = new HashMap<>();
+    private final ParsedFileCache<JsonNode> documentTrees = new ParsedFileCache<>(DOCUMENT_TREE_CACHE_SIZE);
     private final FileUtils fileUtils;
     private String outputType;
     private String fileExtension;
@@ -54,6 +64,10 @@ public class JsonTools {
         objectMapperMap.put(YAML,
                 buildObjectMapper(new YAMLFactory().disable(WRITE_DOC_START_MARKER)
                         .configure(YAMLGenerator.Feature.LITERAL_BLOCK_STYLE, true)));
+        objectMapperMap.forEach((type, objectMapper) -> {
+            objectWriterMap.put(type, objectMapper.writer().withDefaultPrettyPrinter());
+            objectReaderMap.put(type, new ConcurrentHashMap<>());
+        });
         outputType = YAML;
         fileExtension = "." + YML_EXTENSION;
     }
@@ -67,7 +81,31 @@ public class JsonTools {
     }
 
     public ObjectWriter getObjectWriter(String outputType) {
-        return getObjectMapper(outputType).writer().withDefaultPrettyPrinter();
+        ObjectWriter objectWriter = objectWriterMap.get(outputType);
+        if (objectWriter == null) {
+            throw new IllegalArgumentException("Unknown object mapper for type: " + outputType);
+        }
+        return objectWriter;
+    }
+
+    /**
+     * Returns the reader of values of the given type in the given format. Readers are created once for each type and
+     * reused by all the reads.
+     *
+     * @param type      the format to read, json or yaml
+     * @param valueType the type of the values read
+     * @return the reader of the values
+     */
+    public ObjectReader getObjectReader(final String type, final JavaType valueType) {
+        final ConcurrentMap<JavaType, ObjectReader> objectReaders = objectReaderMap.get(type);
+        if (objectReaders == null) {
+            throw new IllegalArgumentException("Unknown object mapper for type: " + type);
+        }
+        return objectReaders.computeIfAbsent(valueType, t -> getObjectMapper(type).readerFor(t));
+    }
+
+    public ObjectReader getObjectReader(final String type, final Class<?> valueType) {
+        return getObjectReader(type, getObjectMapper(type).getTypeFactory().constructType(valueType));
     }
 
     public ObjectMapper getObjectMapper(final String type) {
@@ -115,15 +153,82 @@ public class JsonTools {
         }
     }
 
+    /**
+     * Reads a single entry of a configuration file holding a map of entities by name. The tree of the file is parsed
+     * once and kept until the file changes, so looking up every entity of a file does not parse it again each time.
+     *
+     * @param file      the json or yaml file to read
+     * @param name      the name of the entry
+     * @param entryType the type of the entry
+     * @param <T>       the type of the entry
+     * @return the entry, or null if the file does not have it
+     */
+    @Nullable
+    public <T> T readDocumentFileEntry(final File file, final String name, final Class<T> entryType) {
+        final String type = getTypeFromFile(file);
+        final JsonNode tree = documentTrees.get(file, f -> readDocumentTree(f, type));
+        final JsonNode entry = tree == null ? null : tree.get(name);
+        if (entry == null || entry.isNull()) {
+            return null;
+        }
+        try {
+            return getObjectReader(type, entryType).readValue(entry);
+        } catch (IOException e) {
+            throw new JsonToolsException("Could not parse configuration file for type: " + entryType.getName() + " Message:" + e.getMessage(), e);
+        }
+    }
+
+    private JsonNode readDocumentTree(final File file, final String type) {
+        try (InputStream stream = fileUtils.getInputStream(file)) {
+            return getObjectMapper(type).readTree(stream);
+        } catch (IOException e) {
+            throw new JsonToolsException("Could not parse configuration file: " + file + " Message:" + e.getMessage(), e);
+        }
+    }
+
     public <T> T readStream(final InputStream stream, final String type, final JavaType entityMapType) {
-        final ObjectMapper objectMapper = getObjectMapper(type);
         try {
-            return objectMapper.readValue(stream, entityMapType);
+            return getObjectReader(type, entityMapType).readValue(stream);
         } catch (IOException e) {
             throw new JsonToolsException("Could not parse configuration file for type: " + entityMapType.getGenericSignature() + " Message:" + e.getMessage(), e);
         }
     }
 
+    /**
+     * Reads a configuration file holding a map of entities by name one entry at a time, passing each entry to the
+     * consumer as soon as it is read. Unlike {@link #readDocumentFile(File, JavaType)} the whole map is never held in
+     * memory, which matters for very large files.
+     *
+     * @param file      the json or yaml file to read
+     * @param entryType the type of the entries
+     * @param consumer  receives the name and the value of each entry, in file order
+     * @param <T>       the type of the entries
+     * @return false if the file holds a null document, true otherwise
+     */
+    public <T> boolean readDocumentFileEntries(final File file, final Class<T> entryType, final BiConsumer<String, T> consumer) {
+        final String type = getTypeFromFile(file);
+        final ObjectReader entryReader = getObjectReader(type, entryType);
+        try (InputStream stream = fileUtils.getInputStream(file);
+             JsonParser parser = getObjectMapper(type).getFactory().createParser(stream)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new JsonToolsException("Could not parse configuration file: " + file + " Message: No content to map due to end-of-input");
+            } else if (token == JsonToken.VALUE_NULL) {
+                return false;
+            } else if (token != JsonToken.START_OBJECT) {
+                throw new JsonToolsException("Could not parse configuration file: " + file + " Message: Expected a map of entities but found " + token);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                token = parser.nextToken();
+                consumer.accept(name, token == JsonToken.VALUE_NULL ? null : entryReader.readValue(parser));
+            }
+            return true;
+        } catch (IOException e) {
+            throw new JsonToolsException("Could not parse configuration file for type: " + entryType.getName() + " Message:" + e.getMessage(), e);
+        }
+    }
+
     @NotNull
     public String getTypeFromFile(File file) {
         String type = getTypeFromExtension(getExtension(file.getName()));
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.xml;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free pool of {@link DocumentBuilder}s. A borrowed builder is confined to the borrowing thread until it is
+ * released, and it is reset before it goes back to the pool so no parser state leaks between documents.
+ * Borrowing never blocks: if no idle builder is available a new one is created.
+ */
+public class DocumentBuilderPool {
+
+    private final DocumentBuilderFactory factory;
+    private final Queue<DocumentBuilder> idleBuilders = new ConcurrentLinkedQueue<>();
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong contendedCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger peakInUse = new AtomicInteger();
+
+    public DocumentBuilderPool(final DocumentBuilderFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Takes a builder out of the pool, creating a new one if none is idle. The caller owns the builder until it is
+     * handed back with {@link #release(DocumentBuilder)}.
+     *
+     * @return a builder for the exclusive use of the calling thread
+     */
+    public DocumentBuilder borrow() {
+        borrowCount.incrementAndGet();
+        final int current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+
+        final DocumentBuilder builder = idleBuilders.poll();
+        if (builder != null) {
+            return builder;
+        }
+        if (current > 1) {
+            // another thread is holding a builder, with a single shared parser this call would have waited
+            contendedCount.incrementAndGet();
+        }
+        return newDocumentBuilder();
+    }
+
+    /**
+     * Resets the builder and returns it to the pool. Builders that cannot be reset are discarded.
+     *
+     * @param builder the builder previously obtained from {@link #borrow()}
+     */
+    public void release(final DocumentBuilder builder) {
+        inUse.decrementAndGet();
+        try {
+            builder.reset();
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        idleBuilders.offer(builder);
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        try {
+            // factories are not guaranteed to be thread safe, this only happens when the pool grows
+            synchronized (factory) {
+                final DocumentBuilder builder = factory.newDocumentBuilder();
+                createdCount.incrementAndGet();
+                return builder;
+            }
+        } catch (ParserConfigurationException e) {
+            throw new DocumentToolsException("Unexpected exception creating DocumentBuilder", e);
+        }
+    }
+
+    /**
+     * @return a snapshot of the usage counters of this pool
+     */
+    public Statistics getStatistics() {
+        return new Statistics(borrowCount.get(), contendedCount.get(), createdCount.get(), peakInUse.get());
+    }
+
+    /**
+     * Point in time usage counters of a {@link DocumentBuilderPool}.
+     */
+    public static class Statistics {
+        private final long borrowCount;
+        private final long contendedCount;
+        private final long createdCount;
+        private final int peakInUse;
+
+        Statistics(long borrowCount, long contendedCount, long createdCount, int peakInUse) {
+            this.borrowCount = borrowCount;
+            this.contendedCount = contendedCount;
+            this.createdCount = createdCount;
+            this.peakInUse = peakInUse;
+        }
+
+        /**
+         * @return the number of times a builder was borrowed
+         */
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        /**
+         * @return the number of borrows that happened while another builder was in use and no idle builder was left
+         */
+        public long getContendedCount() {
+            return contendedCount;
+        }
+
+        /**
+         * @return the number of builders created by the pool
+         */
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        /**
+         * @return the highest number of builders in use at the same time
+         */
+        public int getPeakInUse() {
+            return peakInUse;
+        }
+
+        @Override
+        public String toString() {
+            return "borrowed=" + borrowCount + ", contended=" + contendedCount + ", created=" + createdCount + ", peakInUse=" + peakInUse;
+        }
+    }
+}
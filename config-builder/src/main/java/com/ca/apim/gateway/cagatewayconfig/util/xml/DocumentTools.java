@@ -19,8 +19,13 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.*;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.xpath.XPath;
@@ -33,14 +38,20 @@ import static com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils.closeQuiet
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
- * Tools used to parse and process XML documents
+ * Tools used to parse and process XML documents. The tools can be used from several threads: parsers are pooled, and the
+ * xPaths and transformers used to clean up and serialize documents are created for each thread, as their factories
+ * and themselves are not thread safe.
  */
 public class DocumentTools {
     public static final DocumentTools INSTANCE = new DocumentTools();
 
     private final DocumentBuilder builder;
+    private final DocumentBuilderPool parserPool;
     private final XPathFactory xPathFactory;
     private final TransformerFactory transformerFactory;
+    private final XMLInputFactory xmlInputFactory;
+    private final ThreadLocal<XPath> xPaths;
+    private final ThreadLocal<Transformer> elementSerializers;
 
     public DocumentTools() {
         final DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
@@ -49,9 +60,13 @@ public class DocumentTools {
         } catch (ParserConfigurationException e) {
             throw new DocumentToolsException("Unexpected exception creating DocumentBuilder", e);
         }
+        parserPool = new DocumentBuilderPool(dbFactory);
 
         xPathFactory = XPathFactory.newInstance();
 
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
         try {
             transformerFactory = TransformerFactory.newInstance();
             transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
@@ -59,11 +74,20 @@ public class DocumentTools {
         } catch (TransformerConfigurationException e) {
             throw new DocumentToolsException("Unexpected exception creating TransformerFactory", e);
         }
+
+        xPaths = ThreadLocal.withInitial(() -> {
+            synchronized (xPathFactory) {
+                return xPathFactory.newXPath();
+            }
+        });
+        elementSerializers = ThreadLocal.withInitial(this::getTransformer);
     }
 
     public Transformer getTransformer() {
         try {
-            return configureTransformer(transformerFactory.newTransformer());
+            synchronized (transformerFactory) {
+                return configureTransformer(transformerFactory.newTransformer());
+            }
         } catch (TransformerConfigurationException e) {
             throw new DocumentToolsException("Exception loading stylesheet.", e);
         }
@@ -71,7 +95,9 @@ public class DocumentTools {
 
     public Transformer getTransformer(final StreamSource stylesheet) {
         try {
-            return configureTransformer(transformerFactory.newTransformer(stylesheet));
+            synchronized (transformerFactory) {
+                return configureTransformer(transformerFactory.newTransformer(stylesheet));
+            }
         } catch (TransformerConfigurationException e) {
             throw new DocumentToolsException("Exception loading stylesheet.", e);
         }
@@ -85,13 +111,26 @@ public class DocumentTools {
         return transformer;
     }
 
+    /**
+     * Returns the builder used to create new documents. Parsing should go through the parse methods so that it does
+     * not share a parser with other threads.
+     *
+     * @return the document builder used to create new documents
+     */
     public DocumentBuilder getDocumentBuilder() {
         return builder;
     }
 
+    /**
+     * @return usage counters of the parsers used by the parse methods
+     */
+    public DocumentBuilderPool.Statistics getParserPoolStatistics() {
+        return parserPool.getStatistics();
+    }
+
     public Document parse(final File file) throws DocumentParseException {
-        try {
-            return parse(FileUtils.openInputStream(file));
+        try (InputStream inputStream = FileUtils.openInputStream(file)) {
+            return parse(inputStream);
         } catch (IOException e) {
             throw new DocumentParseException("Exception reading file: " + file, e);
         }
@@ -106,27 +145,47 @@ public class DocumentTools {
     }
 
     /**
-     * Parses an input stream into a document object
+     * Parses an input stream into a document object. Each call uses a parser borrowed from the pool so documents can
+     * be parsed concurrently.
      *
      * @param inputStream The input stream to parse into a document
      * @return The parsed document
      * @throws DocumentParseException Thrown if there is an exception while parsing the document
      */
-    private synchronized Document parse(final InputStream inputStream) throws DocumentParseException {
+    private Document parse(final InputStream inputStream) throws DocumentParseException {
+        final DocumentBuilder parser = parserPool.borrow();
         try {
-            return builder.parse(inputStream);
+            return parser.parse(inputStream);
         } catch (SAXException | IOException e) {
             throw new DocumentParseException("Exception parsing document from input stream", e);
+        } finally {
+            parserPool.release(parser);
+        }
+    }
+
+    /**
+     * Creates a streaming reader for the input stream, to be used when a document is too large to be held in memory.
+     * The caller is responsible for closing both the reader and the input stream.
+     *
+     * @param inputStream The input stream to read
+     * @return a namespace aware stream reader positioned at the start of the document
+     * @throws DocumentParseException Thrown if the reader cannot be created
+     */
+    public XMLStreamReader createXMLStreamReader(final InputStream inputStream) throws DocumentParseException {
+        try {
+            return xmlInputFactory.createXMLStreamReader(inputStream);
+        } catch (XMLStreamException e) {
+            throw new DocumentParseException("Exception creating stream reader from input stream", e);
         }
     }
 
     /**
-     * Returns a new xPath that can be used to query a document
+     * Returns the xPath of the current thread that can be used to query a document
      *
      * @return an xPath that can be used to query a document
      */
     private XPath newXPath() {
-        return xPathFactory.newXPath();
+        return xPaths.get();
     }
 
     public void cleanup(final Document bundleDocument) {
@@ -147,9 +206,22 @@ public class DocumentTools {
         }
     }
 
+    /**
+     * Serializes the element like {@link #printXML(Element, OutputStream, boolean)}, reusing the transformer of the
+     * current thread.
+     *
+     * @param element the element to serialize
+     * @return the xml of the element
+     */
     public String elementToString(Element element) {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        printXML(element, byteArrayOutputStream, false);
+        try {
+            printXML(element, byteArrayOutputStream, elementSerializers.get());
+        } catch (DocumentFileUtilsException e) {
+            // a transformer that failed is not reused
+            elementSerializers.remove();
+            throw e;
+        }
         try {
             return byteArrayOutputStream.toString(UTF_8.name());
         } catch (UnsupportedEncodingException e) {
@@ -164,11 +236,38 @@ public class DocumentTools {
             node.setAttribute("xmlns:l7", "http://ns.l7tech.com/2010/04/gateway-management");
         }
 
-        final Transformer transformer = getTransformer();
+        printXML(node, outStream, getTransformer());
+    }
+
+    private static void printXML(final Element node, final OutputStream outStream, final Transformer transformer) {
         try (OutputStreamWriter writer = new OutputStreamWriter(outStream, UTF_8)) {
             transformer.transform(new DOMSource(node), new StreamResult(writer));
         } catch (TransformerException | IOException e) {
             throw new DocumentFileUtilsException("Exception writing xml element to stream.", e);
         }
     }
+
+    /**
+     * Creates a writer that serializes XML to the stream as it is written, with the same output format as
+     * {@link #printXML(Element, OutputStream, boolean)}. The writer must be closed to complete the output, closing it
+     * does not close the stream.
+     *
+     * @param outStream the stream to write to
+     * @return a writer for a new document
+     */
+    public XmlEventWriter createXmlEventWriter(final OutputStream outStream) {
+        final TransformerHandler handler;
+        try {
+            synchronized (transformerFactory) {
+                handler = ((SAXTransformerFactory) transformerFactory).newTransformerHandler();
+            }
+        } catch (TransformerConfigurationException e) {
+            throw new DocumentToolsException("Exception creating xml serializer.", e);
+        }
+        configureTransformer(handler.getTransformer());
+
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outStream, UTF_8));
+        handler.setResult(new StreamResult(writer));
+        return new XmlEventWriter(handler, writer);
+    }
 }
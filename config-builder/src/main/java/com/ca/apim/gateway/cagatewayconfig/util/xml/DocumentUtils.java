@@ -16,6 +16,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
@@ -283,4 +284,50 @@ public class DocumentUtils {
             }
         };
     }
+
+    /**
+     * Visits all descendants of the root element in a single depth first traversal, handing every element whose name
+     * is a key of the handler map to the visitor together with its handler. The visitor may change the children of the
+     * element it is given, including removing or replacing the element itself; the traversal carries on from where
+     * the element was, and nodes it added in place of the element are not visited.
+     *
+     * @param root           element whose descendants are visited, the root itself is not
+     * @param handlersByName handlers by element name
+     * @param visitor        called for each element with a handler
+     * @param <H>            handler type
+     */
+    public static <H> void visitDescendantElements(final Element root, final Map<String, H> handlersByName, final BiConsumer<Element, H> visitor) {
+        Node node = root.getFirstChild();
+        while (node != null) {
+            final Node parent = node.getParentNode();
+            final Node nextSibling = node.getNextSibling();
+            final H handler = node.getNodeType() == ELEMENT_NODE ? handlersByName.get(node.getNodeName()) : null;
+            if (handler != null) {
+                visitor.accept((Element) node, handler);
+            }
+
+            if (node.getParentNode() != parent) {
+                // the visitor detached the element, carry on with what followed it
+                node = nextSibling != null && nextSibling.getParentNode() == parent ? nextSibling : nextNotDescendant(parent, root);
+            } else if (node.getFirstChild() != null) {
+                node = node.getFirstChild();
+            } else {
+                node = nextNotDescendant(node, root);
+            }
+        }
+    }
+
+    /**
+     * @return the node following the given node in document order that is not one of its descendants, or null if
+     * there is none under the root
+     */
+    private static Node nextNotDescendant(Node node, final Node root) {
+        while (node != null && node != root) {
+            if (node.getNextSibling() != null) {
+                return node.getNextSibling();
+            }
+            node = node.getParentNode();
+        }
+        return null;
+    }
 }
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.xml;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.transform.sax.TransformerHandler;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.*;
+import java.util.Map.Entry;
+
+import static java.util.Collections.emptyMap;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+
+/**
+ * Writes XML incrementally to a stream. Events are fed to the same serializer used by
+ * {@link DocumentTools#printXML(org.w3c.dom.Element, java.io.OutputStream, boolean)}, so writing a tree element by
+ * element produces exactly the same bytes as building the tree and printing it, without ever holding the whole tree.
+ * Element and attribute names are qualified names, the same way a non namespace aware DOM names them.
+ * Instances are not thread safe.
+ */
+public class XmlEventWriter implements Closeable {
+
+    private static final String CDATA = "CDATA";
+    private static final String XMLNS = "xmlns";
+
+    private final TransformerHandler handler;
+    private final Writer writer;
+    private final Map<String, Deque<String>> namespaces = new HashMap<>();
+    private final Deque<Set<String>> declaredPrefixesStack = new ArrayDeque<>();
+    private boolean started;
+
+    XmlEventWriter(final TransformerHandler handler, final Writer writer) {
+        this.handler = handler;
+        this.writer = writer;
+    }
+
+    public void writeStartElement(final String name) {
+        writeStartElement(name, emptyMap());
+    }
+
+    /**
+     * Starts an element with the given attributes, written in iteration order.
+     */
+    public void writeStartElement(final String name, final Map<String, String> attributes) {
+        try {
+            ensureStarted();
+            startElement(name, new ArrayList<>(attributes.entrySet()));
+        } catch (SAXException e) {
+            throw writeException(e);
+        }
+    }
+
+    public void writeEndElement(final String name) {
+        try {
+            endElement(name);
+        } catch (SAXException e) {
+            throw writeException(e);
+        }
+    }
+
+    public void writeCharacters(final String text) {
+        try {
+            ensureStarted();
+            handler.characters(text.toCharArray(), 0, text.length());
+        } catch (SAXException e) {
+            throw writeException(e);
+        }
+    }
+
+    /**
+     * Writes an element holding only the given text.
+     */
+    public void writeTextElement(final String name, final String text) {
+        writeStartElement(name);
+        if (text != null && !text.isEmpty()) {
+            writeCharacters(text);
+        }
+        writeEndElement(name);
+    }
+
+    /**
+     * Writes a DOM node and all its descendants. The node is only read, so it can be written while it is still
+     * attached to its document.
+     */
+    public void writeNode(final Node node) {
+        try {
+            ensureStarted();
+            emitNode(node);
+        } catch (SAXException e) {
+            throw writeException(e);
+        }
+    }
+
+    private void emitNode(final Node node) throws SAXException {
+        switch (node.getNodeType()) {
+            case Node.DOCUMENT_NODE:
+            case Node.DOCUMENT_FRAGMENT_NODE:
+            case Node.ENTITY_REFERENCE_NODE:
+                emitChildren(node);
+                break;
+            case Node.ELEMENT_NODE:
+                final String name = node.getNodeName();
+                startElement(name, toAttributeList(node.getAttributes()));
+                emitChildren(node);
+                endElement(name);
+                break;
+            case Node.TEXT_NODE:
+                final String text = node.getNodeValue();
+                handler.characters(text.toCharArray(), 0, text.length());
+                break;
+            case Node.CDATA_SECTION_NODE:
+                final String cdata = node.getNodeValue();
+                handler.startCDATA();
+                handler.characters(cdata.toCharArray(), 0, cdata.length());
+                handler.endCDATA();
+                break;
+            case Node.COMMENT_NODE:
+                final String comment = node.getNodeValue();
+                handler.comment(comment.toCharArray(), 0, comment.length());
+                break;
+            case Node.PROCESSING_INSTRUCTION_NODE:
+                handler.processingInstruction(node.getNodeName(), node.getNodeValue());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void emitChildren(final Node node) throws SAXException {
+        for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            emitNode(child);
+        }
+    }
+
+    private static List<Entry<String, String>> toAttributeList(final NamedNodeMap attributeMap) {
+        final List<Entry<String, String>> attributes = new ArrayList<>();
+        for (int i = 0; attributeMap != null && i < attributeMap.getLength(); i++) {
+            final Node attr = attributeMap.item(i);
+            attributes.add(new SimpleImmutableEntry<>(attr.getNodeName(), attr.getNodeValue()));
+        }
+        return attributes;
+    }
+
+    /**
+     * Starts an element the same way the DOM serializer does: namespace declarations are written first and only when
+     * they change the mapping in scope, then the other attributes.
+     */
+    private void startElement(final String name, final List<Entry<String, String>> attributes) throws SAXException {
+        final AttributesImpl attributesImpl = new AttributesImpl();
+        final Set<String> declaredPrefixes = new HashSet<>();
+        for (Entry<String, String> attribute : attributes) {
+            final String attributeName = attribute.getKey();
+            if (attributeName.startsWith(XMLNS)) {
+                final int colon = attributeName.lastIndexOf(':');
+                declareNamespace(colon > 0 ? attributeName.substring(colon + 1) : EMPTY, attribute.getValue(), declaredPrefixes, attributesImpl);
+            }
+        }
+        for (Entry<String, String> attribute : attributes) {
+            if (!attribute.getKey().startsWith(XMLNS)) {
+                attributesImpl.addAttribute(EMPTY, EMPTY, attribute.getKey(), CDATA, attribute.getValue());
+            }
+        }
+
+        declaredPrefixesStack.push(declaredPrefixes);
+        handler.startElement(EMPTY, EMPTY, name, attributesImpl);
+    }
+
+    private void declareNamespace(final String prefix, final String uri, final Set<String> declaredPrefixes, final AttributesImpl attributes) {
+        final Deque<String> uris = namespaces.computeIfAbsent(prefix, p -> new ArrayDeque<>());
+        if (prefix.startsWith("xml") || uri.equals(uris.isEmpty() ? EMPTY : uris.peek()) || !declaredPrefixes.add(prefix)) {
+            return;
+        }
+        uris.push(uri);
+        final String attributeName = prefix.isEmpty() ? XMLNS : XMLNS + ":" + prefix;
+        attributes.addAttribute(EMPTY, EMPTY, attributeName, CDATA, uri);
+    }
+
+    private void endElement(final String name) throws SAXException {
+        handler.endElement(EMPTY, EMPTY, name);
+        declaredPrefixesStack.pop().forEach(prefix -> namespaces.get(prefix).pop());
+    }
+
+    private void ensureStarted() throws SAXException {
+        if (!started) {
+            handler.startDocument();
+            started = true;
+        }
+    }
+
+    /**
+     * Ends the document and flushes the output. The underlying stream is left open.
+     */
+    @Override
+    public void close() {
+        try {
+            ensureStarted();
+            handler.endDocument();
+            writer.flush();
+        } catch (SAXException | IOException e) {
+            throw new DocumentToolsException("Exception writing xml to stream.", e);
+        }
+    }
+
+    private static DocumentToolsException writeException(final SAXException e) {
+        return new DocumentToolsException("Exception writing xml to stream.", e);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.Policy;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
+import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class BundleBuildCacheTest {
+
+    private static final ProjectInfo projectInfo = new ProjectInfo("my-bundle", "my-bundle-group", "1.0");
+    private static final List<String> FILE_NAMES = asList("my-bundle.install.bundle", "my-bundle.delete.bundle");
+
+    private File cacheDir;
+    private File outputDir;
+
+    @BeforeEach
+    void setUp(final TemporaryFolder temporaryFolder) throws IOException {
+        cacheDir = temporaryFolder.createDirectory("cache");
+        outputDir = temporaryFolder.createDirectory("output");
+    }
+
+    @Test
+    void restoreStoredBundle() throws IOException {
+        BundleBuildCache firstBuild = new BundleBuildCache(cacheDir, "key");
+        assertFalse(firstBuild.restore("my-bundle", bundle("policy-xml"), outputDir));
+        writeArtifacts();
+        firstBuild.store("my-bundle", outputDir, FILE_NAMES);
+        cleanDirectory(outputDir);
+
+        BundleBuildCache secondBuild = new BundleBuildCache(cacheDir, "key");
+        assertTrue(secondBuild.restore("my-bundle", bundle("policy-xml"), outputDir));
+        assertEquals(1, secondBuild.getRestoredCount());
+        for (String fileName : FILE_NAMES) {
+            assertEquals(fileName, readFileToString(new File(outputDir, fileName), UTF_8));
+        }
+    }
+
+    @Test
+    void restoreBundleWithChangedInputs() throws IOException {
+        BundleBuildCache firstBuild = new BundleBuildCache(cacheDir, "key");
+        firstBuild.restore("my-bundle", bundle("policy-xml"), outputDir);
+        writeArtifacts();
+        firstBuild.store("my-bundle", outputDir, FILE_NAMES);
+
+        assertFalse(new BundleBuildCache(cacheDir, "key").restore("my-bundle", bundle("changed-policy-xml"), outputDir));
+        assertFalse(new BundleBuildCache(cacheDir, "other-key").restore("my-bundle", bundle("policy-xml"), outputDir));
+        assertFalse(new BundleBuildCache(cacheDir, "key").restore("other-bundle", bundle("policy-xml"), outputDir));
+    }
+
+    @Test
+    void pruneUnusedBundles() throws IOException {
+        BundleBuildCache firstBuild = new BundleBuildCache(cacheDir, "key");
+        firstBuild.restore("my-bundle", bundle("policy-xml"), outputDir);
+        firstBuild.restore("other-bundle", bundle("policy-xml"), outputDir);
+        writeArtifacts();
+        firstBuild.store("my-bundle", outputDir, FILE_NAMES);
+        firstBuild.store("other-bundle", outputDir, FILE_NAMES);
+        firstBuild.prune();
+        assertEquals(2, cacheDir.list().length);
+
+        BundleBuildCache secondBuild = new BundleBuildCache(cacheDir, "key");
+        secondBuild.restore("my-bundle", bundle("policy-xml"), outputDir);
+        secondBuild.prune();
+        assertEquals(1, cacheDir.list().length);
+        assertTrue(new BundleBuildCache(cacheDir, "key").restore("my-bundle", bundle("policy-xml"), outputDir));
+    }
+
+    @Test
+    void getBuildKey(final TemporaryFolder temporaryFolder) throws IOException {
+        File rootDir = temporaryFolder.createDirectory("src");
+        File policy = new File(rootDir, "policy/folder/policy.xml");
+        File config = new File(rootDir, "config/encass.yml");
+        writeStringToFile(policy, "policy-xml", UTF_8);
+        writeStringToFile(config, "encass", UTF_8);
+        String key = buildKey(rootDir);
+
+        // policies are part of the digest of each bundle instead
+        writeStringToFile(policy, "changed-policy-xml", UTF_8);
+        assertEquals(key, buildKey(rootDir));
+
+        writeStringToFile(config, "changed-encass", UTF_8);
+        String changedConfigKey = buildKey(rootDir);
+        assertNotEquals(key, changedConfigKey);
+
+        writeStringToFile(new File(rootDir, "policy/folder/other.xml"), "policy-xml", UTF_8);
+        assertNotEquals(changedConfigKey, buildKey(rootDir));
+    }
+
+    @Test
+    void getBuildKeyOfBuildProperties(final TemporaryFolder temporaryFolder) throws IOException {
+        File rootDir = temporaryFolder.createDirectory("src");
+        writeStringToFile(new File(rootDir, "config/encass.yml"), "encass", UTF_8);
+        String key = buildKey(rootDir);
+
+        // the parallelism and fast start do not change the bundles built
+        System.setProperty(ParallelExecutor.PARALLELISM_PROPERTY, "4");
+        System.setProperty(InjectionRegistry.FAST_START_PROPERTY, "true");
+        try {
+            assertEquals(key, buildKey(rootDir));
+        } finally {
+            System.clearProperty(ParallelExecutor.PARALLELISM_PROPERTY);
+            System.clearProperty(InjectionRegistry.FAST_START_PROPERTY);
+        }
+
+        System.setProperty("com.ca.apim.build.ignoreAnnotations", "true");
+        try {
+            assertNotEquals(key, buildKey(rootDir));
+        } finally {
+            System.clearProperty("com.ca.apim.build.ignoreAnnotations");
+        }
+    }
+
+    private static String buildKey(File rootDir) {
+        return BundleBuildCache.getBuildKey(rootDir, Collections.emptyList(), projectInfo,
+                Collections.singleton("folder/policy"));
+    }
+
+    private void writeArtifacts() throws IOException {
+        for (String fileName : FILE_NAMES) {
+            writeStringToFile(new File(outputDir, fileName), fileName, UTF_8);
+        }
+    }
+
+    private static Bundle bundle(String policyXML) {
+        Bundle bundle = new Bundle();
+        Policy policy = new Policy();
+        policy.setPath("folder/policy");
+        policy.setPolicyXML(policyXML);
+        bundle.getPolicies().put(policy.getPath(), policy);
+        return bundle;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig;
+
+import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.INSTALL_BUNDLE_EXTENSION;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties.MAP_TO;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class BundleDeltaTest {
+
+    private static final String POLICY_START = "<wsp:Policy xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\" "
+            + "xmlns:L7p=\"http://www.layer7tech.com/ws/policy\"><wsp:All wsp:Usage=\"Required\">";
+    private static final String POLICY_END = "</wsp:All></wsp:Policy>";
+
+    private final DocumentTools documentTools = DocumentTools.INSTANCE;
+    private File sourceDir;
+    private File previousDir;
+    private File outputDir;
+    private File deltaDir;
+
+    @BeforeEach
+    void setUp(final TemporaryFolder temporaryFolder) throws IOException {
+        sourceDir = temporaryFolder.createDirectory("source");
+        previousDir = temporaryFolder.createDirectory("previous");
+        outputDir = temporaryFolder.createDirectory("output");
+        deltaDir = new File(temporaryFolder.getRoot(), "delta");
+        writeSource("Hello");
+    }
+
+    @Test
+    void writeDeltaOfSameSource() throws DocumentParseException {
+        // the ids and guids of the entities are generated again by each build
+        build(previousDir, "1.0", null);
+        build(outputDir, "1.1", previousDir);
+
+        final Element delta = readDelta();
+        assertTrue(getChildElements(getSingleChildElement(delta, REFERENCES), ITEM).isEmpty());
+        assertTrue(getChildElements(getSingleChildElement(delta, MAPPINGS), MAPPING).isEmpty());
+    }
+
+    @Test
+    void writeDeltaOfChangedSource() throws IOException, DocumentParseException {
+        build(previousDir, "1.0", null);
+        writeSource("Goodbye");
+        deleteQuietly(new File(sourceDir, "policy/my folder/unused.xml"));
+        build(outputDir, "1.1", previousDir);
+
+        final Element delta = readDelta();
+        // the service of the example policy changed and the unused policy is gone
+        assertEquals(Collections.singletonList("my folder/example"), getChildElements(getSingleChildElement(delta, REFERENCES), ITEM)
+                .stream().map(item -> getSingleChildElementTextContent(item, NAME)).collect(Collectors.toList()));
+        final List<Element> mappings = getChildElements(getSingleChildElement(delta, MAPPINGS), MAPPING);
+        assertEquals(asList("FOLDER", "SERVICE", "POLICY"), mappings.stream().map(mapping -> mapping.getAttribute(ATTRIBUTE_TYPE)).collect(Collectors.toList()));
+        assertEquals(asList("NewOrExisting", "NewOrUpdate", "Delete"), mappings.stream().map(mapping -> mapping.getAttribute(ATTRIBUTE_ACTION)).collect(Collectors.toList()));
+        // the removed policy is deleted by the mapping of the previous release
+        assertTrue(documentTools.elementToString(mappings.get(2)).contains("my folder/unused"));
+        assertReferencesMapped(delta);
+    }
+
+    @Test
+    void writeDeltaMapsReferencedEntities() throws IOException, DocumentParseException {
+        build(previousDir, "1.0", null);
+        writePolicy("including", "<L7p:Encapsulated encassName=\"my-encass\"/>"
+                + "<L7p:Include><L7p:PolicyGuid policyPath=\"my folder/fragment\"/></L7p:Include>"
+                + "<L7p:CommentAssertion><L7p:Comment stringValue=\"changed\"/></L7p:CommentAssertion>");
+        build(outputDir, "1.1", previousDir);
+
+        final Element delta = readDelta();
+        assertEquals(Collections.singletonList("my folder/including"), getChildElements(getSingleChildElement(delta, REFERENCES), ITEM)
+                .stream().map(item -> getSingleChildElementTextContent(item, NAME)).collect(Collectors.toList()));
+        // the folder, encass and policy fragment of the changed policy are mapped to the ones already on the gateway
+        final Map<String, String> actions = getChildElements(getSingleChildElement(delta, MAPPINGS), MAPPING).stream()
+                .collect(Collectors.toMap(mapping -> mapping.getAttribute(ATTRIBUTE_TYPE) + ":" + getMapTo(mapping),
+                        mapping -> mapping.getAttribute(ATTRIBUTE_ACTION)));
+        assertEquals("NewOrUpdate", actions.get("POLICY:my folder/including"));
+        assertEquals("NewOrExisting", actions.get("FOLDER:my folder"));
+        assertEquals("NewOrExisting", actions.get("ENCAPSULATED_ASSERTION:my-encass"));
+        assertEquals("NewOrExisting", actions.get("POLICY:my folder/fragment"));
+        assertEquals(4, actions.size(), actions.toString());
+        assertReferencesMapped(delta);
+    }
+
+    @Test
+    void digest() throws DocumentParseException {
+        final Document document = documentTools.parse("<l7:Item xmlns:l7=\"urn:l7\"><l7:Name a=\"1\" b=\"2\">name</l7:Name></l7:Item>");
+        final Document indented = documentTools.parse("<l7:Item>\n    <l7:Name b=\"2\" a=\"1\">name</l7:Name>\n</l7:Item>");
+        final Document changed = documentTools.parse("<l7:Item><l7:Name a=\"1\" b=\"2\">other</l7:Name></l7:Item>");
+        assertEquals(BundleDelta.digest(document.getDocumentElement()), BundleDelta.digest(indented.getDocumentElement()));
+        assertNotEquals(BundleDelta.digest(document.getDocumentElement()), BundleDelta.digest(changed.getDocumentElement()));
+    }
+
+    private void build(final File bundleDir, final String version, final File previousReleaseDir) {
+        InjectionRegistry.getInstance(BundleFileBuilder.class).buildBundle(sourceDir, bundleDir, Collections.emptyList(),
+                new ProjectInfo("my-bundle", "my-group", version), null, previousReleaseDir, deltaDir);
+    }
+
+    /**
+     * Checks every entity of the install bundle referenced by an item of the delta, by its id or guid, has a mapping in
+     * the delta.
+     */
+    private void assertReferencesMapped(final Element delta) throws DocumentParseException {
+        final File[] installBundles = outputDir.listFiles((dir, name) -> name.endsWith(INSTALL_BUNDLE_EXTENSION));
+        assertNotNull(installBundles);
+        assertEquals(1, installBundles.length);
+        final Map<String, String> idsByReference = new HashMap<>();
+        for (Element item : getChildElements(getSingleChildElement(documentTools.parse(installBundles[0]).getDocumentElement(), REFERENCES), ITEM)) {
+            final String id = getSingleChildElementTextContent(item, ID);
+            idsByReference.put(id, id);
+            final NodeList elements = item.getElementsByTagName("*");
+            for (int i = 0; i < elements.getLength(); i++) {
+                final Element element = (Element) elements.item(i);
+                if (element.hasAttribute(ATTRIBUTE_GUID)) {
+                    idsByReference.put(element.getAttribute(ATTRIBUTE_GUID), id);
+                } else if (GUID.equals(element.getTagName())) {
+                    idsByReference.put(element.getTextContent().trim(), id);
+                }
+            }
+        }
+
+        final Set<String> mappedIds = getChildElements(getSingleChildElement(delta, MAPPINGS), MAPPING).stream()
+                .map(mapping -> mapping.getAttribute(ATTRIBUTE_SRCID)).collect(Collectors.toSet());
+        for (Element item : getChildElements(getSingleChildElement(delta, REFERENCES), ITEM)) {
+            final String itemXml = documentTools.elementToString(item);
+            idsByReference.forEach((reference, id) -> {
+                if (itemXml.contains(reference)) {
+                    assertTrue(mappedIds.contains(id), "no mapping for " + reference + " referenced by " + getSingleChildElementTextContent(item, NAME));
+                }
+            });
+        }
+    }
+
+    private static String getMapTo(final Element mapping) {
+        final Element properties = getSingleChildElement(mapping, PROPERTIES, true);
+        if (properties != null) {
+            for (Element property : getChildElements(properties, PROPERTY)) {
+                if (MAP_TO.equals(property.getAttribute(ATTRIBUTE_KEY))) {
+                    return getSingleChildElementTextContent(property, STRING_VALUE);
+                }
+            }
+        }
+        return mapping.getAttribute(ATTRIBUTE_SRCID);
+    }
+
+    private Element readDelta() throws DocumentParseException {
+        final File[] deltaBundles = deltaDir.listFiles();
+        assertNotNull(deltaBundles);
+        assertEquals(1, deltaBundles.length);
+        return documentTools.parse(deltaBundles[0]).getDocumentElement();
+    }
+
+    private void writeSource(final String greeting) throws IOException {
+        writePolicy("example", "<L7p:HardcodedResponse><L7p:ResponseBody><![CDATA[" + greeting
+                + "]]></L7p:ResponseBody></L7p:HardcodedResponse>");
+        writePolicy("encass-policy", "<L7p:CommentAssertion><L7p:Comment stringValue=\"encass\"/></L7p:CommentAssertion>");
+        writePolicy("fragment", "<L7p:CommentAssertion><L7p:Comment stringValue=\"fragment\"/></L7p:CommentAssertion>");
+        writePolicy("unused", "<L7p:CommentAssertion><L7p:Comment stringValue=\"unused\"/></L7p:CommentAssertion>");
+        // references another policy by guid and an encass by guid
+        writePolicy("including", "<L7p:Encapsulated encassName=\"my-encass\"/>"
+                + "<L7p:Include><L7p:PolicyGuid policyPath=\"my folder/fragment\"/></L7p:Include>");
+        writeStringToFile(new File(sourceDir, "config/encass.yml"), "my-encass:\n  policy: \"my folder/encass-policy\"\n", UTF_8);
+        writeStringToFile(new File(sourceDir, "config/services.yml"), "my folder/example:\n  policy: \"my folder/example\"\n"
+                + "  httpMethods:\n  - GET\n  url: \"/example\"\n", UTF_8);
+    }
+
+    private void writePolicy(final String name, final String assertions) throws IOException {
+        writeStringToFile(new File(sourceDir, "policy/my folder/" + name + ".xml"), POLICY_START + assertions + POLICY_END, UTF_8);
+    }
+}
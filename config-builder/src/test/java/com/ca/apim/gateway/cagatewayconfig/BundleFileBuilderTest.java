@@ -68,7 +68,7 @@ class BundleFileBuilderTest {
         bundleFileBuilder.buildBundle(null, new File("output"), Collections.emptyList(), projectInfo);
 
         verify(bundleEntityBuilder).build(argThat(bundle -> bundle.getPolicies().isEmpty()),
-                eq(EntityBuilder.BundleType.DEPLOYMENT), any(), eq(projectInfo));
+                eq(EntityBuilder.BundleType.DEPLOYMENT), any(), eq(projectInfo), eq(false), any(), any());
     }
 
     @Test
@@ -82,7 +82,7 @@ class BundleFileBuilderTest {
         bundleFileBuilder.buildBundle(new File("input"), new File("output"),Collections.emptyList(), projectInfo);
 
         verify(bundleEntityBuilder).build(argThat(bundle -> bundle.getPolicies().containsKey(policy.getName()) && bundle.getPolicies().containsValue(policy)),
-                eq(EntityBuilder.BundleType.DEPLOYMENT), any(), eq(projectInfo));
+                eq(EntityBuilder.BundleType.DEPLOYMENT), any(), eq(projectInfo), eq(false), any(), any());
     }
 
     @Test
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.beans;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+class BundleTest {
+
+    @Test
+    void getEntityByNameIdGuidAndPath() {
+        Bundle bundle = new Bundle();
+        Policy policy = policy("folder/policy", "policy", "1", "guid-1");
+        bundle.getPolicies().put(policy.getPath(), policy);
+
+        assertSame(policy, bundle.getEntityByName(Policy.class, "policy"));
+        assertSame(policy, bundle.getEntityById(Policy.class, "1"));
+        assertSame(policy, bundle.getEntityByGuid(Policy.class, "guid-1"));
+        assertSame(policy, bundle.getEntityByPath(Policy.class, "folder/policy"));
+        assertNull(bundle.getEntityByName(Policy.class, "folder/policy"));
+        assertNull(bundle.getEntityById(Policy.class, null));
+        assertNull(bundle.getEntityByName(Encass.class, "policy"));
+    }
+
+    @Test
+    void getEntryByNameOfEntityWithoutName() {
+        Bundle bundle = new Bundle();
+        StoredPassword password = new StoredPassword();
+        bundle.getEntities(StoredPassword.class).put("passwords/password", password);
+
+        Map.Entry<String, StoredPassword> entry = bundle.getEntryByName(StoredPassword.class, "password");
+        assertEquals("passwords/password", entry.getKey());
+        assertSame(password, entry.getValue());
+    }
+
+    @Test
+    void getEntityAfterChanges() {
+        Bundle bundle = new Bundle();
+        Policy first = policy("first", "first", "1", "guid-1");
+        bundle.getPolicies().put(first.getPath(), first);
+        assertSame(first, bundle.getEntityById(Policy.class, "1"));
+
+        Policy second = policy("second", "second", "2", "guid-2");
+        bundle.putAllPolicies(singletonMap(second.getPath(), second));
+        assertSame(second, bundle.getEntityById(Policy.class, "2"));
+
+        bundle.getPolicies().remove(first.getPath());
+        assertNull(bundle.getEntityById(Policy.class, "1"));
+
+        bundle.getPolicies().values().remove(second);
+        assertNull(bundle.getEntityById(Policy.class, "2"));
+    }
+
+    @Test
+    void getEntityChangedInPlace() {
+        Bundle bundle = new Bundle();
+        Policy first = policy("first", "policy", "1", "guid-1");
+        Policy second = policy("second", "policy", "2", "guid-2");
+        bundle.getPolicies().put(first.getPath(), first);
+        bundle.getPolicies().put(second.getPath(), second);
+        Policy found = bundle.getEntityByName(Policy.class, "policy");
+
+        found.setName("renamed");
+        Policy other = found == first ? second : first;
+        assertSame(other, bundle.getEntityByName(Policy.class, "policy"));
+    }
+
+    @Test
+    void getEntityGivenIdInPlace() {
+        Bundle bundle = new Bundle();
+        Policy policy = policy("policy", "policy", null, null);
+        bundle.getPolicies().put(policy.getPath(), policy);
+        assertNull(bundle.getEntityById(Policy.class, "1"));
+
+        policy.setId("1");
+        assertSame(policy, bundle.getEntityById(Policy.class, "1"));
+    }
+
+    @Test
+    void getFolderById() {
+        Bundle bundle = new Bundle();
+        Folder folder = new Folder();
+        folder.setId("folder-id");
+        folder.setName("folder");
+        folder.setPath("root/folder");
+        bundle.getFolders().put(folder.getPath(), folder);
+
+        assertSame(folder, bundle.getEntityById(Folder.class, "folder-id"));
+        assertSame(folder, bundle.getEntityByPath(Folder.class, "root/folder"));
+    }
+
+    private static Policy policy(String path, String name, String id, String guid) {
+        Policy policy = new Policy();
+        policy.setPath(path);
+        policy.setName(name);
+        policy.setId(id);
+        policy.setGuid(guid);
+        return policy;
+    }
+}
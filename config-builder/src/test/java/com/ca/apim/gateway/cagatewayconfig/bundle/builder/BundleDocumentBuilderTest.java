@@ -8,11 +8,14 @@ package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+import java.io.ByteArrayOutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -24,6 +27,8 @@ import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions.NE
 import static com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties.FAIL_ON_NEW;
 import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
 import static java.util.stream.Collectors.toList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -73,4 +78,35 @@ class BundleDocumentBuilderTest {
         assertPropertiesContent(jdbc.getMappingProperties(), mapPropertiesElements(getSingleChildElement(jdbcMapping, PROPERTIES), PROPERTIES));
     }
 
-}
\ No newline at end of file
+    @Test
+    void writeMatchesPrintedBundle() {
+        Document document = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+        Entity cassandra = EntityBuilderHelper.getEntityWithNameMapping(EntityTypes.CASSANDRA_CONNECTION_TYPE, "Test & <Co>", "Test", createCassandraXml(document, true, true));
+        cassandra.setMappingAction(NEW_OR_EXISTING);
+        cassandra.setMappingProperty(FAIL_ON_NEW, true);
+
+        Element policy = createElementWithAttributes(document, "l7:Policy", ImmutableMap.of("id", "1", "guid", "\"quoted\" & 'single'"));
+        policy.setAttribute("xmlns:l7", BundleDocumentBuilder.GATEWAY_MANAGEMENT);
+        policy.appendChild(createElementWithTextContent(document, "l7:Resource", "<wsp:Policy>\n    <L7p:Assertion/>\n</wsp:Policy>"));
+        policy.appendChild(createElementWithTextContent(document, "l7:Empty", ""));
+        policy.appendChild(document.createCDATASection("some <cdata>"));
+        policy.appendChild(document.createComment(" a comment "));
+        Entity policyEntity = EntityBuilderHelper.getEntityWithNameMapping(EntityTypes.POLICY_TYPE, "", "policy", policy);
+
+        Entity jdbc = EntityBuilderHelper.getEntityWithOnlyMapping(EntityTypes.JDBC_CONNECTION, "Test", "Test");
+        List<Entity> entities = Stream.of(cassandra, policyEntity, jdbc).collect(toList());
+
+        assertWriteMatchesPrintedBundle(document, entities);
+        assertWriteMatchesPrintedBundle(document, Collections.emptyList());
+    }
+
+    private void assertWriteMatchesPrintedBundle(Document document, List<Entity> entities) {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        DocumentTools.INSTANCE.printXML(builder.build(document, entities), printed, false);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        builder.write(entities, streamed);
+
+        assertEquals(new String(printed.toByteArray(), UTF_8), new String(streamed.toByteArray(), UTF_8));
+        assertArrayEquals(printed.toByteArray(), streamed.toByteArray());
+    }
+}
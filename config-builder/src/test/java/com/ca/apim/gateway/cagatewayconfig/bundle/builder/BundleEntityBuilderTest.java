@@ -9,6 +9,7 @@ package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
 import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
 import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.AnnotationType;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingActions;
@@ -23,6 +24,7 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.ca.apim.gateway.cagatewayconfig.beans.Folder.ROOT_FOLDER;
 import static com.ca.apim.gateway.cagatewayconfig.beans.Folder.ROOT_FOLDER_NAME;
@@ -540,6 +542,53 @@ class BundleEntityBuilderTest {
         assertEquals(EntityTypes.ENCAPSULATED_ASSERTION_TYPE, mapping3.getAttribute("type"));
     }
 
+    @Test
+    void testAnnotatedBundlesBuiltInParallel() {
+        BundleEntityBuilder builder = createBundleEntityBuilder();
+        Map<String, BundleArtifacts> sequentialBundles = builder.build(createBundleWithAnnotatedEncasses(4), DEPLOYMENT,
+                DocumentTools.INSTANCE.getDocumentBuilder().newDocument(), projectInfo);
+
+        Map<String, BundleArtifacts> parallelBundles = new ConcurrentHashMap<>();
+        List<String> bundleNames;
+        System.setProperty(ParallelExecutor.PARALLELISM_PROPERTY, "3");
+        try {
+            bundleNames = builder.build(createBundleWithAnnotatedEncasses(4), DEPLOYMENT,
+                    DocumentTools.INSTANCE.getDocumentBuilder().newDocument(), projectInfo, false, parallelBundles::put);
+        } finally {
+            System.clearProperty(ParallelExecutor.PARALLELISM_PROPERTY);
+        }
+
+        assertEquals(4, sequentialBundles.size());
+        assertEquals(new ArrayList<>(sequentialBundles.keySet()), bundleNames);
+        sequentialBundles.forEach((bundleName, artifacts) -> {
+            BundleArtifacts parallelArtifacts = parallelBundles.get(bundleName);
+            assertNotNull(parallelArtifacts);
+            assertEquals(artifacts.getInstallBundle().getFilename(), parallelArtifacts.getInstallBundle().getFilename());
+            assertEquals(getItemNames(artifacts.getInstallBundle().getElement()), getItemNames(parallelArtifacts.getInstallBundle().getElement()));
+            assertEquals(getItemNames(artifacts.getDeleteBundle().getElement()), getItemNames(parallelArtifacts.getDeleteBundle().getElement()));
+        });
+    }
+
+    private static Bundle createBundleWithAnnotatedEncasses(int count) {
+        Bundle bundle = createBundleWithPolicyFragment(false, projectInfo);
+        for (int i = 0; i < count; i++) {
+            Encass encass = buildTestEncassWithAnnotation(TEST_GUID, TEST_ENCASS_POLICY, false);
+            encass.setName(TEST_ENCASS + i);
+            Annotation bundleHintsAnnotation = new Annotation(AnnotationType.BUNDLE_HINTS);
+            bundleHintsAnnotation.setName(TEST_ENCASS_ANNOTATION_NAME + i);
+            encass.setAnnotations(new HashSet<>(Arrays.asList(new Annotation(AnnotationType.BUNDLE), bundleHintsAnnotation)));
+            bundle.getEncasses().put(encass.getName(), encass);
+        }
+        return bundle;
+    }
+
+    private static List<String> getItemNames(Element bundleElement) {
+        List<String> itemNames = new ArrayList<>();
+        getChildElements(getSingleChildElement(bundleElement, REFERENCES), ITEM)
+                .forEach(item -> itemNames.add(getSingleChildElementTextContent(item, NAME)));
+        return itemNames;
+    }
+
     @Test
     void testServiceAnnotatedBundle() throws DocumentParseException {
         Bundle bundle = createBundleForService(false);
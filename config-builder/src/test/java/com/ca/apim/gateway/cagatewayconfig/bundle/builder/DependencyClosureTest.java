@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.*;
+import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.AnnotableEntity.SHARED_ANNOTATION;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyClosureTest {
+
+    private final Bundle bundle = new Bundle();
+
+    @Test
+    void getDependenciesOfCommonEncass() {
+        policy("common", new Dependency("password", EntityTypes.STORED_PASSWORD_TYPE));
+        encass("commonEncass", "common");
+        policy("first", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE));
+        policy("second", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE),
+                new Dependency("first", EntityTypes.POLICY_TYPE));
+        DependencyClosure dependencyClosure = new DependencyClosure(bundle);
+
+        assertEquals(asList("first", "commonEncass", "common", "password"),
+                names(dependencyClosure.getDependencies("first", null, false)));
+        assertEquals(1, dependencyClosure.getClosureCount());
+        // the common encass is loaded once, before the policy that uses it too
+        assertEquals(asList("second", "commonEncass", "common", "password", "first"),
+                names(dependencyClosure.getDependencies("second", null, false)));
+        assertEquals(1, dependencyClosure.getClosureCount());
+    }
+
+    @Test
+    void getDependenciesExcludingShared() {
+        policy("common");
+        encass("commonEncass", "common").setAnnotations(Collections.singleton(SHARED_ANNOTATION));
+        policy("first", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE));
+        policy("second", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE));
+        DependencyClosure dependencyClosure = new DependencyClosure(bundle);
+
+        List<DependencyClosure.Step> dependencies = dependencyClosure.getDependencies("first", null, false);
+        assertEquals(asList("first", "commonEncass", "common"), names(dependencies));
+        assertEquals(asList(false, true, true), dependencies.stream().map(DependencyClosure.Step::isParentShared).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList("first"), names(dependencyClosure.getDependencies("first", null, true)));
+    }
+
+    @Test
+    void getDependenciesOfAnnotatedEncassUsedByItsPolicy() {
+        policy("common", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE));
+        encass("commonEncass", "common");
+        policy("first", new Dependency("commonEncass", EntityTypes.ENCAPSULATED_ASSERTION_TYPE));
+        DependencyClosure dependencyClosure = new DependencyClosure(bundle);
+
+        assertEquals(Collections.singletonList("common"), names(dependencyClosure.getDependencies("common", "commonEncass", false)));
+        assertEquals(asList("first", "commonEncass", "common"), names(dependencyClosure.getDependencies("first", null, false)));
+    }
+
+    @Test
+    void getDependenciesWithAmbiguousPolicyNames() {
+        policy("folder/common");
+        policy("other/common");
+        policy("first", new Dependency("common", EntityTypes.POLICY_TYPE));
+        policy("second", new Dependency("common", EntityTypes.POLICY_TYPE));
+        DependencyClosure dependencyClosure = new DependencyClosure(bundle);
+
+        assertEquals(2, dependencyClosure.getDependencies("first", null, false).size());
+        assertEquals(0, dependencyClosure.getClosureCount());
+    }
+
+    private Policy policy(String path, Dependency... dependencies) {
+        Policy policy = new Policy();
+        policy.setPath(path);
+        policy.setName(path.substring(path.lastIndexOf('/') + 1));
+        policy.setUsedEntities(new LinkedHashSet<>(asList(dependencies)));
+        bundle.getPolicies().put(path, policy);
+        return policy;
+    }
+
+    private Encass encass(String name, String policy) {
+        Encass encass = new Encass();
+        encass.setName(name);
+        encass.setPolicy(policy);
+        bundle.getEncasses().put(name, encass);
+        return encass;
+    }
+
+    private static List<String> names(List<DependencyClosure.Step> dependencies) {
+        return dependencies.stream()
+                .map(step -> step.getEntity() != null ? step.getEntity().getName() : step.getDependency().getName())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.Stage;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.BundleType.DEPLOYMENT;
+import static com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes.CLUSTER_PROPERTY_TYPE;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityBuilderStagesTest {
+
+    private final List<EntityBuilder> entityBuilders = asList(
+            new TestEntityBuilder(100, Stage.SEQUENTIAL),
+            new TestEntityBuilder(200, Stage.INDEPENDENT),
+            new TestEntityBuilder(300, Stage.REFERRING),
+            new TestEntityBuilder(400, Stage.INDEPENDENT),
+            new TestEntityBuilder(500, Stage.SEQUENTIAL),
+            new TestEntityBuilder(600, Stage.REFERRING));
+
+    @Test
+    void getStages() {
+        try (EntityBuilderStages builderStages = new EntityBuilderStages(entityBuilders, 1)) {
+            assertEquals(asList(
+                    Collections.singletonList(100),
+                    asList(200, 400),
+                    Collections.singletonList(300),
+                    Collections.singletonList(500),
+                    Collections.singletonList(600)),
+                    builderStages.getStages().stream()
+                            .map(stage -> stage.stream().map(EntityBuilder::getOrder).collect(Collectors.toList()))
+                            .collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void buildConcurrently() {
+        final Document document = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+        final List<Entity> entities;
+        try (EntityBuilderStages builderStages = new EntityBuilderStages(entityBuilders, 4)) {
+            entities = builderStages.build(new Bundle(), DEPLOYMENT, document);
+        }
+
+        assertEquals(asList("100", "200", "300", "400", "500", "600"),
+                entities.stream().map(Entity::getName).collect(Collectors.toList()));
+        entities.forEach(entity -> assertSame(document, entity.getXmlNoCopy().getOwnerDocument()));
+    }
+
+    @Test
+    void buildConcurrentlyFailure() {
+        final List<EntityBuilder> failingBuilders = asList(new TestEntityBuilder(100, Stage.INDEPENDENT),
+                new TestEntityBuilder(200, Stage.INDEPENDENT) {
+                    @Override
+                    public List<Entity> build(Bundle bundle, BundleType bundleType, Document document) {
+                        throw new EntityBuilderException("failed");
+                    }
+                });
+        try (EntityBuilderStages builderStages = new EntityBuilderStages(failingBuilders, 2)) {
+            final Document document = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+            assertEquals("failed", assertThrows(EntityBuilderException.class,
+                    () -> builderStages.build(new Bundle(), DEPLOYMENT, document)).getMessage());
+        }
+    }
+
+    private static class TestEntityBuilder implements EntityBuilder {
+        private final int order;
+        private final Stage stage;
+
+        TestEntityBuilder(int order, Stage stage) {
+            this.order = order;
+            this.stage = stage;
+        }
+
+        @Override
+        public List<Entity> build(Bundle bundle, BundleType bundleType, Document document) {
+            final String name = String.valueOf(order);
+            return Collections.singletonList(EntityBuilderHelper.getEntityWithNameMapping(CLUSTER_PROPERTY_TYPE, name,
+                    name, document.createElement(name.replaceAll("\\d", "p"))));
+        }
+
+        @Override
+        public @NotNull Integer getOrder() {
+            return order;
+        }
+
+        @Override
+        public @NotNull Stage getStage() {
+            return stage;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.Policy;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class PolicyDocumentCacheTest {
+
+    private static final String POLICY_XML = "<wsp:Policy xmlns:L7p=\"http://www.layer7tech.com/ws/policy\" xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\">\n" +
+            "    <wsp:All wsp:Usage=\"Required\">\n" +
+            "        <L7p:Include><L7p:PolicyGuid stringValue=\"policy\"/></L7p:Include>\n" +
+            "    </wsp:All>\n" +
+            "</wsp:Policy>";
+
+    private final DocumentTools documentTools = spy(new DocumentTools());
+    private final Bundle bundle = new Bundle();
+
+    @Test
+    void getPolicyDocumentParsesOnce() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools);
+        Policy policy = policy("policy.xml", POLICY_XML);
+
+        Document first = cache.getPolicyDocument(bundle, policy);
+        Document second = cache.getPolicyDocument(bundle, policy);
+
+        verify(documentTools, times(1)).parse(anyString());
+        assertNotSame(first, second);
+        assertEquals(documentTools.elementToString(first.getDocumentElement()), documentTools.elementToString(second.getDocumentElement()));
+        // whitespace is cleaned up like when parsing directly
+        assertEquals(1, first.getDocumentElement().getChildNodes().getLength());
+    }
+
+    @Test
+    void getPolicyDocumentReturnsIndependentCopies() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools);
+        Policy policy = policy("policy.xml", POLICY_XML);
+
+        Document first = cache.getPolicyDocument(bundle, policy);
+        first.getDocumentElement().removeChild(first.getDocumentElement().getFirstChild());
+        Document second = cache.getPolicyDocument(bundle, policy);
+
+        assertEquals(1, second.getElementsByTagName("L7p:Include").getLength());
+    }
+
+    @Test
+    void getPolicyDocumentWithChangedContent() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools);
+
+        cache.getPolicyDocument(bundle, policy("policy.xml", POLICY_XML));
+        Document changed = cache.getPolicyDocument(bundle, policy("policy.xml", POLICY_XML.replace("L7p:Include", "L7p:Encapsulated")));
+
+        verify(documentTools, times(2)).parse(anyString());
+        assertEquals(1, changed.getElementsByTagName("L7p:Encapsulated").getLength());
+        assertEquals(2, cache.getTemplateCount());
+    }
+
+    @Test
+    void getPolicyDocumentOfOtherBundleClearsCache() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools);
+        Policy policy = policy("policy.xml", POLICY_XML);
+
+        cache.getPolicyDocument(bundle, policy);
+        cache.getPolicyDocument(new Bundle(), policy);
+
+        verify(documentTools, times(2)).parse(anyString());
+        assertEquals(1, cache.getTemplateCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools, POLICY_XML.length() * 2L);
+
+        cache.getPolicyDocument(bundle, policy("a.xml", POLICY_XML));
+        cache.getPolicyDocument(bundle, policy("b.xml", POLICY_XML));
+        cache.getPolicyDocument(bundle, policy("a.xml", POLICY_XML));
+        cache.getPolicyDocument(bundle, policy("c.xml", POLICY_XML));
+        assertEquals(2, cache.getTemplateCount());
+        assertEquals(POLICY_XML.length() * 2L, cache.getSize());
+        verify(documentTools, times(3)).parse(anyString());
+
+        // a was used more recently than b, so b was evicted
+        cache.getPolicyDocument(bundle, policy("a.xml", POLICY_XML));
+        verify(documentTools, times(3)).parse(anyString());
+        cache.getPolicyDocument(bundle, policy("b.xml", POLICY_XML));
+        verify(documentTools, times(4)).parse(anyString());
+    }
+
+    @Test
+    void doesNotCachePolicyBiggerThanCache() throws DocumentParseException {
+        PolicyDocumentCache cache = new PolicyDocumentCache(documentTools, POLICY_XML.length() - 1L);
+
+        assertNotNull(cache.getPolicyDocument(bundle, policy("policy.xml", POLICY_XML)));
+        assertEquals(0, cache.getTemplateCount());
+        assertEquals(0, cache.getSize());
+    }
+
+    private static Policy policy(String path, String policyXML) {
+        Policy policy = new Policy();
+        policy.setPath(path);
+        policy.setPolicyXML(policyXML);
+        return policy;
+    }
+}
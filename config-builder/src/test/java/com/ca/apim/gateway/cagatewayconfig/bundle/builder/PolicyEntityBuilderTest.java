@@ -10,6 +10,7 @@ import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
 import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder.BundleType;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.AnnotationType;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.gateway.MappingProperties;
@@ -212,7 +213,7 @@ class PolicyEntityBuilderTest {
     }
 
     @Test
-    void maybeAddPolicy() {
+    void orderPolicies() {
         Policy policy1 = new Policy();
         policy1.setName("policy1");
         policy1.setPath("policy1");
@@ -221,15 +222,13 @@ class PolicyEntityBuilderTest {
         policy2.setPath("policy2");
         policy1.getDependencies().add(policy2);
 
-        ArrayList<Policy> orderedPolicies = new ArrayList<>();
-        HashSet<Policy> seenPolicies = new HashSet<>();
-        PolicyEntityBuilder.maybeAddPolicy(bundle, policy1, orderedPolicies, seenPolicies);
+        List<Policy> orderedPolicies = PolicyEntityBuilder.orderPolicies(bundle, Collections.singletonList(policy1));
 
         assertEquals(2, orderedPolicies.size());
         assertEquals(policy1, orderedPolicies.get(1));
         assertEquals(policy2, orderedPolicies.get(0));
 
-        PolicyEntityBuilder.maybeAddPolicy(bundle, policy2, orderedPolicies, seenPolicies);
+        orderedPolicies = PolicyEntityBuilder.orderPolicies(bundle, Arrays.asList(policy1, policy2));
 
         assertEquals(2, orderedPolicies.size());
         assertEquals(policy1, orderedPolicies.get(1));
@@ -237,7 +236,118 @@ class PolicyEntityBuilderTest {
 
         // test dependency loop
         policy2.getDependencies().add(policy1);
-        assertThrows(EntityBuilderException.class, () -> PolicyEntityBuilder.maybeAddPolicy(bundle, policy2, new ArrayList<>(), new HashSet<>()));
+        EntityBuilderException exception = assertThrows(EntityBuilderException.class, () -> PolicyEntityBuilder.orderPolicies(bundle, Collections.singletonList(policy2)));
+        assertTrue(exception.getMessage().endsWith("policy2 -> policy1 -> policy2"));
+    }
+
+    @Test
+    void orderPoliciesSkipsServicePolicies() {
+        Policy servicePolicy = new Policy();
+        servicePolicy.setName("service");
+        servicePolicy.setPath("service.xml");
+        Policy policy = new Policy();
+        policy.setName("policy");
+        policy.setPath("policy");
+        servicePolicy.getDependencies().add(policy);
+        Bundle bundleWithService = new Bundle();
+        bundleWithService.getServices().put("service", new Service());
+
+        assertEquals(Collections.singletonList(policy), PolicyEntityBuilder.orderPolicies(bundleWithService, Arrays.asList(servicePolicy, policy)));
+    }
+
+    @Test
+    void orderPoliciesAtScale() {
+        final int count = 10_000;
+        List<Policy> policies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Policy policy = new Policy();
+            policy.setName("policy" + i);
+            policy.setPath("folder/policy" + i);
+            policies.add(policy);
+        }
+        // a long include chain, plus includes of a few common policies
+        for (int i = 0; i < count - 1; i++) {
+            policies.get(i).getDependencies().add(policies.get(i + 1));
+            if (i < count - 10) {
+                policies.get(i).getDependencies().add(policies.get(count - 1 - i % 10));
+            }
+        }
+
+        List<Policy> orderedPolicies = PolicyEntityBuilder.orderPolicies(bundle, policies);
+
+        assertEquals(count, orderedPolicies.size());
+        Map<Policy, Integer> positions = new HashMap<>();
+        for (int i = 0; i < orderedPolicies.size(); i++) {
+            positions.put(orderedPolicies.get(i), i);
+        }
+        policies.forEach(policy -> policy.getDependencies().forEach(dependency -> assertTrue(positions.get(dependency) < positions.get(policy))));
+
+        // close the chain into a cycle
+        policies.get(count - 1).getDependencies().add(policies.get(0));
+        EntityBuilderException exception = assertThrows(EntityBuilderException.class, () -> PolicyEntityBuilder.orderPolicies(bundle, policies));
+        assertTrue(exception.getMessage().contains(": folder/policy0 -> "));
+        assertTrue(exception.getMessage().endsWith("folder/policy9999 -> folder/policy0"));
+    }
+
+    @Test
+    void buildWithPoliciesPreparedConcurrently() {
+        PolicyEntityBuilder builder = new PolicyEntityBuilder(DocumentTools.INSTANCE, new IdGenerator(),
+                new PolicyXMLBuilder(Collections.singleton(new IncludeAssertionBuilder())));
+        Bundle sequentialBundle = createBundleOfPolicies(100);
+        List<Entity> sequentialEntities = builder.build(sequentialBundle, BundleType.DEPLOYMENT, document);
+
+        Bundle concurrentBundle = createBundleOfPolicies(100);
+        System.setProperty(ParallelExecutor.PARALLELISM_PROPERTY, "4");
+        List<Entity> concurrentEntities;
+        try {
+            concurrentEntities = builder.build(concurrentBundle, BundleType.DEPLOYMENT, document);
+        } finally {
+            System.clearProperty(ParallelExecutor.PARALLELISM_PROPERTY);
+        }
+
+        assertEquals(100, concurrentEntities.size());
+        for (int i = 0; i < sequentialEntities.size(); i++) {
+            assertEquals(sequentialEntities.get(i).getName(), concurrentEntities.get(i).getName());
+            assertEquals(DocumentTools.INSTANCE.elementToString(sequentialEntities.get(i).getXml()),
+                    DocumentTools.INSTANCE.elementToString(concurrentEntities.get(i).getXml()));
+        }
+        assertTrue(concurrentEntities.stream().anyMatch(entity -> entity.getXml().getTextContent().contains("dependencyGuid")));
+        assertEquals(sequentialBundle.getDependentBundles().size(), concurrentBundle.getDependentBundles().size());
+        assertEquals(10, concurrentBundle.getDependentBundles().size());
+    }
+
+    /**
+     * Creates a bundle of policies each including the next one, every tenth one including a policy of a dependency
+     * bundle too.
+     */
+    private static Bundle createBundleOfPolicies(int count) {
+        Bundle dependency = new Bundle();
+        DependentBundle dependentBundle = new DependentBundle();
+        dependentBundle.setType("deployment");
+        dependency.setDependentBundleFrom(dependentBundle);
+        Policy dependencyPolicy = new Policy();
+        dependencyPolicy.setPath("dependency");
+        dependencyPolicy.setGuid("dependencyGuid");
+        dependency.getPolicies().put(dependencyPolicy.getPath(), dependencyPolicy);
+
+        Bundle policies = new Bundle();
+        policies.setDependencies(Collections.singleton(dependency));
+        for (int i = 0; i < count; i++) {
+            Policy policy = new Policy();
+            policy.setPath("folder/policy" + i);
+            policy.setName("policy" + i);
+            policy.setParentFolder(Folder.ROOT_FOLDER);
+            policy.setId("id" + i);
+            policy.setGuid("guid" + i);
+            policy.setPolicyXML("<wsp:Policy xmlns:L7p=\"http://www.layer7tech.com/ws/policy\" xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\">\n" +
+                    "    <wsp:All wsp:Usage=\"Required\">\n" +
+                    (i < count - 1 ? "        <L7p:Include><L7p:PolicyGuid policyPath=\"folder/policy" + (i + 1) + "\"/></L7p:Include>\n" : "") +
+                    (i % 10 == 0 ? "        <L7p:Include><L7p:PolicyGuid policyPath=\"dependency\"/></L7p:Include>\n" : "") +
+                    "    </wsp:All>\n" +
+                    "</wsp:Policy>");
+            policies.getPolicies().put(policy.getPath(), policy);
+        }
+        return policies;
     }
 
     @Test
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.ca.apim.gateway.cagatewayconfig.util.policy.PolicyXMLElements.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the single pass traversal of {@link PolicyXMLBuilder} with the previous approach of one
+ * getElementsByTagName walk per registered builder, on a large generated policy.
+ * Run with the benchmark task, it is excluded from the regular test run.
+ */
+@Tag("benchmark")
+class PolicyXMLBuilderBenchmarkTest {
+    private static final Logger LOGGER = Logger.getLogger(PolicyXMLBuilderBenchmarkTest.class.getName());
+
+    private static final String[] ASSERTION_TAGS = {INCLUDE, ENCAPSULATED, SET_VARIABLE, HTTP_ROUTING_ASSERTION,
+            JDBC_QUERY_ASSERTION, JMS_ROUTING_ASSERTION, MQ_ROUTING_ASSERTION, CASSANDRA_QUERY_ASSERTION,
+            HTTP2_ROUTING_ASSERTION, HARDCODED_RESPONSE, AUTHENTICATION, SPECIFIC_USER};
+    private static final int ASSERTIONS = 20_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    private final AtomicLong visits = new AtomicLong();
+
+    @Test
+    void singlePassAgainstWalkPerBuilder() throws DocumentParseException {
+        final Set<PolicyAssertionBuilder> builders = Stream.of(ASSERTION_TAGS).map(this::countingBuilder).collect(Collectors.toSet());
+        final PolicyXMLBuilder policyXMLBuilder = new PolicyXMLBuilder(builders);
+        final PolicyBuilderContext context = new PolicyBuilderContext("benchmark", largePolicy(),
+                new Bundle(new ProjectInfo("benchmark", "group", "1.0")), new IdGenerator());
+
+        final long walkPerBuilder = measure(() -> buildWithWalkPerBuilder(policyXMLBuilder.getAssertionBuildersByTag(), context));
+        final long walkPerBuilderVisits = visits.getAndSet(0);
+        final long singlePass = measure(() -> policyXMLBuilder.buildPolicyXML(context));
+        final long singlePassVisits = visits.getAndSet(0);
+
+        LOGGER.log(Level.INFO, "{0} assertions, {1} builders: walk per builder {2} us/policy, single pass {3} us/policy",
+                new Object[]{ASSERTIONS, ASSERTION_TAGS.length, walkPerBuilder / 1000, singlePass / 1000});
+        assertEquals(walkPerBuilderVisits, singlePassVisits);
+    }
+
+    /**
+     * @return average nanoseconds per run
+     */
+    private long measure(Runnable run) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run.run();
+        }
+        visits.set(0);
+        final long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            run.run();
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    /**
+     * The traversal used before the single pass, kept here as the baseline.
+     */
+    private static void buildWithWalkPerBuilder(Map<String, PolicyAssertionBuilder> buildersByTag, PolicyBuilderContext context) {
+        buildersByTag.forEach((tag, builder) -> {
+            final NodeList assertions = context.getPolicyDocument().getDocumentElement().getElementsByTagName(tag);
+            for (int i = 0; i < assertions.getLength(); i++) {
+                try {
+                    builder.buildAssertionElement((Element) assertions.item(i), context);
+                } catch (DocumentParseException e) {
+                    throw new EntityBuilderException(e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private static Document largePolicy() throws DocumentParseException {
+        final StringBuilder policy = new StringBuilder("<wsp:Policy xmlns:L7p=\"http://www.layer7tech.com/ws/policy\" " +
+                "xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\"><wsp:All wsp:Usage=\"Required\">");
+        for (int i = 0; i < ASSERTIONS; i++) {
+            if (i % 50 == 0) {
+                policy.append(i == 0 ? "" : "</wsp:OneOrMore>").append("<wsp:OneOrMore wsp:Usage=\"Required\">");
+            }
+            // mostly assertions no builder is interested in, like in real policies
+            final String tag = i % 4 == 0 ? ASSERTION_TAGS[i % ASSERTION_TAGS.length] : "L7p:CommentAssertion";
+            policy.append('<').append(tag).append("><L7p:Name stringValue=\"value").append(i).append("\"/></").append(tag).append('>');
+        }
+        policy.append("</wsp:OneOrMore></wsp:All></wsp:Policy>");
+        return DocumentTools.INSTANCE.parse(policy.toString());
+    }
+
+    private PolicyAssertionBuilder countingBuilder(String tag) {
+        return new PolicyAssertionBuilder() {
+            @Override
+            public void buildAssertionElement(Element element, PolicyBuilderContext policyBuilderContext) {
+                visits.incrementAndGet();
+            }
+
+            @Override
+            public String getAssertionTagName() {
+                return tag;
+            }
+        };
+    }
+}
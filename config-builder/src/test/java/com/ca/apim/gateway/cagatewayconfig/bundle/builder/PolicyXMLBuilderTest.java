@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.bundle.builder;
+
+import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolicyXMLBuilderTest {
+
+    private static final String POLICY = "<wsp:Policy xmlns:L7p=\"http://www.layer7tech.com/ws/policy\" xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\">" +
+            "<wsp:All wsp:Usage=\"Required\">" +
+            "<L7p:First id=\"1\"/>" +
+            "<L7p:Second id=\"2\"/>" +
+            "<wsp:OneOrMore><L7p:First id=\"3\"><L7p:Second id=\"4\"/></L7p:First><L7p:Second id=\"5\"/></wsp:OneOrMore>" +
+            "<L7p:First id=\"6\"/>" +
+            "</wsp:All>" +
+            "</wsp:Policy>";
+
+    private final List<String> visited = new ArrayList<>();
+
+    @Test
+    void buildPolicyXMLVisitsInDocumentOrder() throws DocumentParseException {
+        PolicyXMLBuilder policyXMLBuilder = new PolicyXMLBuilder(ImmutableSet.of(
+                recordingBuilder("L7p:First", (e, c) -> {}),
+                recordingBuilder("L7p:Second", (e, c) -> {})));
+
+        policyXMLBuilder.buildPolicyXML(context(POLICY));
+
+        assertEquals(asList("1", "2", "3", "4", "5", "6"), visited);
+    }
+
+    @Test
+    void buildPolicyXMLWithBuilderChangingChildren() throws DocumentParseException {
+        PolicyXMLBuilder policyXMLBuilder = new PolicyXMLBuilder(ImmutableSet.of(
+                recordingBuilder("L7p:First", (e, c) -> {
+                    // replace all children with a new assertion that is handled too
+                    while (e.getFirstChild() != null) {
+                        e.removeChild(e.getFirstChild());
+                    }
+                    Element added = e.getOwnerDocument().createElement("L7p:Second");
+                    added.setAttribute("id", e.getAttribute("id") + "-added");
+                    e.appendChild(added);
+                }),
+                recordingBuilder("L7p:Second", (e, c) -> {})));
+
+        PolicyBuilderContext context = context(POLICY);
+        policyXMLBuilder.buildPolicyXML(context);
+
+        assertEquals(asList("1", "1-added", "2", "3", "3-added", "5", "6", "6-added"), visited);
+        assertEquals(0, countElementsWithId(context.getPolicyDocument(), "4"));
+    }
+
+    @Test
+    void buildPolicyXMLWithBuilderRemovingElement() throws DocumentParseException {
+        PolicyXMLBuilder policyXMLBuilder = new PolicyXMLBuilder(ImmutableSet.of(
+                recordingBuilder("L7p:First", (e, c) -> e.getParentNode().removeChild(e)),
+                recordingBuilder("L7p:Second", (e, c) -> {
+                    Element replacement = e.getOwnerDocument().createElement("L7p:Second");
+                    replacement.setAttribute("id", e.getAttribute("id") + "-replaced");
+                    e.getParentNode().replaceChild(replacement, e);
+                })));
+
+        PolicyBuilderContext context = context(POLICY);
+        policyXMLBuilder.buildPolicyXML(context);
+
+        assertEquals(asList("1", "2", "3", "5", "6"), visited);
+        assertEquals(0, context.getPolicyDocument().getElementsByTagName("L7p:First").getLength());
+        assertEquals(1, countElementsWithId(context.getPolicyDocument(), "2-replaced"));
+        assertEquals(1, countElementsWithId(context.getPolicyDocument(), "5-replaced"));
+    }
+
+    @Test
+    void buildPolicyXMLWrapsParseException() throws DocumentParseException {
+        PolicyXMLBuilder policyXMLBuilder = new PolicyXMLBuilder(ImmutableSet.of(new PolicyAssertionBuilder() {
+            @Override
+            public void buildAssertionElement(Element element, PolicyBuilderContext policyBuilderContext) throws DocumentParseException {
+                throw new DocumentParseException("invalid");
+            }
+
+            @Override
+            public String getAssertionTagName() {
+                return "L7p:Second";
+            }
+        }));
+
+        PolicyBuilderContext context = context(POLICY);
+        assertThrows(EntityBuilderException.class, () -> policyXMLBuilder.buildPolicyXML(context));
+    }
+
+    private PolicyAssertionBuilder recordingBuilder(String tag, BiConsumer<Element, PolicyBuilderContext> action) {
+        return new PolicyAssertionBuilder() {
+            @Override
+            public void buildAssertionElement(Element element, PolicyBuilderContext policyBuilderContext) {
+                visited.add(element.getAttribute("id"));
+                action.accept(element, policyBuilderContext);
+            }
+
+            @Override
+            public String getAssertionTagName() {
+                return tag;
+            }
+        };
+    }
+
+    private static int countElementsWithId(Document document, String id) {
+        int count = 0;
+        for (String tag : asList("L7p:First", "L7p:Second")) {
+            for (int i = 0; i < document.getElementsByTagName(tag).getLength(); i++) {
+                if (id.equals(((Element) document.getElementsByTagName(tag).item(i)).getAttribute("id"))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static PolicyBuilderContext context(String policy) throws DocumentParseException {
+        Document document = DocumentTools.INSTANCE.parse(policy);
+        return new PolicyBuilderContext("policy", document, new Bundle(new ProjectInfo("test", "group", "1.0")), new IdGenerator());
+    }
+}
@@ -14,8 +14,9 @@ import com.ca.apim.gateway.cagatewayconfig.bundle.builder.DefaultMetadata;
 import com.ca.apim.gateway.cagatewayconfig.util.TestUtils;
 import com.ca.apim.gateway.cagatewayconfig.util.entity.EntityTypes;
 import com.ca.apim.gateway.cagatewayconfig.util.file.JsonFileUtils;
-import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,26 +25,30 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
-import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.ITEM;
-import static java.util.stream.Collectors.toList;
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.createElementWithChildren;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.createElementWithTextContent;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.getSingleChildElement;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toSet;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
-@Extensions({ @ExtendWith(MockitoExtension.class) })
+@Extensions({ @ExtendWith(MockitoExtension.class), @ExtendWith(TemporaryFolderExtension.class) })
 class EntityBundleLoaderTest {
 
     @Mock
@@ -61,32 +66,16 @@ class EntityBundleLoaderTest {
     }
 
     @Test
-    void load() throws DocumentParseException {
+    void load(final TemporaryFolder temporaryFolder) throws IOException {
         Document realDocument = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
-        Document mockDocument = mock(Document.class);
-        when(mockDocument.getElementsByTagName(eq(ITEM))).thenReturn(new NodeList() {
-
-            private List<Element> elements = Stream.of(
-                    TestUtils.createJdbcXml(realDocument),
-                    TestUtils.createCassandraXml(realDocument, true, true),
-                    TestUtils.createUnsupportedElement(realDocument)
-            ).collect(toList());
-
-            @Override
-            public Node item(int index) {
-                return elements.get(index);
-            }
-
-            @Override
-            public int getLength() {
-                return elements.size();
-            }
-        });
-
-        when(documentTools.parse(any(File.class))).thenReturn(mockDocument);
+        File bundleFile = writeBundle(temporaryFolder, realDocument,
+                TestUtils.createJdbcXml(realDocument),
+                TestUtils.createCassandraXml(realDocument, true, true),
+                TestUtils.createUnsupportedElement(realDocument)
+        );
 
-        EntityBundleLoader loader = new EntityBundleLoader(documentTools, registry, JsonFileUtils.INSTANCE);
-        final Bundle bundle = loader.load(mock(File.class), BundleLoadingOperation.EXPORT);
+        EntityBundleLoader loader = new EntityBundleLoader(DocumentTools.INSTANCE, registry, JsonFileUtils.INSTANCE);
+        final Bundle bundle = loader.load(bundleFile, BundleLoadingOperation.EXPORT);
 
         assertNotNull(bundle);
         assertFalse(bundle.getCassandraConnections().isEmpty());
@@ -95,6 +84,56 @@ class EntityBundleLoaderTest {
         assertEquals(1, bundle.getJdbcConnections().size());
     }
 
+    @Test
+    void loadFilteredTypes(final TemporaryFolder temporaryFolder) throws IOException {
+        Document realDocument = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+        File bundleFile = writeBundle(temporaryFolder, realDocument,
+                TestUtils.createJdbcXml(realDocument),
+                TestUtils.createCassandraXml(realDocument, true, true)
+        );
+
+        EntityBundleLoader loader = new EntityBundleLoader(DocumentTools.INSTANCE, registry, JsonFileUtils.INSTANCE);
+        final Bundle bundle = loader.load(bundleFile, BundleLoadingOperation.EXPORT, EntityTypes.JDBC_CONNECTION);
+
+        assertEquals(1, bundle.getJdbcConnections().size());
+        assertTrue(bundle.getCassandraConnections().isEmpty());
+    }
+
+    @Test
+    void loadItemsWrappedInItem(final TemporaryFolder temporaryFolder) throws IOException {
+        Document realDocument = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+        Element bundleElement = createElementWithChildren(realDocument, BUNDLE,
+                createElementWithChildren(realDocument, REFERENCES,
+                        TestUtils.createJdbcXml(realDocument),
+                        TestUtils.createCassandraXml(realDocument, true, true)));
+        Element wrapper = createElementWithChildren(realDocument, ITEM,
+                createElementWithTextContent(realDocument, NAME, "Bundle export"),
+                createElementWithTextContent(realDocument, TYPE, "BUNDLE"),
+                createElementWithChildren(realDocument, RESOURCE, bundleElement));
+        File bundleFile = writeFile(temporaryFolder, wrapper);
+
+        EntityBundleLoader loader = new EntityBundleLoader(DocumentTools.INSTANCE, registry, JsonFileUtils.INSTANCE);
+        final Bundle bundle = loader.load(bundleFile, BundleLoadingOperation.EXPORT);
+
+        assertEquals(1, bundle.getJdbcConnections().size());
+        assertEquals(1, bundle.getCassandraConnections().size());
+    }
+
+    @Test
+    void loadFilteredItemsNestedInItem(final TemporaryFolder temporaryFolder) throws IOException {
+        Document realDocument = DocumentTools.INSTANCE.getDocumentBuilder().newDocument();
+        Element cassandra = TestUtils.createCassandraXml(realDocument, true, true);
+        cassandra.appendChild(TestUtils.createJdbcXml(realDocument));
+        File bundleFile = writeBundle(temporaryFolder, realDocument, cassandra);
+
+        EntityBundleLoader loader = new EntityBundleLoader(DocumentTools.INSTANCE, registry, JsonFileUtils.INSTANCE);
+        final Bundle bundle = loader.load(singletonList(bundleFile), BundleLoadingOperation.EXPORT,
+                item -> !EntityTypes.JDBC_CONNECTION.equals(getSingleChildElement(item, TYPE).getTextContent()));
+
+        assertEquals(1, bundle.getCassandraConnections().size());
+        assertTrue(bundle.getJdbcConnections().isEmpty());
+    }
+
     @Test
     public void testLoadMetadataForEncass(){
         JsonFileUtils jsonFileUtils = mock(JsonFileUtils.class);
@@ -134,9 +173,21 @@ class EntityBundleLoaderTest {
     }
 
     @Test
-    void tryLoadParseException() throws DocumentParseException {
-        when(documentTools.parse(any(File.class))).thenThrow(DocumentParseException.class);
-        assertThrows(BundleLoadException.class, () -> new EntityBundleLoader(documentTools, registry, JsonFileUtils.INSTANCE).load(mock(File.class), BundleLoadingOperation.EXPORT));
+    void tryLoadParseException(final TemporaryFolder temporaryFolder) throws IOException {
+        File bundleFile = temporaryFolder.createFile("invalid.bundle");
+        Files.write(bundleFile.toPath(), "<l7:Bundle xmlns:l7=\"http://ns.l7tech.com/2010/04/gateway-management\"><l7:Item>".getBytes(UTF_8));
+        assertThrows(BundleLoadException.class, () -> new EntityBundleLoader(DocumentTools.INSTANCE, registry, JsonFileUtils.INSTANCE).load(bundleFile, BundleLoadingOperation.EXPORT));
     }
 
-}
\ No newline at end of file
+    private static File writeBundle(TemporaryFolder temporaryFolder, Document document, Element... items) throws IOException {
+        return writeFile(temporaryFolder, createElementWithChildren(document, BUNDLE, createElementWithChildren(document, REFERENCES, items)));
+    }
+
+    private static File writeFile(TemporaryFolder temporaryFolder, Element root) throws IOException {
+        File bundleFile = temporaryFolder.createFile("test.bundle");
+        try (OutputStream outputStream = new FileOutputStream(bundleFile)) {
+            DocumentTools.INSTANCE.printXML(root, outputStream, true);
+        }
+        return bundleFile;
+    }
+}
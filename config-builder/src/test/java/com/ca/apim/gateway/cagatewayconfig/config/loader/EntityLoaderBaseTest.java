@@ -10,8 +10,6 @@ import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.beans.GatewayEntity;
 import com.ca.apim.gateway.cagatewayconfig.util.IdGenerator;
 import com.ca.apim.gateway.cagatewayconfig.util.json.JsonTools;
-import com.fasterxml.jackson.databind.JavaType;
-import com.google.common.collect.ImmutableMap;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,6 +19,7 @@ import org.mockito.junit.jupiter.*;
 import java.io.File;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -64,9 +63,10 @@ class EntityLoaderBaseTest {
         EntityLoader loader = new TestEntityLoader(jsonTools, putToBundle);
 
         when(jsonTools.getDocumentFile(any(File.class), any(String.class))).thenReturn(new File(""));
-        when(jsonTools.readDocumentFile(any(File.class), any(JavaType.class))).thenReturn(ImmutableMap.<String, TestEntity>builder().put("test", new TestEntity("custom")).build());
-        when(jsonTools.getTypeFromFile(any(File.class))).thenReturn(JsonTools.JSON);
-        when(jsonTools.getObjectMapper(any(String.class))).thenReturn(JsonTools.INSTANCE.getObjectMapper(JsonTools.JSON));
+        when(jsonTools.readDocumentFileEntries(any(File.class), any(), any())).thenAnswer(invocation -> {
+            invocation.<BiConsumer<String, TestEntity>>getArgument(2).accept("test", new TestEntity("custom"));
+            return true;
+        });
 
         loader.load(null, new File(""));
         assertTrue(putToBundle.get());
@@ -27,7 +27,9 @@ import org.testcontainers.shaded.com.google.common.io.Files;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -93,6 +95,41 @@ class PolicyAndFolderLoaderTest {
         Assert.assertEquals(dependencyList.size(), 1);
     }
 
+    @Test
+    @ExtendWith(TemporaryFolderExtension.class)
+    void testLoadPoliciesInPathOrder(TemporaryFolder temporaryFolder) throws IOException {
+        IdGenerator idGenerator = Mockito.mock(IdGenerator.class);
+        AtomicInteger nextId = new AtomicInteger();
+        Mockito.when(idGenerator.generate()).thenAnswer(invocation -> String.valueOf(nextId.incrementAndGet()));
+        PolicyAndFolderLoader policyAndFolderLoader = new PolicyAndFolderLoader(policyConverterRegistry, FileUtils.INSTANCE,
+                idGenerator, JsonFileUtils.INSTANCE);
+
+        File policyFolder = temporaryFolder.createDirectory("policy");
+        for (String path : Arrays.asList("b/p2.xml", "a/z/p3.xml", "c.xml", "a/p1.xml")) {
+            File policy = new File(policyFolder, path);
+            Files.createParentDirs(policy);
+            Files.write(path, policy, StandardCharsets.UTF_8);
+        }
+
+        Bundle bundle = new Bundle();
+        policyAndFolderLoader.load(bundle, temporaryFolder.getRoot());
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("", "a/", "a/z/", "b/")), bundle.getFolders().keySet());
+        Assert.assertEquals(bundle.getFolders().get("a/"), bundle.getFolders().get("a/z/").getParentFolder());
+        Assert.assertEquals(bundle.getFolders().get(""), bundle.getFolders().get("b/").getParentFolder());
+        Assert.assertEquals("policy", bundle.getFolders().get("").getName());
+
+        // ids follow the paths of the policies, whatever order the files are read in
+        String[] paths = {"a/p1", "a/z/p3", "b/p2", "c"};
+        for (int i = 0; i < paths.length; i++) {
+            Policy policy = bundle.getPolicies().get(paths[i]);
+            Assert.assertEquals(String.valueOf(i + 1), policy.getId());
+            Assert.assertEquals(paths[i] + ".xml", policy.getPolicyXML());
+            Assert.assertEquals(bundle.getFolders().get(paths[i].substring(0, paths[i].lastIndexOf('/') + 1)),
+                    policy.getParentFolder());
+        }
+    }
+
     @Test
     @ExtendWith(TemporaryFolderExtension.class)
     void testLoadSingle(TemporaryFolder temporaryFolder) {
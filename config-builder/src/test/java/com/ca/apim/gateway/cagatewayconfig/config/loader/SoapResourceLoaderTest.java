@@ -16,7 +16,10 @@ import java.io.File;
 import java.io.IOException;
 
 import static com.ca.apim.gateway.cagatewayconfig.config.loader.FolderLoaderUtils.SOAP_RESOURCES_FOLDER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
 
 
 @ExtendWith(MockitoExtension.class)
@@ -50,6 +53,11 @@ class SoapResourceLoaderTest {
         SoapResource loadedSoapResource = bundle.getSoapResources().get("a/b/c/wsdl.wsdl");
         Assert.assertNotNull(loadedSoapResource);
 
+        // the content is only read when it is used
+        verify(fileUtils, never()).getFileAsString(any(File.class));
+        when(fileUtils.getFileAsString(new File(c, "wsdl.wsdl"))).thenReturn("wsdl content");
+        assertEquals("wsdl content", loadedSoapResource.getContent());
+
         loadedSoapResource = bundle.getSoapResources().get("a/b/c/schema.xsd");
         Assert.assertNotNull(loadedSoapResource);
 
@@ -10,12 +10,23 @@ import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.shaded.com.google.common.collect.ImmutableMap;
 
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static com.ca.apim.gateway.cagatewayconfig.beans.IdentityProvider.INTERNAL_IDP_ID;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class BundleDetemplatizerTest {
 
@@ -88,4 +99,87 @@ class BundleDetemplatizerTest {
         assertThrows(BundleDetemplatizeException.class, () -> bundleDetemplatizer.detemplatizeBundleString(bundleXml));
     }
 
+    @Test
+    void detemplatizeBundleString() {
+        BundleDetemplatizer bundleDetemplatizer = new BundleDetemplatizer(createEnvironmentBundle());
+        String detemplatizedBundle = bundleDetemplatizer.detemplatizeBundleString(bundleXml).toString();
+
+        assertEquals(expectedBundleXml(), detemplatizedBundle);
+        assertFalse(detemplatizedBundle.contains("ENV_PARAM_NAME"));
+        assertFalse(detemplatizedBundle.contains("SERVICE_PROPERTY_ENV"));
+    }
+
+    @Test
+    void detemplatizeBundleReadInSmallChunks() throws IOException {
+        BundleDetemplatizer bundleDetemplatizer = new BundleDetemplatizer(createEnvironmentBundle());
+        // references are cut at every possible position by the chunk boundaries
+        for (int chunkSize = 1; chunkSize < 12; chunkSize++) {
+            StringWriter detemplatizedBundle = new StringWriter();
+            bundleDetemplatizer.detemplatizeBundle(new ChunkedReader(new StringReader(bundleXml), chunkSize), detemplatizedBundle);
+            assertEquals(expectedBundleXml(), detemplatizedBundle.toString());
+        }
+    }
+
+    @Test
+    void detemplatizeBundleKeepsReplacementCharacters() {
+        Bundle bundle = createEnvironmentBundle();
+        bundle.putAllServiceEnvironmentProperties(ImmutableMap.of("my-gateway-api.myEnvironmentVariable",
+                new ServiceEnvironmentProperty("my-gateway-api.myEnvironmentVariable", "$1 \\ value")));
+
+        String detemplatizedBundle = new BundleDetemplatizer(bundle).detemplatizeBundleString(bundleXml).toString();
+        assertTrue(detemplatizedBundle.contains("<l7:StringValue>$1 \\ value</l7:StringValue>"));
+    }
+
+    @Test
+    void detemplatizeBundleValidatesMappings() throws IOException {
+        BundleDetemplatizer bundleDetemplatizer = new BundleDetemplatizer(new Bundle());
+        String mapping = BundleEnvironmentValidatorTest.failOnNewMapping("SECURE_PASSWORD", "myPassword");
+        String templatizedBundle = bundleXml.replace("<l7:Mapping action=\"NewOrUpdate\" srcId=\"8263a394a3782fa4984bcffc2363b8db\" type=\"SERVICE\"/>",
+                mapping);
+
+        for (int chunkSize = 1; chunkSize < 12; chunkSize++) {
+            List<String> mappings = new ArrayList<>();
+            List<String> missingEnvironment = new ArrayList<>();
+            StringWriter detemplatizedBundle = new StringWriter();
+            bundleDetemplatizer.detemplatizeBundle(new ChunkedReader(new StringReader(templatizedBundle), chunkSize), detemplatizedBundle,
+                    mappings::add, missingEnvironment);
+
+            // both references are missing, they are all reported and the bundle is still scanned to its end
+            assertEquals(Collections.singletonList(mapping), mappings);
+            assertEquals(2, missingEnvironment.size());
+            assertTrue(missingEnvironment.get(0).contains("my-gateway-api.myEnvironmentVariable"));
+            assertTrue(missingEnvironment.get(1).contains("anotherEnvVar"));
+            assertEquals(templatizedBundle, detemplatizedBundle.toString());
+        }
+    }
+
+    private static Bundle createEnvironmentBundle() {
+        Bundle bundle = new Bundle();
+        bundle.putAllContextVariableEnvironmentProperties(ImmutableMap.of("anotherEnvVar",
+                new ContextVariableEnvironmentProperty("anotherEnvVar", "context value")));
+        bundle.putAllServiceEnvironmentProperties(ImmutableMap.of("my-gateway-api.myEnvironmentVariable",
+                new ServiceEnvironmentProperty("my-gateway-api.myEnvironmentVariable", "service value")));
+        return bundle;
+    }
+
+    private String expectedBundleXml() {
+        return bundleXml
+                .replace("L7p:Base64Expression ENV_PARAM_NAME=\"ENV.anotherEnvVar\"",
+                        "L7p:Base64Expression stringValue=\"" + Base64.getEncoder().encodeToString("context value".getBytes()) + "\"")
+                .replace("SERVICE_PROPERTY_ENV.my-gateway-api.myEnvironmentVariable", "service value");
+    }
+
+    private static class ChunkedReader extends FilterReader {
+        private final int chunkSize;
+
+        ChunkedReader(Reader in, int chunkSize) {
+            super(in);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            return super.read(cbuf, off, Math.min(len, chunkSize));
+        }
+    }
 }
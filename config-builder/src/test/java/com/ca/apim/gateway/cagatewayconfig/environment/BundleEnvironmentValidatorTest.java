@@ -10,9 +10,13 @@ import com.ca.apim.gateway.cagatewayconfig.beans.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.function.Executable;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleCreationMode.APPLICATION;
 import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleCreationMode.PLUGIN;
 import static com.ca.apim.gateway.cagatewayconfig.util.properties.PropertyConstants.PREFIX_GATEWAY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -530,4 +534,54 @@ class BundleEnvironmentValidatorTest {
         BundleEnvironmentValidator bundleEnvironmentValidator = new BundleEnvironmentValidator(environmentBundle);
         assertThrows(DeploymentBundleException.class, () -> bundleEnvironmentValidator.validateEnvironmentProvided("myBundle", "bundle", APPLICATION));
     }
-}
\ No newline at end of file
+
+    @Test
+    void validateEnvironmentProvidedReportsAllMissing() {
+        Bundle environmentBundle = new Bundle();
+        BundleEnvironmentValidator bundleEnvironmentValidator = new BundleEnvironmentValidator(environmentBundle);
+        Executable validateBundle = () -> bundleEnvironmentValidator.validateEnvironmentProvided("myBundle", "" +
+                "<l7:Bundle xmlns:l7=\"http://ns.l7tech.com/2010/04/gateway-management\">\n" +
+                "    <l7:References>" +
+                "    </l7:References>\n" +
+                "    <l7:Mappings>" +
+                failOnNewMapping("SECURE_PASSWORD", "myPassword") +
+                failOnNewMapping("JDBC_CONNECTION", "myConnection") +
+                "    </l7:Mappings>\n" +
+                "</l7:Bundle>", APPLICATION);
+
+        MissingEnvironmentException exception = assertThrows(MissingEnvironmentException.class, validateBundle);
+        assertTrue(exception.getMessage().contains("myBundle"));
+        assertTrue(exception.getMessage().contains("myPassword"));
+        assertTrue(exception.getMessage().contains("myConnection"));
+    }
+
+    @Test
+    void validateMapping() {
+        Bundle environmentBundle = new Bundle();
+        environmentBundle.getStoredPasswords().put("myPassword", new StoredPassword());
+        BundleEnvironmentValidator bundleEnvironmentValidator = new BundleEnvironmentValidator(environmentBundle);
+
+        List<String> missingEnvironment = new ArrayList<>();
+        bundleEnvironmentValidator.validateMapping("myBundle", failOnNewMapping("SECURE_PASSWORD", "myPassword"), APPLICATION, missingEnvironment);
+        bundleEnvironmentValidator.validateMapping("myBundle", failOnNewMapping("SECURE_PASSWORD", "otherPassword"), APPLICATION, missingEnvironment);
+
+        assertEquals(1, missingEnvironment.size());
+        assertTrue(missingEnvironment.get(0).contains("otherPassword"));
+    }
+
+    static String failOnNewMapping(String type, String name) {
+        return "<l7:Mapping action=\"NewOrExisting\" srcId=\"89dbda0631bd25a08c73c96aebec7f5a\" type=\"" + type + "\">\n" +
+                "    <l7:Properties>\n" +
+                "        <l7:Property key=\"MapBy\">\n" +
+                "            <l7:StringValue>name</l7:StringValue>\n" +
+                "        </l7:Property>\n" +
+                "        <l7:Property key=\"MapTo\">\n" +
+                "            <l7:StringValue>" + name + "</l7:StringValue>\n" +
+                "        </l7:Property>\n" +
+                "        <l7:Property key=\"FailOnNew\">\n" +
+                "            <l7:BooleanValue>true</l7:BooleanValue>\n" +
+                "        </l7:Property>\n" +
+                "    </l7:Properties>\n" +
+                "</l7:Mapping>";
+    }
+}
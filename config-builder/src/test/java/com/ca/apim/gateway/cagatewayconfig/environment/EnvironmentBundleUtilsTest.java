@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.environment;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
+import com.ca.apim.gateway.cagatewayconfig.beans.ServiceEnvironmentProperty;
+import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.FileTemplatizedBundle;
+import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.StringTemplatizedBundle;
+import com.google.common.collect.ImmutableMap;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleCreationMode.APPLICATION;
+import static com.ca.apim.gateway.cagatewayconfig.environment.EnvironmentBundleCreationMode.PLUGIN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnvironmentBundleUtilsTest {
+
+    @Test
+    void processDeploymentBundlesInParallel() {
+        final List<TemplatizedBundle> templatizedBundles = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            templatizedBundles.add(new StringTemplatizedBundle("bundle-" + i, bundle("my-gateway-api.myEnvironmentVariable")));
+        }
+
+        EnvironmentBundleUtils.processDeploymentBundles(createEnvironmentBundle(), templatizedBundles, APPLICATION, true, 4);
+
+        templatizedBundles.forEach(tb -> assertEquals(bundleWithValue("service value"), tb.getContents(), tb.getName()));
+    }
+
+    @Test
+    void processDeploymentBundlesReportsAllFailures() {
+        final List<TemplatizedBundle> templatizedBundles = asList(
+                new StringTemplatizedBundle("bundle-1", bundle("my-gateway-api.first")),
+                new StringTemplatizedBundle("bundle-2", bundle("my-gateway-api.myEnvironmentVariable")),
+                new StringTemplatizedBundle("bundle-3", bundle("my-gateway-api.second")));
+
+        final MissingEnvironmentException exception = assertThrows(MissingEnvironmentException.class, () ->
+                EnvironmentBundleUtils.processDeploymentBundles(createEnvironmentBundle(), templatizedBundles, APPLICATION, true, 3));
+
+        // the failures are reported in the order of the bundles, and the other bundles are still processed
+        final String message = exception.getMessage();
+        assertTrue(message.startsWith("2 deployment bundles are missing environment values:"), message);
+        assertTrue(message.indexOf("my-gateway-api.first") < message.indexOf("my-gateway-api.second"), message);
+        assertEquals(bundleWithValue("service value"), templatizedBundles.get(1).getContents());
+    }
+
+    @Test
+    void processDeploymentBundlesReportsSingleFailure() {
+        final List<TemplatizedBundle> templatizedBundles = asList(
+                new StringTemplatizedBundle("bundle-1", bundle("my-gateway-api.myEnvironmentVariable")),
+                new StringTemplatizedBundle("bundle-2", bundle("my-gateway-api.first")));
+
+        final MissingEnvironmentException exception = assertThrows(MissingEnvironmentException.class, () ->
+                EnvironmentBundleUtils.processDeploymentBundles(createEnvironmentBundle(), templatizedBundles, APPLICATION, true, 1));
+
+        assertEquals("Missing environment value for property: my-gateway-api.first", exception.getMessage());
+    }
+
+    @Test
+    @ExtendWith(TemporaryFolderExtension.class)
+    void processDeploymentBundleInPlaceKeepsBundleOnFailure(TemporaryFolder temporaryFolder) throws IOException {
+        // in plugin mode the templatized bundle is detemplatized into itself
+        final File bundleFile = temporaryFolder.createFile("my-bundle-policy.install.bundle");
+        writeStringToFile(bundleFile, bundle("my-gateway-api.first"), UTF_8);
+
+        assertThrows(MissingEnvironmentException.class, () -> EnvironmentBundleUtils.processDeploymentBundles(createEnvironmentBundle(),
+                Collections.singletonList(new FileTemplatizedBundle(bundleFile, bundleFile)), PLUGIN, true, 1));
+
+        assertEquals(bundle("my-gateway-api.first"), readFileToString(bundleFile, UTF_8));
+        assertArrayEquals(new String[]{bundleFile.getName()}, temporaryFolder.getRoot().list());
+    }
+
+    private static String bundle(String serviceProperty) {
+        return bundleWithValue("SERVICE_PROPERTY_ENV." + serviceProperty);
+    }
+
+    private static String bundleWithValue(String value) {
+        return "<l7:Bundle xmlns:l7=\"http://ns.l7tech.com/2010/04/gateway-management\"><l7:Properties>"
+                + "<l7:Property key=\"property.ENV.myEnvironmentVariable\"><l7:StringValue>" + value + "</l7:StringValue></l7:Property>"
+                + "</l7:Properties></l7:Bundle>";
+    }
+
+    private static Bundle createEnvironmentBundle() {
+        Bundle bundle = new Bundle();
+        bundle.putAllServiceEnvironmentProperties(ImmutableMap.of("my-gateway-api.myEnvironmentVariable",
+                new ServiceEnvironmentProperty("my-gateway-api.myEnvironmentVariable", "service value")));
+        return bundle;
+    }
+}
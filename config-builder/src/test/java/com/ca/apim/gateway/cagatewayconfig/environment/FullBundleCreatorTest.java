@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.environment;
+
+import com.ca.apim.gateway.cagatewayconfig.ProjectInfo;
+import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
+import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.w3c.dom.Element;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static com.ca.apim.gateway.cagatewayconfig.util.gateway.BundleElementNames.*;
+import static com.ca.apim.gateway.cagatewayconfig.util.policy.PolicyXMLElements.ENCAPSULATED_ASSERTION_CONFIG_GUID;
+import static com.ca.apim.gateway.cagatewayconfig.util.policy.PolicyXMLElements.STRING_VALUE;
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class FullBundleCreatorTest {
+
+    private static final String ROOT_FOLDER_ID = "0000000000000000ffffffffffffec76";
+    private static final String ENCASS_ID = "b5f856df483ce1c5362a9ab401fb9161";
+    private static final String POLICY_ID = "d642a9f6d8d5a46cdc96cb1cc0261377";
+
+    @Test
+    void createFullBundle(final TemporaryFolder temporaryFolder) throws IOException, DocumentParseException {
+        final File bundleFolder = temporaryFolder.createDirectory("bundle");
+        final File dependencyFolder = temporaryFolder.createDirectory("dependencies");
+        final File environmentFolder = temporaryFolder.createDirectory("environment");
+        // the deployment bundle has the root folder of the dependency bundle as well
+        writeStringToFile(new File(bundleFolder, "my-bundle-1.0.install.bundle"),
+                "<l7:Bundle xmlns:l7=\"http://ns.l7tech.com/2010/04/gateway-management\"><l7:References>"
+                        + "<l7:Item><l7:Name>Root Node</l7:Name><l7:Id>" + ROOT_FOLDER_ID + "</l7:Id><l7:Type>FOLDER</l7:Type>"
+                        + "<l7:Resource><l7:Folder id=\"" + ROOT_FOLDER_ID + "\"><l7:Name>Root Node</l7:Name></l7:Folder></l7:Resource></l7:Item>"
+                        + "</l7:References><l7:Mappings>"
+                        + "<l7:Mapping action=\"NewOrExisting\" srcId=\"" + ROOT_FOLDER_ID + "\" type=\"FOLDER\"/>"
+                        + "</l7:Mappings></l7:Bundle>", UTF_8);
+        final List<File> dependencyBundles = asList(
+                copyResource("DependencyBundleProcessorTest_1.bundle", dependencyFolder),
+                copyResource("DependencyBundleProcessorTest_2.bundle", dependencyFolder));
+
+        InjectionRegistry.getInstance(FullBundleCreator.class).createFullBundle(
+                ImmutablePair.of("my-bundle-1.0", Collections.emptyMap()), dependencyBundles, bundleFolder.getPath(),
+                new ProjectInfo("my-bundle", "my-group", "1.0"), "my-bundle-1.0-full.install.bundle",
+                environmentFolder.getPath(), true);
+
+        final Element fullBundle = DocumentTools.INSTANCE.parse(new File(bundleFolder, "my-bundle-1.0-full.install.bundle")).getDocumentElement();
+        // the items and mappings of the environment come first
+        final List<Element> items = getChildElements(getSingleChildElement(fullBundle, REFERENCES), ITEM);
+        final List<String> itemIds = items.stream().map(item -> getSingleChildElementTextContent(item, ID)).collect(Collectors.toList());
+        assertEquals(asList(ROOT_FOLDER_ID, ENCASS_ID, POLICY_ID), itemIds.subList(itemIds.size() - 3, itemIds.size()));
+        assertEquals(1, Collections.frequency(itemIds, ROOT_FOLDER_ID));
+        // the mappings of the repeated folder and of the encass without item in the second bundle are not repeated
+        final List<String> mappingIds = getChildElements(getSingleChildElement(fullBundle, MAPPINGS), MAPPING).stream()
+                .map(mapping -> mapping.getAttribute(ATTRIBUTE_SRCID)).collect(Collectors.toList());
+        assertEquals(asList(ROOT_FOLDER_ID, ENCASS_ID), mappingIds.subList(mappingIds.size() - 2, mappingIds.size()));
+        assertEquals(itemIds.size() - 1, mappingIds.size());
+
+        // the policy points to the encass of the other dependency bundle
+        final Element policyResource = StreamSupport.stream(nodeList(items.get(items.size() - 1).getElementsByTagName(RESOURCE)).spliterator(), false)
+                .map(node -> (Element) node).filter(resource -> "policy".equals(resource.getAttribute(ATTRIBUTE_TYPE))).findFirst().orElse(null);
+        assertNotNull(policyResource);
+        final Element policy = DocumentTools.INSTANCE.parse(policyResource.getTextContent()).getDocumentElement();
+        final Element guid = (Element) policy.getElementsByTagName(ENCAPSULATED_ASSERTION_CONFIG_GUID).item(0);
+        assertEquals("283e93c6-9cf6-46f1-a34a-cf333bf4f1c3", guid.getAttribute(STRING_VALUE));
+
+        assertTrue(new File(bundleFolder, "my-bundle-1.0-full.delete.bundle").isFile());
+    }
+
+    private static File copyResource(final String name, final File folder) throws IOException {
+        final File file = new File(folder, name);
+        Files.write(file.toPath(), IOUtils.toByteArray(Thread.currentThread().getContextClassLoader().getResource(name)));
+        return file;
+    }
+}
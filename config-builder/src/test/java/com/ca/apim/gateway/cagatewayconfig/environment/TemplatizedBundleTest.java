@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.environment;
+
+import com.ca.apim.gateway.cagatewayconfig.environment.TemplatizedBundle.FileTemplatizedBundle;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class TemplatizedBundleTest {
+
+    private static final String BUNDLE = "<l7:Bundle xmlns:l7=\"http://ns.l7tech.com/2010/04/gateway-management\"/>";
+
+    @Test
+    void transformContentsIntoOriginalFile(final TemporaryFolder temporaryFolder) throws IOException {
+        final File bundleFile = temporaryFolder.createFile("my-bundle-policy.install.bundle");
+        writeStringToFile(bundleFile, BUNDLE, UTF_8);
+
+        new FileTemplatizedBundle(bundleFile, bundleFile).transformContents((contents, newContents) ->
+                newContents.write(IOUtils.toString(contents).toUpperCase()));
+
+        assertEquals(BUNDLE.toUpperCase() + System.lineSeparator(), readFileToString(bundleFile, UTF_8));
+        assertArrayEquals(new String[]{bundleFile.getName()}, temporaryFolder.getRoot().list());
+    }
+
+    @Test
+    void transformContentsIntoNewFile(final TemporaryFolder temporaryFolder) throws IOException {
+        final File bundleFile = temporaryFolder.createFile("my-bundle.bundle");
+        writeStringToFile(bundleFile, BUNDLE, UTF_8);
+        final File newFile = new File(temporaryFolder.createDirectory("detemplatized"), bundleFile.getName());
+
+        new FileTemplatizedBundle(bundleFile, newFile).transformContents((contents, newContents) -> IOUtils.copy(contents, newContents));
+
+        assertEquals(BUNDLE, readFileToString(bundleFile, UTF_8));
+        assertEquals(BUNDLE + System.lineSeparator(), readFileToString(newFile, UTF_8));
+    }
+}
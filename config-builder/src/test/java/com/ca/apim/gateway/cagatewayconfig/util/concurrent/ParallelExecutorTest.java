@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelExecutorTest {
+
+    @Test
+    void mapSequentially() {
+        final Thread caller = Thread.currentThread();
+        try (ParallelExecutor executor = new ParallelExecutor(1)) {
+            assertFalse(executor.isParallel());
+            assertEquals(asList(true, true), executor.map(asList(1, 2), item -> Thread.currentThread() == caller));
+        }
+    }
+
+    @Test
+    void mapInParallelKeepsOrder() {
+        final List<Integer> items = IntStream.range(0, 4).boxed().collect(Collectors.toList());
+        // every task waits for the others, so they only complete if they all run at the same time
+        final CountDownLatch started = new CountDownLatch(items.size());
+        try (ParallelExecutor executor = new ParallelExecutor(items.size())) {
+            assertTrue(executor.isParallel());
+            final List<Integer> results = executor.map(items, item -> {
+                started.countDown();
+                try {
+                    assertTrue(started.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return item * 10;
+            });
+            assertEquals(asList(0, 10, 20, 30), results);
+        }
+    }
+
+    @Test
+    void mapThrowsFailureOfFirstItem() {
+        try (ParallelExecutor executor = new ParallelExecutor(2)) {
+            final IllegalStateException failure = assertThrows(IllegalStateException.class, () -> executor.map(asList(1, 2, 3), item -> {
+                if (item > 1) {
+                    throw new IllegalStateException("failed " + item);
+                }
+                return item;
+            }));
+            assertEquals("failed 2", failure.getMessage());
+            // the executor can still be used after a failure
+            assertEquals(singletonList(1), executor.map(singletonList(1), item -> item));
+        }
+    }
+
+    @Test
+    void getParallelism() {
+        assertEquals(1, ParallelExecutor.getParallelism());
+        System.setProperty(ParallelExecutor.PARALLELISM_PROPERTY, "0");
+        try {
+            assertEquals(1, ParallelExecutor.getParallelism());
+            System.setProperty(ParallelExecutor.PARALLELISM_PROPERTY, "4");
+            assertEquals(4, ParallelExecutor.getParallelism());
+        } finally {
+            System.clearProperty(ParallelExecutor.PARALLELISM_PROPERTY);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.file;
+
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class ParsedFileCacheTest {
+
+    private final AtomicInteger parseCount = new AtomicInteger();
+    private final Function<File, String> parser = file -> {
+        parseCount.incrementAndGet();
+        try {
+            return file.exists() ? readFileToString(file, UTF_8) : null;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    };
+
+    @Test
+    void get(final TemporaryFolder temporaryFolder) throws IOException {
+        final ParsedFileCache<String> cache = new ParsedFileCache<>(2);
+        final File file = temporaryFolder.createFile("file.yml");
+        writeStringToFile(file, "content", UTF_8);
+
+        assertEquals("content", cache.get(file, parser));
+        assertEquals("content", cache.get(file, parser));
+        assertEquals("content", cache.get(new File(file.getParentFile(), "./file.yml"), parser));
+        assertEquals(1, parseCount.get());
+
+        writeStringToFile(file, "changed content", UTF_8);
+        assertEquals("changed content", cache.get(file, parser));
+        assertEquals(2, parseCount.get());
+    }
+
+    @Test
+    void getEvictsLeastRecentlyUsed(final TemporaryFolder temporaryFolder) throws IOException {
+        final ParsedFileCache<String> cache = new ParsedFileCache<>(2);
+        final File first = temporaryFolder.createFile("first.yml");
+        final File second = temporaryFolder.createFile("second.yml");
+        final File third = temporaryFolder.createFile("third.yml");
+
+        cache.get(first, parser);
+        cache.get(second, parser);
+        cache.get(first, parser);
+        cache.get(third, parser);
+        assertEquals(3, parseCount.get());
+
+        // second was dropped, first was used more recently
+        cache.get(first, parser);
+        assertEquals(3, parseCount.get());
+        cache.get(second, parser);
+        assertEquals(4, parseCount.get());
+    }
+
+    @Test
+    void getMissingFile(final TemporaryFolder temporaryFolder) {
+        final ParsedFileCache<String> cache = new ParsedFileCache<>(2);
+        final File missing = new File(temporaryFolder.getRoot(), "missing.yml");
+
+        cache.get(missing, parser);
+        cache.get(missing, parser);
+        assertEquals(2, parseCount.get());
+    }
+}
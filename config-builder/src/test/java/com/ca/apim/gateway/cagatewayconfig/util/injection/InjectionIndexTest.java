@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.injection;
+
+import com.ca.apim.gateway.cagatewayconfig.beans.GatewayEntity;
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder;
+import com.ca.apim.gateway.cagatewayconfig.bundle.builder.PolicyAssertionBuilder;
+import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleEntityLoader;
+import com.ca.apim.gateway.cagatewayconfig.config.loader.EntityLoader;
+import com.ca.apim.gateway.cagatewayconfig.config.loader.policy.PolicyConverter;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.reflections.Reflections;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(TemporaryFolderExtension.class)
+class InjectionIndexTest {
+
+    private static final String BASE_PACKAGE = "com.ca.apim.gateway.cagatewayconfig";
+
+    @Test
+    void loadIndexAnswersLikeScan(final TemporaryFolder temporaryFolder) throws IOException {
+        final File indexFolder = temporaryFolder.createDirectory("index");
+        InjectionIndex.main(new String[]{indexFolder.getPath(), BASE_PACKAGE});
+
+        final Reflections scanned = new Reflections(BASE_PACKAGE);
+        final Reflections indexed = InjectionIndex.load(BASE_PACKAGE, indexClassLoader(indexFolder));
+        assertNotNull(indexed);
+        for (Class<?> type : new Class<?>[]{InjectionProvider.class, EntityBuilder.class, BundleEntityLoader.class,
+                EntityLoader.class, PolicyConverter.class, PolicyAssertionBuilder.class, GatewayEntity.class}) {
+            assertFalse(indexed.getSubTypesOf(type).isEmpty(), type.getName());
+            assertEquals(scanned.getSubTypesOf(type), indexed.getSubTypesOf(type), type.getName());
+        }
+    }
+
+    @Test
+    void writeIndexIsReproducible(final TemporaryFolder temporaryFolder) throws IOException {
+        final File firstFolder = temporaryFolder.createDirectory("first");
+        final File secondFolder = temporaryFolder.createDirectory("second");
+        InjectionIndex.main(new String[]{firstFolder.getPath(), BASE_PACKAGE});
+        InjectionIndex.main(new String[]{secondFolder.getPath(), BASE_PACKAGE});
+
+        final String indexResource = InjectionIndex.getIndexResource(BASE_PACKAGE);
+        assertArrayEquals(Files.readAllBytes(new File(firstFolder, indexResource).toPath()),
+                Files.readAllBytes(new File(secondFolder, indexResource).toPath()));
+    }
+
+    @Test
+    void loadMissingIndex(final TemporaryFolder temporaryFolder) throws IOException {
+        assertNull(InjectionIndex.load("com.example.missing", indexClassLoader(temporaryFolder.createDirectory("index"))));
+    }
+
+    static ClassLoader indexClassLoader(File indexFolder) throws IOException {
+        return new URLClassLoader(new URL[]{indexFolder.toURI().toURL()}, InjectionIndexTest.class.getClassLoader());
+    }
+}
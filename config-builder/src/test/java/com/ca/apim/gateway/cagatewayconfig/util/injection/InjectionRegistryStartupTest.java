@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.injection;
+
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the fast start of the environment creator application on container startup. Starts a new JVM that creates the
+ * injector in fast-start mode, the way the container starts the application, and checks it reads the injection index
+ * instead of falling back to scanning the classpath. The startup time is not checked, a single JVM start is too noisy
+ * for a budget to tell a fast start from a scan.
+ */
+@ExtendWith(TemporaryFolderExtension.class)
+class InjectionRegistryStartupTest {
+
+    private static final long STARTUP_TIMEOUT_SECONDS = 60;
+
+    @Test
+    void fastStartReadsInjectionIndex(final TemporaryFolder temporaryFolder) throws IOException, InterruptedException {
+        final File indexFolder = temporaryFolder.createDirectory("index");
+        InjectionIndex.main(new String[]{indexFolder.getPath(), "com.ca.apim.gateway.cagatewayconfig"});
+        final String classpath = indexFolder.getPath() + File.pathSeparator + System.getProperty("java.class.path");
+
+        final String java = new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath();
+        final Process process = new ProcessBuilder(java, "-cp", classpath, "-Dcom.ca.apim.build.fastStart=true",
+                InjectionRegistryStartupTest.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        final String output;
+        try (InputStream outputStream = process.getInputStream()) {
+            output = IOUtils.toString(outputStream, UTF_8);
+        }
+        if (!process.waitFor(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            fail("injector did not start in " + STARTUP_TIMEOUT_SECONDS + " seconds: " + output);
+        }
+
+        assertEquals(0, process.exitValue(), output);
+        // a fast start that falls back to scanning logs a warning
+        assertFalse(output.contains("scanning the classpath"), output);
+    }
+
+    /**
+     * Creates the injector, run in the started JVM.
+     */
+    public static void main(String[] args) {
+        InjectionRegistry.getInjector();
+    }
+}
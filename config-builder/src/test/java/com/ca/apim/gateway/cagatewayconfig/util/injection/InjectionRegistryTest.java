@@ -6,6 +6,7 @@
 
 package com.ca.apim.gateway.cagatewayconfig.util.injection;
 
+import com.ca.apim.gateway.cagatewayconfig.beans.EntityTypeRegistry;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleDocumentBuilder;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.BundleEntityBuilder;
 import com.ca.apim.gateway.cagatewayconfig.bundle.builder.EntityBuilder;
@@ -26,11 +27,16 @@ import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentTools;
 import com.google.inject.Binding;
 import com.google.inject.Injector;
 import com.google.inject.TypeLiteral;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 import org.reflections.Reflections;
 
 import javax.net.ssl.SSLSocketFactory;
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Modifier;
 import java.security.cert.CertificateFactory;
 import java.util.ArrayList;
@@ -39,6 +45,7 @@ import java.util.List;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
+import static com.google.inject.Guice.createInjector;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -139,4 +146,20 @@ class InjectionRegistryTest {
         registry.getEntityLoaders().forEach(l -> assertFalse(Modifier.isAbstract(l.getClass().getModifiers())));
     }
 
-}
\ No newline at end of file
+    @Test
+    @ExtendWith(TemporaryFolderExtension.class)
+    void checkFastStartFromIndex(TemporaryFolder temporaryFolder) throws IOException {
+        final File indexFolder = temporaryFolder.createDirectory("index");
+        InjectionIndex.main(new String[]{indexFolder.getPath(), "com.ca.apim.gateway.cagatewayconfig"});
+
+        final Injector indexedInjector = createInjector(new InjectionRegistry(true, InjectionIndexTest.indexClassLoader(indexFolder)));
+        assertEquals(injector.getInstance(EntityTypeRegistry.class).getEntityTypeMap().keySet(),
+                indexedInjector.getInstance(EntityTypeRegistry.class).getEntityTypeMap().keySet());
+        assertEquals(injector.findBindingsByType(TypeLiteral.get(EntityLoader.class)).size(),
+                indexedInjector.findBindingsByType(TypeLiteral.get(EntityLoader.class)).size());
+        assertEquals(injector.findBindingsByType(TypeLiteral.get(EntityBuilder.class)).size(),
+                indexedInjector.findBindingsByType(TypeLiteral.get(EntityBuilder.class)).size());
+        assertNotNull(indexedInjector.getInstance(EnvironmentBundleCreator.class));
+    }
+
+}
@@ -8,13 +8,23 @@ package com.ca.apim.gateway.cagatewayconfig.util.json;
 
 import com.ca.apim.gateway.cagatewayconfig.util.file.FileUtils;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
 import static org.junit.jupiter.api.Assertions.*;
 
+@ExtendWith(TemporaryFolderExtension.class)
 class JsonToolsTest {
 
     private JsonTools jsonTools = new JsonTools(FileUtils.INSTANCE);
@@ -37,6 +47,18 @@ class JsonToolsTest {
     @Test
     void getObjectWriter() {
         assertNotNull(jsonTools.getObjectWriter());
+        assertSame(jsonTools.getObjectWriter(JsonTools.JSON), jsonTools.getObjectWriter(JsonTools.JSON));
+        assertNotSame(jsonTools.getObjectWriter(JsonTools.JSON), jsonTools.getObjectWriter(JsonTools.YAML));
+        assertThrows(IllegalArgumentException.class, () -> jsonTools.getObjectWriter("xyz"));
+    }
+
+    @Test
+    void getObjectReader() {
+        final ObjectReader reader = jsonTools.getObjectReader(JsonTools.YAML, Map.class);
+        assertSame(reader, jsonTools.getObjectReader(JsonTools.YAML, Map.class));
+        assertNotSame(reader, jsonTools.getObjectReader(JsonTools.JSON, Map.class));
+        assertNotSame(reader, jsonTools.getObjectReader(JsonTools.YAML, String.class));
+        assertThrows(IllegalArgumentException.class, () -> jsonTools.getObjectReader("xyz", Map.class));
     }
 
     @Test
@@ -70,4 +92,48 @@ class JsonToolsTest {
         jsonTools.setOutputType(JsonTools.JSON);
         assertEquals(".json", jsonTools.getFileExtension());
     }
-}
\ No newline at end of file
+
+    @Test
+    void readDocumentFileEntry(final TemporaryFolder temporaryFolder) throws IOException {
+        final File file = temporaryFolder.createFile("entities.yml");
+        writeStringToFile(file, "first:\n  value: one\nsecond:\n  value: two\n", UTF_8);
+
+        assertEquals("one", jsonTools.readDocumentFileEntry(file, "first", Map.class).get("value"));
+        assertEquals("two", jsonTools.readDocumentFileEntry(file, "second", Map.class).get("value"));
+        assertNull(jsonTools.readDocumentFileEntry(file, "third", Map.class));
+
+        // a changed file is read again
+        writeStringToFile(file, "first:\n  value: changed\n", UTF_8);
+        assertEquals("changed", jsonTools.readDocumentFileEntry(file, "first", Map.class).get("value"));
+        assertNull(jsonTools.readDocumentFileEntry(file, "second", Map.class));
+    }
+
+    @Test
+    void readDocumentFileEntryInvalidFile(final TemporaryFolder temporaryFolder) throws IOException {
+        final File file = temporaryFolder.createFile("entities.json");
+        writeStringToFile(file, "{ \"first\": ", UTF_8);
+
+        assertThrows(JsonToolsException.class, () -> jsonTools.readDocumentFileEntry(file, "first", Map.class));
+    }
+
+    @Test
+    void readDocumentFileEntries(final TemporaryFolder temporaryFolder) throws IOException {
+        final File file = temporaryFolder.createFile("entities.yml");
+        writeStringToFile(file, "second:\n  value: two\nfirst:\n  value: one\nempty:\n", UTF_8);
+
+        final Map<String, Map> entries = new LinkedHashMap<>();
+        assertTrue(jsonTools.readDocumentFileEntries(file, Map.class, entries::put));
+        assertArrayEquals(new String[]{"second", "first", "empty"}, entries.keySet().toArray());
+        assertEquals("two", entries.get("second").get("value"));
+        assertEquals("one", entries.get("first").get("value"));
+        assertNull(entries.get("empty"));
+
+        writeStringToFile(file, "~\n", UTF_8);
+        assertFalse(jsonTools.readDocumentFileEntries(file, Map.class, (name, entry) -> fail("Unexpected entry " + name)));
+
+        writeStringToFile(file, "", UTF_8);
+        assertThrows(JsonToolsException.class, () -> jsonTools.readDocumentFileEntries(file, Map.class, (name, entry) -> fail("Unexpected entry " + name)));
+        writeStringToFile(file, "- first\n", UTF_8);
+        assertThrows(JsonToolsException.class, () -> jsonTools.readDocumentFileEntries(file, Map.class, (name, entry) -> fail("Unexpected entry " + name)));
+    }
+}
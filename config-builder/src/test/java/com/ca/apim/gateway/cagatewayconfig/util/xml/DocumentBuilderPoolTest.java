@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.xml;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentBuilderPoolTest {
+
+    @Test
+    void reuseReleasedBuilder() {
+        DocumentBuilderPool pool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance());
+
+        DocumentBuilder first = pool.borrow();
+        pool.release(first);
+        DocumentBuilder second = pool.borrow();
+        pool.release(second);
+
+        assertSame(first, second);
+        DocumentBuilderPool.Statistics statistics = pool.getStatistics();
+        assertEquals(2, statistics.getBorrowCount());
+        assertEquals(1, statistics.getCreatedCount());
+        assertEquals(0, statistics.getContendedCount());
+        assertEquals(1, statistics.getPeakInUse());
+    }
+
+    @Test
+    void concurrentBorrowCreatesNewBuilder() {
+        DocumentBuilderPool pool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance());
+
+        DocumentBuilder first = pool.borrow();
+        DocumentBuilder second = pool.borrow();
+        assertNotSame(first, second);
+        pool.release(first);
+        pool.release(second);
+
+        DocumentBuilderPool.Statistics statistics = pool.getStatistics();
+        assertEquals(2, statistics.getCreatedCount());
+        assertEquals(1, statistics.getContendedCount());
+        assertEquals(2, statistics.getPeakInUse());
+    }
+
+    @Test
+    void parseConcurrently() {
+        DocumentTools documentTools = new DocumentTools();
+
+        List<Document> documents = IntStream.range(0, 200).parallel().mapToObj(i -> {
+            try {
+                return documentTools.parse("<root><value>" + i + "</value></root>");
+            } catch (DocumentParseException e) {
+                throw new AssertionError(e);
+            }
+        }).collect(Collectors.toList());
+
+        for (int i = 0; i < documents.size(); i++) {
+            assertEquals(String.valueOf(i), documents.get(i).getDocumentElement().getTextContent());
+        }
+        assertEquals(200, documentTools.getParserPoolStatistics().getBorrowCount());
+    }
+
+    @Test
+    void parseFailureReleasesBuilder() {
+        DocumentTools documentTools = new DocumentTools();
+
+        assertThrows(DocumentParseException.class, () -> documentTools.parse("<root>"));
+        assertDoesNotThrow(() -> documentTools.parse("<root/>"));
+        assertEquals(1, documentTools.getParserPoolStatistics().getCreatedCount());
+    }
+}
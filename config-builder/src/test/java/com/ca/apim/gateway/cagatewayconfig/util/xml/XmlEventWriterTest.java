@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig.util.xml;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+
+import java.io.ByteArrayOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class XmlEventWriterTest {
+
+    private static final String L7_NAMESPACE = "http://ns.l7tech.com/2010/04/gateway-management";
+
+    @Test
+    void writeNodeMatchesPrintedElement() throws DocumentParseException {
+        assertWriteNodeMatchesPrinted("<l7:Item xmlns:l7=\"" + L7_NAMESPACE + "\">" +
+                "<l7:Name>a &amp; b</l7:Name>" +
+                "<l7:Resource><l7:Policy xmlns:l7=\"" + L7_NAMESPACE + "\" id=\"1\" name=\"&quot;x&quot;\">" +
+                "<l7:Resource><![CDATA[<wsp:Policy/>]]></l7:Resource><!-- comment --><?pi data?>" +
+                "</l7:Policy></l7:Resource>" +
+                "</l7:Item>");
+    }
+
+    @Test
+    void writeNodeWithDefaultNamespace() throws DocumentParseException {
+        assertWriteNodeMatchesPrinted("<root xmlns=\"urn:default\"><child attr=\"1\"><inner/></child>" +
+                "<other xmlns:p=\"urn:p\" xmlns=\"urn:other\"><p:value>text</p:value></other></root>");
+    }
+
+    @Test
+    void writeElementsMatchesPrintedElement() throws DocumentParseException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (XmlEventWriter writer = DocumentTools.INSTANCE.createXmlEventWriter(outputStream)) {
+            writer.writeStartElement("l7:Bundle", ImmutableMap.of("xmlns:l7", L7_NAMESPACE));
+            writer.writeTextElement("l7:Name", "<name>");
+            writer.writeTextElement("l7:Empty", "");
+            writer.writeStartElement("l7:Resource");
+            writer.writeNode(DocumentTools.INSTANCE.parse("<l7:Item xmlns:l7=\"" + L7_NAMESPACE + "\"><l7:Id>1</l7:Id></l7:Item>").getDocumentElement());
+            writer.writeEndElement("l7:Resource");
+            writer.writeEndElement("l7:Bundle");
+        }
+
+        final String expected = "<l7:Bundle xmlns:l7=\"" + L7_NAMESPACE + "\"><l7:Name>&lt;name&gt;</l7:Name><l7:Empty/>" +
+                "<l7:Resource><l7:Item><l7:Id>1</l7:Id></l7:Item></l7:Resource></l7:Bundle>";
+        assertEquals(print(DocumentTools.INSTANCE.parse(expected).getDocumentElement()), new String(outputStream.toByteArray(), UTF_8));
+    }
+
+    private static void assertWriteNodeMatchesPrinted(String xml) throws DocumentParseException {
+        final Element element = DocumentTools.INSTANCE.parse(xml).getDocumentElement();
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (XmlEventWriter writer = DocumentTools.INSTANCE.createXmlEventWriter(outputStream)) {
+            writer.writeNode(element);
+        }
+
+        assertEquals(print(element), new String(outputStream.toByteArray(), UTF_8));
+    }
+
+    private static String print(Element element) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DocumentTools.INSTANCE.printXML(element, outputStream, false);
+        return new String(outputStream.toByteArray(), UTF_8);
+    }
+}
@@ -16,6 +16,7 @@ import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.Delete;
+import org.gradle.api.tasks.TaskProvider;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -37,30 +38,31 @@ public class CAGatewayExport implements Plugin<Project> {
         // Set Defaults
         project.afterEvaluate(p -> setDefaults(gatewayConnectionProperties));
 
-        BuildExportQueryTask buildExportQueryTask = project.getTasks().create("build-export-query", BuildExportQueryTask.class);
+        // Tasks are registered lazily, so they are only created and configured when they are part of the build
+        TaskProvider<BuildExportQueryTask> buildExportQueryTask = project.getTasks().register("build-export-query", BuildExportQueryTask.class);
 
-        ExportTask exportTask = project.getTasks().create("export-raw", ExportTask.class, t -> {
+        project.getTasks().register("export-raw", ExportTask.class, t -> {
+            t.dependsOn(buildExportQueryTask);
             t.setGatewayConnectionProperties(gatewayConnectionProperties);
             t.getExportFile().set(pluginConfig.getRawBundle());
-            t.getExportQuery().set(buildExportQueryTask.getExportQuery());
+            t.getExportQuery().set(buildExportQueryTask.get().getExportQuery());
         });
-        exportTask.dependsOn(buildExportQueryTask);
 
-        SanitizeBundleTask sanitizeTask = project.getTasks().create("sanitize-export", SanitizeBundleTask.class, sanitizeBundleTask -> {
+        project.getTasks().register("sanitize-export", SanitizeBundleTask.class, sanitizeBundleTask -> {
+            sanitizeBundleTask.dependsOn("export-raw");
             sanitizeBundleTask.getInputBundleFile().set(pluginConfig.getRawBundle());
             sanitizeBundleTask.getOutputBundleFile().set(pluginConfig.getSanitizedBundle());
         });
-        sanitizeTask.dependsOn(exportTask);
 
-        ExplodeBundleTask explodeBundleTask = project.getTasks().create("export", ExplodeBundleTask.class, t -> {
+        project.getTasks().register("export", ExplodeBundleTask.class, t -> {
+            t.dependsOn("sanitize-export");
             t.getFolderPath().set(pluginConfig.getFolderPath());
             t.getInputBundleFile().set(pluginConfig.getSanitizedBundle());
             t.getExportDir().set(pluginConfig.getSolutionDir());
             t.getExportEntities().set(pluginConfig.getExportEntities());
         });
-        explodeBundleTask.dependsOn(sanitizeTask);
 
-        project.getTasks().create("clean-export", Delete.class, t -> t.delete(pluginConfig.getSolutionDir()));
+        project.getTasks().register("clean-export", Delete.class, t -> t.delete(pluginConfig.getSolutionDir()));
     }
 
     private void setDefaults(GatewayExportPluginConfig pluginConfig, @NotNull Project project) {
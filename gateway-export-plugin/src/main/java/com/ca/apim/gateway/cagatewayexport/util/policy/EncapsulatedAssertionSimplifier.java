@@ -45,9 +45,9 @@ public class EncapsulatedAssertionSimplifier implements PolicyAssertionSimplifie
         //  - if the entity is found in the original exported bundle, missing-entity will be marked as excluded.
         //  - otherwise, it will be marked as not-excluded, i.e., entity might be missing from the gateway itself.
         // NOTE: Same rule is applicable to policies as well.
-        Optional<Encass> resultantEncassEntity = resultantBundle.getEntities(Encass.class).values().stream().filter(e -> encassGuid.equals(e.getGuid())).findAny();
+        Optional<Encass> resultantEncassEntity = Optional.ofNullable(resultantBundle.getEntityByGuid(Encass.class, encassGuid));
         if (resultantEncassEntity.isPresent()) {
-            Optional<Policy> resultantPolicyEntity = resultantBundle.getPolicies().values().stream().filter(p -> resultantEncassEntity.get().getPolicyId().equals(p.getId())).findFirst();
+            Optional<Policy> resultantPolicyEntity = Optional.ofNullable(resultantBundle.getEntityById(Policy.class, resultantEncassEntity.get().getPolicyId()));
             if (resultantPolicyEntity.isPresent()) {
                 encapsulatedAssertionElement.setAttribute("encassName", resultantEncassEntity.get().getName());
                 Element encapsulatedAssertionConfigNameElement = getSingleChildElement(encapsulatedAssertionElement, ENCAPSULATED_ASSERTION_CONFIG_NAME, true);
@@ -56,14 +56,14 @@ public class EncapsulatedAssertionSimplifier implements PolicyAssertionSimplifie
                 }
                 encapsulatedAssertionElement.removeChild(encassGuidElement);
             } else {
-                Optional<Policy> policyEntity = bundle.getPolicies().values().stream().filter(p -> resultantEncassEntity.get().getPolicyId().equals(p.getId())).findFirst();
+                Optional<Policy> policyEntity = Optional.ofNullable(bundle.getEntityById(Policy.class, resultantEncassEntity.get().getPolicyId()));
                 if (!policyEntity.isPresent()) {
                     LOGGER.log(Level.WARNING, "Could not find referenced encass policy with id: {0}", resultantEncassEntity.get().getPolicyId());
                 }
                 simplifyAssertionElementForMissingEntity(context, encapsulatedAssertionElement, policyEntity.isPresent());
             }
         } else {
-            Optional<Encass> encassEntity = bundle.getEntities(Encass.class).values().stream().filter(e -> encassGuid.equals(e.getGuid())).findAny();
+            Optional<Encass> encassEntity = Optional.ofNullable(bundle.getEntityByGuid(Encass.class, encassGuid));
             if (!encassEntity.isPresent()) {
                 LOGGER.log(Level.WARNING, "Could not find referenced encass with guid: {0}", encassGuid);
             }
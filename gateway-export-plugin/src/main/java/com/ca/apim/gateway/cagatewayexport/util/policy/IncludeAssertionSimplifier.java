@@ -40,13 +40,13 @@ public class IncludeAssertionSimplifier implements PolicyAssertionSimplifier {
 
         Element policyGuidElement = getSingleElement(assertionElement, POLICY_GUID);
         String includedPolicyGuid = policyGuidElement.getAttribute(STRING_VALUE);
-        Optional<Policy> resultantPolicyEntity = resultantBundle.getEntities(Policy.class).values().stream().filter(p -> includedPolicyGuid.equals(p.getGuid())).findAny();
+        Optional<Policy> resultantPolicyEntity = Optional.ofNullable(resultantBundle.getEntityByGuid(Policy.class, includedPolicyGuid));
         if (resultantPolicyEntity.isPresent()) {
             policyGuidElement.setAttribute("policyPath", getPolicyPath(bundle, resultantPolicyEntity.get()));
             policyGuidElement.removeAttribute(STRING_VALUE);
         } else {
             boolean excluded = true;
-            Optional<Policy> policyEntity = bundle.getEntities(Policy.class).values().stream().filter(p -> includedPolicyGuid.equals(p.getGuid())).findAny();
+            Optional<Policy> policyEntity = Optional.ofNullable(bundle.getEntityByGuid(Policy.class, includedPolicyGuid));
             if (!policyEntity.isPresent()) {
                 LOGGER.log(Level.WARNING, "Could not find referenced policy include with guid: {0}", includedPolicyGuid);
                 excluded = false;
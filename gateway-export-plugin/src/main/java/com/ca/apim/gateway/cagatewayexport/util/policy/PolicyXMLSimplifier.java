@@ -10,8 +10,6 @@ import com.ca.apim.gateway.cagatewayconfig.beans.Bundle;
 import com.ca.apim.gateway.cagatewayconfig.bundle.loader.BundleLoadException;
 import com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentParseException;
 import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -19,6 +17,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import static com.ca.apim.gateway.cagatewayconfig.util.xml.DocumentUtils.visitDescendantElements;
 import static java.util.Collections.unmodifiableMap;
 
 /**
@@ -35,26 +34,23 @@ public class PolicyXMLSimplifier {
         simplifiersByTag = unmodifiableMap(simplifiersByTag);
     }
 
+    /**
+     * Simplifies all assertions of the policy in a single depth first traversal, handing each assertion element to the
+     * simplifier registered for its tag.
+     */
     public void simplifyPolicyXML(Element policyElement, String policyName, Bundle bundle, Bundle resultantBundle) {
         PolicySimplifierContext context = new PolicySimplifierContext(policyName, bundle, resultantBundle);
-        simplifiersByTag.forEach((tag, simplifier) -> findAndSimplifyAssertion(policyElement, tag, simplifier, context));
+        visitDescendantElements(policyElement, simplifiersByTag,
+                (assertionElement, simplifier) -> simplifyAssertion(assertionElement, simplifier, context));
     }
 
-    private static void findAndSimplifyAssertion(Element policyElement,
-                                                 String assertionTagName,
-                                                 PolicyAssertionSimplifier simplifier,
-                                                 PolicySimplifierContext context) {
-        NodeList includeReferences = policyElement.getElementsByTagName(assertionTagName);
-        for (int i = 0; i < includeReferences.getLength(); i++) {
-            Node includeElement = includeReferences.item(i);
-            if (!(includeElement instanceof Element)) {
-                throw new BundleLoadException("Unexpected Assertion node type: " + includeElement.getNodeType());
-            }
-            try {
-                simplifier.simplifyAssertionElement(context.withAssertionElement((Element) includeElement));
-            } catch (DocumentParseException e) {
-                throw new BundleLoadException(e.getMessage(), e);
-            }
+    private static void simplifyAssertion(Element assertionElement,
+                                          PolicyAssertionSimplifier simplifier,
+                                          PolicySimplifierContext context) {
+        try {
+            simplifier.simplifyAssertionElement(context.withAssertionElement(assertionElement));
+        } catch (DocumentParseException e) {
+            throw new BundleLoadException(e.getMessage(), e);
         }
     }
 
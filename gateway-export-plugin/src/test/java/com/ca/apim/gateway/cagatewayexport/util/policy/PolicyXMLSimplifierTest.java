@@ -15,6 +15,11 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
 import static com.ca.apim.gateway.cagatewayconfig.beans.Folder.ROOT_FOLDER;
 import static com.ca.apim.gateway.cagatewayconfig.beans.Folder.ROOT_FOLDER_ID;
 import static com.ca.apim.gateway.cagatewayconfig.beans.IdentityProvider.INTERNAL_IDP_ID;
@@ -26,6 +31,44 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class PolicyXMLSimplifierTest {
 
+    @Test
+    void simplifyPolicyXMLInSinglePass() throws DocumentParseException {
+        Element policy = DocumentTools.INSTANCE.parse("<wsp:Policy xmlns:L7p=\"http://www.layer7tech.com/ws/policy\" xmlns:wsp=\"http://schemas.xmlsoap.org/ws/2002/12/policy\">" +
+                "<wsp:All wsp:Usage=\"Required\">" +
+                "<L7p:Include id=\"1\"/><L7p:SetVariable id=\"2\"/>" +
+                "<wsp:OneOrMore><L7p:SetVariable id=\"3\"/><L7p:Include id=\"4\"/></wsp:OneOrMore>" +
+                "<L7p:Include id=\"5\"/>" +
+                "</wsp:All></wsp:Policy>").getDocumentElement();
+        List<String> visited = new ArrayList<>();
+
+        PolicyXMLSimplifier policyXMLSimplifier = new PolicyXMLSimplifier(new HashSet<>(Arrays.asList(
+                recordingSimplifier(INCLUDE, visited, false),
+                recordingSimplifier(SET_VARIABLE, visited, true))));
+        policyXMLSimplifier.simplifyPolicyXML(policy, "policy", new Bundle(), new Bundle());
+
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), visited);
+        assertEquals(0, policy.getElementsByTagName(SET_VARIABLE).getLength());
+        assertEquals(3, policy.getElementsByTagName(INCLUDE).getLength());
+    }
+
+    private static PolicyAssertionSimplifier recordingSimplifier(String tag, List<String> visited, boolean remove) {
+        return new PolicyAssertionSimplifier() {
+            @Override
+            public void simplifyAssertionElement(PolicySimplifierContext context) {
+                Element element = context.getAssertionElement();
+                visited.add(element.getAttribute("id"));
+                if (remove) {
+                    element.getParentNode().removeChild(element);
+                }
+            }
+
+            @Override
+            public String getAssertionTagName() {
+                return tag;
+            }
+        };
+    }
+
     @Test
     void simplifySetVariable() throws DocumentParseException {
         Element setVariableAssertion = createSetVariableAssertionElement("my-var", "dGVzdGluZyBzaW1wbGlmeSBzZXQgdmFyaWFibGUgYXNzZXJ0aW9u");
@@ -29,7 +29,7 @@ public class CAGatewayImport implements Plugin<Project> {
         // Set Defaults
         project.afterEvaluate(p -> setDefaults(gatewayConnectionProperties));
 
-        project.getTasks().create("import-bundle", ImportBundleTask.class, t -> {
+        project.getTasks().register("import-bundle", ImportBundleTask.class, t -> {
             t.setGatewayConnectionProperties(gatewayConnectionProperties);
             t.setGatewayImportConfig(gatewayImportConfig);
         });
@@ -15,6 +15,7 @@ import org.gradle.api.artifacts.ConfigurationContainer;
 import org.gradle.api.artifacts.DependencySet;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.provider.Property;
 import org.gradle.api.tasks.*;
 
@@ -22,20 +23,32 @@ import javax.inject.Inject;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.ca.apim.gateway.cagatewayconfig.util.file.DocumentFileUtils.BUNDLE_EXTENSION;
 
 /**
  * The BuildDeploymentBundle task will take local source files and create a deployment bundle document that can be bootstrapped into a gateway container
  * or pushed via restman to an appliance gateway.
+ * <p>
+ * The task is cacheable: its outputs only depend on the declared inputs, and the source directory is compared by
+ * relative paths so the outputs can be reused from a build cache by a checkout in another location.
  */
+@CacheableTask
 public class BuildDeploymentBundleTask extends DefaultTask {
 
     private DirectoryProperty from;
     private DirectoryProperty into;
     private ConfigurableFileCollection dependencies;
     private Property<String> targetFolderPath;
+    private DirectoryProperty cacheDir;
+    private DirectoryProperty previousRelease;
+    private DirectoryProperty deltaInto;
 
     /**
      * Creates a new BuildBundle task to build a bundle from local source files
@@ -46,9 +59,14 @@ public class BuildDeploymentBundleTask extends DefaultTask {
         from = newInputDirectory();
         targetFolderPath = getProject().getObjects().property(String.class);
         dependencies = getProject().files();
+        cacheDir = getProject().getLayout().directoryProperty();
+        cacheDir.set(getProject().getLayout().getBuildDirectory().dir("gateway-build-cache"));
+        previousRelease = newInputDirectory();
+        deltaInto = newOutputDirectory();
     }
 
     @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
     @Optional
     public DirectoryProperty getFrom() {
         return from;
@@ -66,10 +84,74 @@ public class BuildDeploymentBundleTask extends DefaultTask {
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public ConfigurableFileCollection getDependencies() {
         return dependencies;
     }
 
+    /**
+     * The metadata files read in place of the dependencies that do not exist yet, which are the artifacts of project
+     * dependencies not built yet.
+     */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public FileCollection getDependenciesMetadata() {
+        return getProject().files((Callable<List<File>>) () -> dependencies.getFiles().stream()
+                .filter(file -> !file.exists() && file.getParentFile() != null && file.getParentFile().isDirectory())
+                .map(file -> file.getParentFile().listFiles())
+                // null if the folder can't be read
+                .filter(Objects::nonNull)
+                .flatMap(Stream::of)
+                .filter(file -> file.getName().endsWith(JsonFileUtils.METADATA_FILE_NAME_SUFFIX))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * The coordinates of the bundle dependencies, written to the metadata of the built bundles.
+     */
+    @Input
+    public List<String> getBundleDependencies() {
+        return getProject().getConfigurations().getByName("bundle").getDependencies().stream()
+                .map(dependency -> dependency.getGroup() + ":" + dependency.getName() + ":" + dependency.getVersion())
+                .collect(Collectors.toList());
+    }
+
+    @Input
+    public String getProjectCoordinates() {
+        return TaskInputs.getProjectCoordinates(getProject());
+    }
+
+    @Input
+    public Map<String, String> getBuildProperties() {
+        return TaskInputs.getBuildProperties();
+    }
+
+    /**
+     * The directory keeping the bundles of the previous builds, so only the bundles whose sources changed are built
+     * again. Bundles are always built when it is not set.
+     */
+    @LocalState
+    public DirectoryProperty getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * The directory holding the install bundles of a previous release and their metadata. When set, the delta of each
+     * built bundle against the bundle of the previous release is written to {@link #getDeltaInto()}.
+     */
+    @InputDirectory
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    @Optional
+    public DirectoryProperty getPreviousRelease() {
+        return previousRelease;
+    }
+
+    @OutputDirectory
+    @Optional
+    public DirectoryProperty getDeltaInto() {
+        return deltaInto;
+    }
+
     @TaskAction
     public void perform() {
         BundleFileBuilder bundleFileBuilder = InjectionRegistry.getInjector().getInstance(BundleFileBuilder.class);
@@ -80,7 +162,9 @@ public class BuildDeploymentBundleTask extends DefaultTask {
         }
         final List<DependentBundle> dependentBundles = getDependentBundles(dependencies.getFiles());
         bundleFileBuilder.buildBundle(from.isPresent() ? from.getAsFile().get() : null, into.getAsFile().get(),
-                dependentBundles, projectInfo);
+                dependentBundles, projectInfo, cacheDir.isPresent() ? cacheDir.getAsFile().get() : null,
+                previousRelease.isPresent() ? previousRelease.getAsFile().get() : null,
+                deltaInto.isPresent() ? deltaInto.getAsFile().get() : null);
     }
 
     private List<DependentBundle> getDependentBundles(Set<File> files) {
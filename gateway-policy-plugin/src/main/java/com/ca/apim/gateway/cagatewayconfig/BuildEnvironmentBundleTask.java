@@ -32,11 +32,13 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
  * The BuildEnvironmentBundle task will grab provided environment properties and build a bundle.
+ * <p>
+ * The task is not cacheable: it reads the templatized bundles from its output directory, which is shared with the
+ * deployment bundles by default.
  */
 public class BuildEnvironmentBundleTask extends DefaultTask {
 
     private final DirectoryProperty into;
-    private final EnvironmentConfigurationUtils environmentConfigurationUtils;
     private final DirectoryProperty configFolder;
     private final Property<String> configName;
     private final Property<Map> environmentConfig;
@@ -47,7 +49,6 @@ public class BuildEnvironmentBundleTask extends DefaultTask {
         into = newOutputDirectory();
         environmentConfig = getProject().getObjects().property(Map.class);
         envConfig = getProject().getObjects().property(Map.class);
-        environmentConfigurationUtils = getInstance(EnvironmentConfigurationUtils.class);
         configFolder = newInputDirectory();
         configName = getProject().getObjects().property(String.class);
     }
@@ -70,6 +71,7 @@ public class BuildEnvironmentBundleTask extends DefaultTask {
     }
 
     @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
     @Optional
     DirectoryProperty getConfigFolder() {
         return configFolder;
@@ -81,9 +83,20 @@ public class BuildEnvironmentBundleTask extends DefaultTask {
         return configName;
     }
 
+    @Input
+    String getProjectCoordinates() {
+        return TaskInputs.getProjectCoordinates(getProject());
+    }
+
+    @Input
+    Map<String, String> getBuildProperties() {
+        return TaskInputs.getBuildProperties();
+    }
+
     @TaskAction
     public void perform() {
         final EnvironmentBundleCreator environmentBundleCreator = getInstance(EnvironmentBundleCreator.class);
+        final EnvironmentConfigurationUtils environmentConfigurationUtils = getInstance(EnvironmentConfigurationUtils.class);
         File configuredFolder = configFolder.getAsFile().getOrNull();
         Map environmentEntities = java.util.Optional.ofNullable(envConfig.getOrNull()).orElse(environmentConfig.getOrNull());
         if (configuredFolder == null && environmentEntities == null) {
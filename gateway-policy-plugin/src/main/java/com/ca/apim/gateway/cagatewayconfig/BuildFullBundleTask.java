@@ -34,10 +34,11 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 
 /**
  * The BuildFullBundleTask task will grab provided environment properties and build a single bundle merged with the deployment bundles.
+ * <p>
+ * The task is not cacheable as it updates the metadata of the deployment bundles in place.
  */
 public class BuildFullBundleTask extends DefaultTask {
 
-    private final EnvironmentConfigurationUtils environmentConfigurationUtils;
     private final Property<Map> environmentConfig;
     private final ConfigurableFileCollection dependencyBundles;
     private final DirectoryProperty into;
@@ -48,7 +49,6 @@ public class BuildFullBundleTask extends DefaultTask {
 
     @Inject
     public BuildFullBundleTask() {
-        environmentConfigurationUtils = getInstance(EnvironmentConfigurationUtils.class);
         environmentConfig = getProject().getObjects().property(Map.class);
         envConfig = getProject().getObjects().property(Map.class);
         dependencyBundles = getProject().files();
@@ -59,6 +59,7 @@ public class BuildFullBundleTask extends DefaultTask {
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     ConfigurableFileCollection getDependencyBundles() {
         return dependencyBundles;
     }
@@ -86,6 +87,7 @@ public class BuildFullBundleTask extends DefaultTask {
     }
 
     @InputDirectory
+    @PathSensitive(PathSensitivity.RELATIVE)
     @Optional
     DirectoryProperty getConfigFolder() {
         return configFolder;
@@ -97,9 +99,20 @@ public class BuildFullBundleTask extends DefaultTask {
         return configName;
     }
 
+    @Input
+    String getProjectCoordinates() {
+        return TaskInputs.getProjectCoordinates(getProject());
+    }
+
+    @Input
+    Map<String, String> getBuildProperties() {
+        return TaskInputs.getBuildProperties();
+    }
+
     @TaskAction
     public void perform() {
         final FullBundleCreator fullBundleCreator = getInstance(FullBundleCreator.class);
+        final EnvironmentConfigurationUtils environmentConfigurationUtils = getInstance(EnvironmentConfigurationUtils.class);
         final String bundleDirectory = into.getAsFile().get().getPath();
         final String configurationName = configName != null ? removeAllSpecialChars(configName.get()) : EMPTY;
         final ProjectInfo projectInfo = new ProjectInfo(getProject().getName(), getProject().getGroup().toString(),
@@ -18,6 +18,7 @@ import org.gradle.api.file.RegularFile;
 import org.gradle.api.internal.artifacts.dsl.LazyPublishArtifact;
 import org.gradle.api.internal.provider.DefaultProvider;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskProvider;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
@@ -35,8 +36,10 @@ public class CAGatewayDeveloper implements Plugin<Project> {
     private static final String CUSTOM_ASSERTION_CONFIGURATION = "customassertion";
     private static final String BUNDLE_FILE_EXTENSION = "bundle";
     private static final String BUILT_BUNDLE_DIRECTORY = "bundle";
+    private static final String BUILT_DELTA_BUNDLE_DIRECTORY = "bundle-delta";
     private static final String GATEWAY_BUILD_DIRECTORY = "gateway";
     private static final String ENV_APPLICATION_CONFIGURATION = "environment-creator-application";
+    private static final String BUILD_BUNDLE = "build-bundle";
     private static final String BUILD_ENVIRONMENT_BUNDLE = "build-environment-bundle";
     private static final String BUILD_FULL_BUNDLE = "build-full-bundle";
 
@@ -57,12 +60,14 @@ public class CAGatewayDeveloper implements Plugin<Project> {
 
         configureEnvironmentApplication(project);
 
-        final BuildDeploymentBundleTask buildDeploymentBundleTask = createBuildDeploymentBundleTask(project, pluginConfig);
-        final BuildEnvironmentBundleTask buildEnvironmentBundleTask = createBuildEnvironmentBundleTask(project, pluginConfig);
-        final BuildFullBundleTask buildFullBundleTask = createBuildFullBundleTask(project, pluginConfig, buildDeploymentBundleTask);
-        final PackageTask packageGW7Task = createPackageTask(project, pluginConfig, buildDeploymentBundleTask);
+        // Tasks are registered lazily, so they are only created and configured when they are part of the build
+        final Provider<RegularFile> deploymentBundle = pluginConfig.getBuiltBundleDir().file(new DefaultProvider<>(() -> getBuiltArtifactName(project, ".install", BUNDLE_FILE_EXTENSION)));
+        final TaskProvider<BuildDeploymentBundleTask> buildDeploymentBundleTask = registerBuildDeploymentBundleTask(project, pluginConfig);
+        final TaskProvider<BuildEnvironmentBundleTask> buildEnvironmentBundleTask = registerBuildEnvironmentBundleTask(project, pluginConfig);
+        final TaskProvider<BuildFullBundleTask> buildFullBundleTask = registerBuildFullBundleTask(project, pluginConfig);
+        final TaskProvider<PackageTask> packageGW7Task = registerPackageTask(project, deploymentBundle);
 
-        configureGeneratedArtifacts(project, pluginConfig, buildDeploymentBundleTask, buildEnvironmentBundleTask, buildFullBundleTask, packageGW7Task);
+        configureGeneratedArtifacts(project, pluginConfig, deploymentBundle, buildDeploymentBundleTask, buildEnvironmentBundleTask, buildFullBundleTask, packageGW7Task);
     }
 
     @NotNull
@@ -85,9 +90,9 @@ public class CAGatewayDeveloper implements Plugin<Project> {
     }
 
     @NotNull
-    private static BuildDeploymentBundleTask createBuildDeploymentBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig) {
-        // Create build-bundle task
-        return project.getTasks().create("build-bundle", BuildDeploymentBundleTask.class, t -> {
+    private static TaskProvider<BuildDeploymentBundleTask> registerBuildDeploymentBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig) {
+        // Register build-bundle task
+        return project.getTasks().register(BUILD_BUNDLE, BuildDeploymentBundleTask.class, t -> {
             t.dependsOn(project.getConfigurations().getByName(BUNDLE_CONFIGURATION));
             t.getFrom().set(new DefaultProvider<>(() -> {
                 Directory dir = pluginConfig.getSolutionDir().get();
@@ -96,13 +101,15 @@ public class CAGatewayDeveloper implements Plugin<Project> {
             t.getInto().set(pluginConfig.getBuiltBundleDir());
             t.getTargetFolderPath().set(pluginConfig.getTargetFolderPath());
             t.getDependencies().setFrom(project.getConfigurations().getByName(BUNDLE_CONFIGURATION));
+            t.getPreviousRelease().set(pluginConfig.getPreviousReleaseDir());
+            t.getDeltaInto().set(pluginConfig.getBuiltDeltaBundleDir());
         });
     }
 
     @NotNull
-    private static BuildEnvironmentBundleTask createBuildEnvironmentBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig) {
-        // Create build-environment-bundle task
-        final BuildEnvironmentBundleTask buildEnvironmentBundleTask = project.getTasks().create(BUILD_ENVIRONMENT_BUNDLE, BuildEnvironmentBundleTask.class, t -> {
+    private static TaskProvider<BuildEnvironmentBundleTask> registerBuildEnvironmentBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig) {
+        // Register build-environment-bundle task
+        return project.getTasks().register(BUILD_ENVIRONMENT_BUNDLE, BuildEnvironmentBundleTask.class, t -> {
             t.getInto().set(pluginConfig.getBuiltEnvironmentBundleDir());
             t.getEnvConfig().set(pluginConfig.getEnvConfig().getMap());
             //for backward compatibility
@@ -114,12 +121,13 @@ public class CAGatewayDeveloper implements Plugin<Project> {
             }));
             t.getConfigName().set(pluginConfig.getEnvConfig().getName());
         });
-        return buildEnvironmentBundleTask;
     }
 
-    private static BuildFullBundleTask createBuildFullBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig, BuildDeploymentBundleTask buildDeploymentBundleTask) {
-        // Create build-full-bundle task
-        final BuildFullBundleTask buildFullBundleTask = project.getTasks().create(BUILD_FULL_BUNDLE, BuildFullBundleTask.class, t -> {
+    @NotNull
+    private static TaskProvider<BuildFullBundleTask> registerBuildFullBundleTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig) {
+        // Register build-full-bundle task
+        return project.getTasks().register(BUILD_FULL_BUNDLE, BuildFullBundleTask.class, t -> {
+            t.dependsOn(BUILD_BUNDLE);
             t.getEnvConfig().set(pluginConfig.getEnvConfig().getMap());
             //for backward compatibility
             t.getEnvironmentConfig().set(pluginConfig.getEnvironmentConfig());
@@ -132,17 +140,15 @@ public class CAGatewayDeveloper implements Plugin<Project> {
             }));
             t.getConfigName().set(pluginConfig.getEnvConfig().getName());
         });
-        buildFullBundleTask.dependsOn(buildDeploymentBundleTask);
-        return buildFullBundleTask;
     }
 
     @NotNull
-    private static PackageTask createPackageTask(@NotNull Project project, GatewayDeveloperPluginConfig pluginConfig, BuildDeploymentBundleTask buildDeploymentBundleTask) {
-        // Create package task
-        return project.getTasks().create("package-gw7", PackageTask.class, t -> {
-            t.dependsOn(buildDeploymentBundleTask);
+    private static TaskProvider<PackageTask> registerPackageTask(@NotNull Project project, Provider<RegularFile> deploymentBundle) {
+        // Register package task
+        return project.getTasks().register("package-gw7", PackageTask.class, t -> {
+            t.dependsOn(BUILD_BUNDLE);
             t.getInto().set(new DefaultProvider<RegularFile>(() -> () -> new File(new File(project.getBuildDir(), GATEWAY_BUILD_DIRECTORY), getBuiltArtifactName(project, EMPTY,"gw7"))));
-            t.getBundle().set(pluginConfig.getBuiltBundleDir().file(new DefaultProvider<>(() -> getBuiltArtifactName(project, ".install", BUNDLE_FILE_EXTENSION))));
+            t.getBundle().set(deploymentBundle);
             t.getDependencyBundles().setFrom(project.getConfigurations().getByName(BUNDLE_CONFIGURATION));
             t.getContainerApplicationDependencies().setFrom(project.getConfigurations().getByName(ENV_APPLICATION_CONFIGURATION));
             t.getDependencyModularAssertions().setFrom(project.getConfigurations().getByName(MODULAR_ASSERTION_CONFIGURATION));
@@ -152,15 +158,16 @@ public class CAGatewayDeveloper implements Plugin<Project> {
 
     private static void configureGeneratedArtifacts(@NotNull Project project,
                                                     GatewayDeveloperPluginConfig pluginConfig,
-                                                    BuildDeploymentBundleTask buildDeploymentBundleTask,
-                                                    BuildEnvironmentBundleTask buildEnvironmentBundleTask,
-                                                    BuildFullBundleTask buildFullBundleTask,
-                                                    PackageTask packageGW7Task) {
+                                                    Provider<RegularFile> deploymentBundle,
+                                                    TaskProvider<BuildDeploymentBundleTask> buildDeploymentBundleTask,
+                                                    TaskProvider<BuildEnvironmentBundleTask> buildEnvironmentBundleTask,
+                                                    TaskProvider<BuildFullBundleTask> buildFullBundleTask,
+                                                    TaskProvider<PackageTask> packageGW7Task) {
         // add build-bundle to the default build task
-        project.afterEvaluate(p -> project.getTasks().getByPath("build").dependsOn(buildDeploymentBundleTask, packageGW7Task));
+        project.getTasks().named("build").configure(t -> t.dependsOn(buildDeploymentBundleTask, packageGW7Task));
 
         // add the deployment bundle to the default artifacts
-        project.artifacts(artifactHandler -> addBundleArtifact(artifactHandler, packageGW7Task.getBundle(), buildDeploymentBundleTask, project::getName, "deployment"));
+        project.artifacts(artifactHandler -> addBundleArtifact(artifactHandler, deploymentBundle, buildDeploymentBundleTask, project::getName, "deployment"));
 
         // add the environment bundle to the artifacts only if the environment bundle task was triggered
         final String artifactName = getBuiltArtifactName(project, "-env.install", BUNDLE_FILE_EXTENSION);
@@ -184,17 +191,18 @@ public class CAGatewayDeveloper implements Plugin<Project> {
         }
 
         // set the deployment bundle path as a project property to be consumed by publishing projects
-        project.afterEvaluate(p -> project.getExtensions().add("deployment-bundle-file", new File(buildDeploymentBundleTask.getInto().getAsFile().get(), getBuiltArtifactName(project, "-policy.install", BUNDLE_FILE_EXTENSION)).toString()));
+        // the paths are read from the plugin configuration the tasks are configured from, so the tasks are not created
+        project.afterEvaluate(p -> project.getExtensions().add("deployment-bundle-file", new File(pluginConfig.getBuiltBundleDir().getAsFile().get(), getBuiltArtifactName(project, "-policy.install", BUNDLE_FILE_EXTENSION)).toString()));
         // set the env bundle as property as well
-        project.afterEvaluate(p -> project.getExtensions().add("environment-bundle-file", new File(buildEnvironmentBundleTask.getInto().getAsFile().get(), artifactName).toString()));
+        project.afterEvaluate(p -> project.getExtensions().add("environment-bundle-file", new File(pluginConfig.getBuiltEnvironmentBundleDir().getAsFile().get(), artifactName).toString()));
         // and the full bundle as property too
-        project.afterEvaluate(p -> project.getExtensions().add("full-bundle-file", new File(buildFullBundleTask.getInto().getAsFile().get(), fullBundleArtifactName).toString()));
+        project.afterEvaluate(p -> project.getExtensions().add("full-bundle-file", new File(pluginConfig.getBuiltEnvironmentBundleDir().getAsFile().get(), fullBundleArtifactName).toString()));
     }
 
     private static void addBundleArtifact(
             ArtifactHandler artifactHandler,
             Provider<RegularFile> bundle,
-            Task generatedTask,
+            TaskProvider<? extends Task> generatedTask,
             Supplier<String> nameSupplier,
             String classifier) {
         artifactHandler.add(
@@ -239,6 +247,9 @@ public class CAGatewayDeveloper implements Plugin<Project> {
         if (!pluginConfig.getBuiltEnvironmentBundleDir().isPresent()) {
             pluginConfig.getBuiltEnvironmentBundleDir().set(defaultBuildDir);
         }
+        if (!pluginConfig.getBuiltDeltaBundleDir().isPresent()) {
+            pluginConfig.getBuiltDeltaBundleDir().set(new File(new File(project.getBuildDir(), GATEWAY_BUILD_DIRECTORY), BUILT_DELTA_BUNDLE_DIRECTORY));
+        }
 
         if (!environmentConfig.getName().isPresent()) {
             environmentConfig.getName().set(EMPTY);
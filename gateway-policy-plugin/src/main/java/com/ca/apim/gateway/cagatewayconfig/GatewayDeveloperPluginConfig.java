@@ -18,6 +18,8 @@ public class GatewayDeveloperPluginConfig {
     private Property<String> targetFolderPath;
     private DirectoryProperty builtBundleDir;
     private DirectoryProperty builtEnvironmentBundleDir;
+    private final DirectoryProperty previousReleaseDir;
+    private final DirectoryProperty builtDeltaBundleDir;
     private final Property<Boolean> detemplatizeDeploymentBundles;
     private final EnvironmentConfig envConfig;
     //for backward compatibility
@@ -28,6 +30,8 @@ public class GatewayDeveloperPluginConfig {
         targetFolderPath = project.getObjects().property(String.class);
         builtBundleDir = project.getLayout().directoryProperty();
         builtEnvironmentBundleDir = project.getLayout().directoryProperty();
+        previousReleaseDir = project.getLayout().directoryProperty();
+        builtDeltaBundleDir = project.getLayout().directoryProperty();
         detemplatizeDeploymentBundles = project.getObjects().property(Boolean.class);
         this.environmentConfig = project.getObjects().property(Map.class);
         this.envConfig = environmentConfig;
@@ -45,6 +49,18 @@ public class GatewayDeveloperPluginConfig {
         return builtEnvironmentBundleDir;
     }
 
+    /**
+     * The directory holding the install bundles of a previous release and their metadata. When set, the delta of each
+     * bundle against the previous release is built as well.
+     */
+    DirectoryProperty getPreviousReleaseDir() {
+        return previousReleaseDir;
+    }
+
+    DirectoryProperty getBuiltDeltaBundleDir() {
+        return builtDeltaBundleDir;
+    }
+
     public Property<Boolean> getDetemplatizeDeploymentBundles() {
         return detemplatizeDeploymentBundles;
     }
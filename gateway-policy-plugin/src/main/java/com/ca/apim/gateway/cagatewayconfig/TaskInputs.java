@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.cagatewayconfig;
+
+import com.ca.apim.gateway.cagatewayconfig.util.concurrent.ParallelExecutor;
+import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
+import org.gradle.api.Project;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Values the plugin tasks read from the project and the build environment rather than from their properties. The tasks
+ * declare them as inputs so they are part of the up-to-date checks and of the build cache keys.
+ */
+final class TaskInputs {
+
+    private static final String BUILD_PROPERTY_PREFIX = "com.ca.apim.build.";
+    // build properties that change how fast the bundles are built, but not the bundles
+    private static final List<String> NON_OUTPUT_BUILD_PROPERTIES = Arrays.asList(ParallelExecutor.PARALLELISM_PROPERTY,
+            InjectionRegistry.FAST_START_PROPERTY);
+
+    private TaskInputs() { }
+
+    /**
+     * @return the group, name and version of the project, which name the built bundles
+     */
+    static String getProjectCoordinates(final Project project) {
+        return project.getGroup() + ":" + project.getName() + ":" + project.getVersion();
+    }
+
+    /**
+     * @return the com.ca.apim.build system properties changing the bundles built, sorted by name. The parallelism and
+     * fast start properties are left out, so changing them does not make the tasks out of date.
+     */
+    static Map<String, String> getBuildProperties() {
+        final Map<String, String> properties = new TreeMap<>();
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith(BUILD_PROPERTY_PREFIX) && !NON_OUTPUT_BUILD_PROPERTIES.contains(name))
+                .forEach(name -> properties.put(name, System.getProperty(name)));
+        return properties;
+    }
+}
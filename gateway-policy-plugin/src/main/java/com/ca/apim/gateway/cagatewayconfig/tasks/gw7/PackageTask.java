@@ -13,21 +13,24 @@ import com.ca.apim.gateway.cagatewayconfig.util.injection.InjectionRegistry;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.RegularFileProperty;
-import org.gradle.api.tasks.InputFile;
-import org.gradle.api.tasks.InputFiles;
-import org.gradle.api.tasks.OutputFile;
-import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.*;
 
 import javax.inject.Inject;
 import java.io.File;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.ca.apim.gateway.cagatewayconfig.ProjectDependencyUtils.*;
 import static org.apache.commons.collections4.SetUtils.union;
 
 /**
  * The BuildBundle task will take local source files and create a bundle document that can be bootstrapped into a gateway container
+ * <p>
+ * The task is cacheable. The packaged files are named after the input files, so the inputs are compared by file name
+ * and content only.
  */
+@CacheableTask
 public class PackageTask extends DefaultTask {
 
     private ConfigurableFileCollection dependencyBundles;
@@ -39,7 +42,6 @@ public class PackageTask extends DefaultTask {
 
     private final FileUtils fileUtils;
     private final GW7Builder gw7Builder;
-    private final DependencyBundlesProcessor dependencyBundlesProcessor;
 
     /**
      * Creates a new BuildBundle task to build a bundle from local source files
@@ -59,34 +61,48 @@ public class PackageTask extends DefaultTask {
 
         this.fileUtils = fileUtils;
         this.gw7Builder = gw7Builder;
-        this.dependencyBundlesProcessor = InjectionRegistry.getInstance(DependencyBundlesProcessor.class);
     }
 
     @InputFile
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public RegularFileProperty getBundle() {
         return bundle;
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public ConfigurableFileCollection getDependencyBundles() {
         return dependencyBundles;
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public ConfigurableFileCollection getContainerApplicationDependencies() {
         return containerApplicationDependencies;
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public ConfigurableFileCollection getDependencyModularAssertions() {
         return dependencyModularAssertions;
     }
 
     @InputFiles
+    @PathSensitive(PathSensitivity.NAME_ONLY)
     public ConfigurableFileCollection getDependencyCustomAssertions() {
         return dependencyCustomAssertions;
     }
 
+    /**
+     * The dependency bundles are numbered in the package in the order they are resolved.
+     */
+    @Input
+    public List<String> getDependencyBundlesOrder() {
+        return filterBundleFiles(dependencyBundles.getAsFileTree().getFiles()).stream()
+                .map(File::getName)
+                .collect(Collectors.toList());
+    }
+
     @OutputFile
     public RegularFileProperty getInto() {
         return into;
@@ -94,7 +110,7 @@ public class PackageTask extends DefaultTask {
 
     @TaskAction
     public void perform() {
-        Packager packager = new Packager(fileUtils, gw7Builder, dependencyBundlesProcessor);
+        Packager packager = new Packager(fileUtils, gw7Builder, InjectionRegistry.getInstance(DependencyBundlesProcessor.class));
         final Set<File> bundleDependencies = dependencyBundles.getAsFileTree().getFiles();
 
         packager.buildPackage(
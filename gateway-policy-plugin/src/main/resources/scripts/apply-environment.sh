@@ -15,5 +15,16 @@ then
     DEBUG_OPTS="-agentlib:jdwp=transport=dt_socket,server=y,suspend=y,address=${ENV_DEBUG_PORT}"
 fi
 
+# Start the env creator application with its injection index, and the class data sharing archive if one is provided.
+# The archive must be dumped by the same JDK that runs the application.
+FAST_START_OPTS="-Dcom.ca.apim.build.fastStart=true"
+if [ -n "$ENV_CLASS_DATA_ARCHIVE" ] && [ -f "$ENV_CLASS_DATA_ARCHIVE" ]
+then
+    FAST_START_OPTS="${FAST_START_OPTS} -XX:+UnlockDiagnosticVMOptions -Xshare:auto -XX:SharedArchiveFile=${ENV_CLASS_DATA_ARCHIVE}"
+fi
+
+# Detemplatize the deployment bundles on all the processors of the container, unless a parallelism is given
+PARALLELISM_OPTS="-Dcom.ca.apim.build.parallelism=${ENV_PARALLELISM:-$(nproc 2>/dev/null || echo 1)}"
+
 # Call the apply-environment application
-"$JAVA_HOME/bin/java" ${DEBUG_OPTS} -classpath "/opt/docker/rc.d/apply-environment/*" com.ca.apim.gateway.cagatewayconfig.EnvironmentCreatorApplication
\ No newline at end of file
+"$JAVA_HOME/bin/java" ${DEBUG_OPTS} ${FAST_START_OPTS} ${PARALLELISM_OPTS} -classpath "/opt/docker/rc.d/apply-environment/*" com.ca.apim.gateway.cagatewayconfig.EnvironmentCreatorApplication
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018 CA. All rights reserved.
+ * This software may be modified and distributed under the terms
+ * of the MIT license.  See the LICENSE file for details.
+ */
+
+package com.ca.apim.gateway.capublisherplugin;
+
+import io.github.glytching.junit.extension.folder.TemporaryFolder;
+import io.github.glytching.junit.extension.folder.TemporaryFolderExtension;
+import org.apache.commons.io.FileUtils;
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.charset.Charset.defaultCharset;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the configuration time of a build made of many projects applying the plugin, with the plugin tasks
+ * registered lazily and with all of them created, which is what creating them eagerly did.
+ * Run with the benchmark task, it is excluded from the regular test run.
+ */
+@Tag("benchmark")
+@ExtendWith(TemporaryFolderExtension.class)
+class CAGatewayDeveloperConfigurationBenchmarkTest {
+    private static final Logger LOGGER = Logger.getLogger(CAGatewayDeveloperConfigurationBenchmarkTest.class.getName());
+
+    private static final int PROJECTS = 120;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int ROUNDS = 5;
+    private static final String PLUGIN_TASKS = "['build-bundle', 'build-environment-bundle', 'build-full-bundle', 'package-gw7']";
+
+    @Test
+    void lazyAgainstEagerTaskCreation(TemporaryFolder temporaryFolder) throws IOException {
+        final File projectDir = temporaryFolder.createDirectory("benchmark");
+        createProjects(projectDir);
+
+        final long eager = measure(projectDir, "-PrealizeTasks");
+        final long lazy = measure(projectDir, "-PnotRealizeTasks");
+
+        LOGGER.log(Level.INFO, "{0} projects: configuration with all tasks created {1} ms, with lazy tasks {2} ms",
+                new Object[]{PROJECTS, eager, lazy});
+        assertTrue(run(projectDir, "-PrealizeTasks").getOutput().contains("Realized plugin tasks: " + PROJECTS * 4));
+        assertTrue(run(projectDir, "-PnotRealizeTasks").getOutput().contains("Realized plugin tasks: 0"));
+    }
+
+    private static void createProjects(File projectDir) throws IOException {
+        final StringBuilder settings = new StringBuilder("rootProject.name = 'benchmark'\n");
+        for (int i = 0; i < PROJECTS; i++) {
+            final String projectName = "project-" + i;
+            settings.append("include '").append(projectName).append("'\n");
+            FileUtils.writeStringToFile(new File(new File(projectDir, projectName), "build.gradle"),
+                    "plugins {\n    id 'com.ca.apim.gateway.gateway-policy-plugin'\n}\n", defaultCharset());
+        }
+        FileUtils.writeStringToFile(new File(projectDir, "settings.gradle"), settings.toString(), defaultCharset());
+        FileUtils.writeStringToFile(new File(projectDir, "build.gradle"),
+                "plugins {\n" +
+                "    id 'com.ca.apim.gateway.gateway-policy-plugin' apply false\n" +
+                "}\n" +
+                "def realized = new java.util.concurrent.atomic.AtomicInteger()\n" +
+                "subprojects {\n" +
+                "    tasks.configureEach { if (it.name in " + PLUGIN_TASKS + ") realized.incrementAndGet() }\n" +
+                "    if (rootProject.hasProperty('realizeTasks')) {\n" +
+                "        tasks.all { }\n" +
+                "    }\n" +
+                "}\n" +
+                "gradle.projectsEvaluated { println \"Realized plugin tasks: ${realized.get()}\" }\n",
+                defaultCharset());
+    }
+
+    /**
+     * @return average milliseconds per configuration of the build
+     */
+    private static long measure(File projectDir, String property) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            run(projectDir, property);
+        }
+        final List<Long> times = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            final long start = System.nanoTime();
+            run(projectDir, property);
+            times.add((System.nanoTime() - start) / 1_000_000);
+        }
+        return times.stream().mapToLong(Long::longValue).sum() / ROUNDS;
+    }
+
+    private static BuildResult run(File projectDir, String property) {
+        return GradleRunner.create()
+                .withProjectDir(projectDir)
+                .withArguments("help", "--offline", property)
+                .withPluginClasspath()
+                .build();
+    }
+}
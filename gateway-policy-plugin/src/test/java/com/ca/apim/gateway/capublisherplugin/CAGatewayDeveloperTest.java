@@ -85,6 +85,40 @@ class CAGatewayDeveloperTest {
         assertTrue(builtDeleteBundleFile.isFile());
     }
 
+    @Test
+    @ExtendWith(TemporaryFolderExtension.class)
+    void testExampleProjectFromBuildCache(TemporaryFolder temporaryFolder) throws IOException, URISyntaxException {
+        String projectFolder = "example-project";
+        File buildCacheDir = new File(temporaryFolder.getRoot(), "build-cache");
+
+        // the same project built from two checkouts sharing a build cache
+        File firstProjectDir = new File(new File(temporaryFolder.getRoot(), "first"), projectFolder);
+        BuildResult firstResult = buildWithBuildCache(projectFolder, firstProjectDir, buildCacheDir);
+        assertEquals(TaskOutcome.SUCCESS, Objects.requireNonNull(firstResult.task(":build-bundle")).getOutcome());
+
+        File secondProjectDir = new File(new File(temporaryFolder.getRoot(), "second"), projectFolder);
+        BuildResult result = buildWithBuildCache(projectFolder, secondProjectDir, buildCacheDir);
+
+        LOGGER.log(Level.INFO, result.getOutput());
+        assertEquals(TaskOutcome.FROM_CACHE, Objects.requireNonNull(result.task(":build-bundle")).getOutcome());
+        assertEquals(TaskOutcome.FROM_CACHE, Objects.requireNonNull(result.task(":package-gw7")).getOutcome());
+        String bundleFileName = projectFolder + projectVersion + POLICY_INSTALL_BUNDLE_SUFFIX;
+        validateBuildDir(projectFolder, bundleFileName, new File(secondProjectDir, "build"));
+    }
+
+    private BuildResult buildWithBuildCache(String projectFolder, File testProjectDir, File buildCacheDir) throws IOException, URISyntaxException {
+        FileUtils.copyDirectory(new File(Objects.requireNonNull(getClass().getClassLoader().getResource(projectFolder)).toURI()), testProjectDir);
+        FileUtils.writeStringToFile(new File(testProjectDir, "settings.gradle"),
+                "\nbuildCache { local { directory = '" + buildCacheDir.toURI() + "' } }\n", defaultCharset(), true);
+
+        return GradleRunner.create()
+                .withProjectDir(testProjectDir)
+                .withArguments("build", "--build-cache", "--stacktrace", "-PjarDir=" + System.getProperty("user.dir") + "/build/test-mvn-repo")
+                .withPluginClasspath()
+                .withDebug(true)
+                .build();
+    }
+
     @Test
     @ExtendWith(TemporaryFolderExtension.class)
     void testExampleProjectCustomOrganization(TemporaryFolder temporaryFolder) throws IOException, URISyntaxException {